@@ -7,6 +7,7 @@ import static net.adoptopenjdk.icedteaweb.i18n.Translator.R;
 public enum CommandLineOptions {
     //javaws undocumented switches
     TRUSTALL("-Xtrustall","BOTrustall"),
+    WARMVM("-Xwarmvm", "fingerprint", "BXwarmvm", NumberOfArguments.ONE),
     //javaws control-options
     ABOUT("-about", "BOAbout"),
     VIEWER("-viewer", "BOViewer"),
@@ -31,6 +32,8 @@ public enum CommandLineOptions {
     NOFORK("-Xnofork", "BXnofork"),
     NOHEADERS("-Xignoreheaders", "BXignoreheaders"),
     OFFLINE("-Xoffline", "BXoffline"),
+    TIMELINE("-Xtimeline", "file", "BXtimeline", NumberOfArguments.ONE),
+    TIMELINETRACE("-Xtimelinetrace", "file", "BXtimelinetrace", NumberOfArguments.ONE),
     TRUSTNONE("-Xtrustnone","BOTrustnone"),
     JNLP("-jnlp","BOJnlp", NumberOfArguments.ONE),
     HTML("-html","BOHtml", NumberOfArguments.ONE_OR_MORE),
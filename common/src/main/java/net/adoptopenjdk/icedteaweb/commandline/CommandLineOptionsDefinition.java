@@ -91,6 +91,8 @@ public class CommandLineOptionsDefinition {
                 CommandLineOptions.NOFORK,
                 CommandLineOptions.NOHEADERS,
                 CommandLineOptions.OFFLINE,
+                CommandLineOptions.TIMELINE,
+                CommandLineOptions.TIMELINETRACE,
                 CommandLineOptions.TRUSTNONE,
                 CommandLineOptions.JNLP,
                 CommandLineOptions.HTML,
@@ -102,6 +104,7 @@ public class CommandLineOptionsDefinition {
         l.addAll(getJavaWsRuntimeOptions());
         l.addAll(getJavaWsControlOptions());
         l.add(CommandLineOptions.TRUSTALL);
+        l.add(CommandLineOptions.WARMVM);
         return Collections.unmodifiableList(l);
     }
 
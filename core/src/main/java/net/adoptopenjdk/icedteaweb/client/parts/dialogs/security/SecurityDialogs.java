@@ -57,6 +57,7 @@ import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.cache.Resource;
 import net.sourceforge.jnlp.runtime.JNLPClassLoader.SecurityDelegate;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.runtime.LaunchTimeline;
 import net.sourceforge.jnlp.security.AccessType;
 import net.sourceforge.jnlp.security.CertVerifier;
 import net.sourceforge.jnlp.util.UrlUtils;
@@ -291,6 +292,12 @@ public class SecurityDialogs {
      * indicates success/proceed, and everything else indicates failure
      */
     private static DialogResult getUserResponse(final SecurityDialogMessage message) {
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("dialog", message.dialogType)) {
+            return showAndWait(message);
+        }
+    }
+
+    private static DialogResult showAndWait(final SecurityDialogMessage message) {
         /*
          * Want to show a security warning, while blocking the client
          * application. This would be easy except there is a bug in showing
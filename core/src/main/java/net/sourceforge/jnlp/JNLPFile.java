@@ -40,6 +40,7 @@ import net.adoptopenjdk.icedteaweb.xmlparser.XmlParserFactory;
 import net.sourceforge.jnlp.cache.ResourceTracker;
 import net.sourceforge.jnlp.cache.UpdatePolicy;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.runtime.LaunchTimeline;
 import net.sourceforge.jnlp.util.LocaleUtils;
 import net.sourceforge.jnlp.util.LocaleUtils.Match;
 import net.sourceforge.jnlp.util.UrlUtils;
@@ -331,7 +332,7 @@ public class JNLPFile {
         if (location == null || policy == null)
             throw new IllegalArgumentException(R("NullParameter"));
 
-        try {
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("jnlp.fetch", location)) {
             ResourceTracker tracker = new ResourceTracker(false); // no prefetch
             tracker.addResource(location, version, null, policy);
             File f = tracker.getCacheFile(location);
@@ -805,7 +806,7 @@ public class JNLPFile {
      * @param location the file location or {@code null}
      */
     private void parse(InputStream input, URL location, URL forceCodebase) throws ParseException {
-        try {
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("jnlp.parse", location)) {
             //if (location != null)
             //  location = new URL(location, "."); // remove filename
 
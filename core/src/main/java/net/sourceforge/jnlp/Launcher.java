@@ -22,6 +22,7 @@ import java.awt.Container;
 import java.awt.SplashScreen;
 import java.io.File;
 import java.lang.reflect.Method;
+import java.net.Socket;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -42,6 +43,8 @@ import net.sourceforge.jnlp.runtime.AppletInstance;
 import net.sourceforge.jnlp.runtime.ApplicationInstance;
 import net.sourceforge.jnlp.runtime.JNLPClassLoader;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.runtime.LaunchTimeline;
+import net.sourceforge.jnlp.runtime.WarmVmPool;
 import net.sourceforge.jnlp.services.InstanceExistsException;
 import net.sourceforge.jnlp.services.ServiceUtil;
 import net.sourceforge.jnlp.util.JarFile;
@@ -431,6 +434,16 @@ public class Launcher {
 
             // this property is set by the javaws launcher to point to the javaws binary
             String pathToWebstartBinary = System.getProperty(KEY_JAVAWS_LOCATION);
+            if (pathToWebstartBinary != null && WarmVmPool.isEnabled()) {
+                final WarmVmPool pool = WarmVmPool.getInstance();
+                final String fingerprint = WarmVmPool.fingerprint(pathToWebstartBinary, vmArgs);
+                final Socket warmVm = pool.handOver(fingerprint, javawsArgs);
+                pool.refill(pathToWebstartBinary, vmArgs, fingerprint);
+                if (warmVm != null) {
+                    WarmVmPool.waitForExit(warmVm);
+                    return;
+                }
+            }
             commands.add(pathToWebstartBinary);
             // use -Jargument format to pass arguments to the JVM through the launcher
             for (String arg : vmArgs) {
@@ -527,7 +540,7 @@ public class Launcher {
                 }
                 List<String> netxArguments = new LinkedList<String>();
                 netxArguments.add("-Xnofork");
-                netxArguments.addAll(JNLPRuntime.getInitialArguments());
+                netxArguments.addAll(LaunchTimeline.getNewVmArguments(JNLPRuntime.getInitialArguments()));
                 launchExternal(file.getNewVMArgs(), netxArguments);
                 return null;
             }
@@ -559,7 +572,10 @@ public class Launcher {
 
             LOG.info("Starting application [{}] ...", mainName);
             
-            Class<?> mainClass = app.getClassLoader().loadClass(mainName);
+            final Class<?> mainClass;
+            try (final LaunchTimeline.Phase phase = LaunchTimeline.start("mainClass", mainName)) {
+                mainClass = app.getClassLoader().loadClass(mainName);
+            }
 
             Method main = mainClass.getMethod("main", new Class<?>[] { String[].class });
             String args[] = file.getApplication().getArguments();
@@ -579,6 +595,8 @@ public class Launcher {
             main.setAccessible(true);
 
             LOG.info("Invoking main() with args: {}", Arrays.toString(args));
+            LaunchTimeline.mark("main", mainName);
+            LaunchTimeline.write();
             main.invoke(null, new Object[] { args });
 
             return app;
@@ -816,7 +834,7 @@ public class Launcher {
      * @throws net.sourceforge.jnlp.LaunchException if deploy unrecoverably die
      */
     protected ApplicationInstance createApplication(JNLPFile file) throws LaunchException {
-        try {
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("classloader", file.getFileLocation())) {
             JNLPClassLoader loader = JNLPClassLoader.getInstance(file, updatePolicy, false);
             ThreadGroup group = Thread.currentThread().getThreadGroup();
 
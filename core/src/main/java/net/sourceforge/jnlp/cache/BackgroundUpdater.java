@@ -0,0 +1,157 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.sourceforge.jnlp.DownloadOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.sourceforge.jnlp.cache.Resource.Status.ERROR;
+import static net.sourceforge.jnlp.cache.Resource.Status.PREDOWNLOAD;
+import static net.sourceforge.jnlp.cache.Resource.Status.PRECONNECT;
+import static net.sourceforge.jnlp.cache.Resource.Status.PROCESSING;
+
+/**
+ * Checks the cached jars of an application for updates while the application runs from the cache,
+ * as requested by {@code <update check="background">} or by a {@code timeout} check which took too long.
+ * <p>
+ * The check downloads into the cache like a check in the foreground, but with resources which are not
+ * shared with the trackers of the running application. An updated jar is stored in a new cache file.
+ * The running launch is pinned to the cache files the check started with, see
+ * {@link #getLaunchFile(URL)}, so it does not mix them with updated jars, even for lazy jars it
+ * resolves later on. Every checked entry is marked as pending before the check starts and unmarked
+ * only after all jars were checked without error, so the next launch uses a set of jars without a
+ * foreground check only if it was completely updated.
+ * </p>
+ */
+public class BackgroundUpdater {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackgroundUpdater.class);
+
+    /** the cache files of the checked jars when their check started, by resource key */
+    private static final Map<String, File> launchFiles = new ConcurrentHashMap<>();
+
+    private BackgroundUpdater() {
+    }
+
+    /**
+     * @param jars the jars of an application
+     * @return true if all cacheable jars are cached and no check for updates of them is pending
+     */
+    public static boolean isCompletelyCached(final List<JARDesc> jars) {
+        for (final JARDesc jar : jars) {
+            if (!jar.isCacheable()) {
+                continue;
+            }
+            if (!CacheUtil.isCacheable(jar.getLocation(), jar.getVersion())) {
+                return false;
+            }
+            final CacheEntry entry = new CacheEntry(jar.getLocation(), jar.getVersion());
+            if (!entry.isCached() || entry.isUpdatePending()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts to check the cached jars for updates.
+     *
+     * @param jars    the jars of an application
+     * @param options the download options of the application
+     * @param policy  the policy which decides which jars are checked
+     * @return a future completed when all jars are checked, with true if all of them were updated
+     */
+    public static CompletableFuture<Boolean> start(final List<JARDesc> jars, final DownloadOptions options, final UpdatePolicy policy) {
+        final List<Resource> resources = new ArrayList<>();
+        for (final JARDesc jar : jars) {
+            if (!jar.isCacheable() || !CacheUtil.isCacheable(jar.getLocation(), jar.getVersion())) {
+                continue;
+            }
+            final CacheEntry entry = new CacheEntry(jar.getLocation(), jar.getVersion());
+            if (!policy.shouldUpdate(entry)) {
+                continue;
+            }
+            launchFiles.putIfAbsent(Resource.keyOf(jar.getLocation()), CacheUtil.getCacheFile(jar.getLocation(), jar.getVersion()));
+            setUpdatePending(entry, true);
+            final Resource resource = Resource.createUnshared(jar.getLocation(), jar.getVersion(), policy);
+            resource.setDownloadOptions(options);
+            resources.add(resource);
+        }
+        if (resources.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        LOG.debug("Checking {} jars for updates in the background", resources.size());
+        final long started = System.currentTimeMillis();
+        final CompletableFuture<?>[] completions = new CompletableFuture<?>[resources.size()];
+        for (int i = 0; i < completions.length; i++) {
+            final Resource resource = resources.get(i);
+            completions[i] = resource.getCompletion();
+            resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(PRECONNECT, PREDOWNLOAD, PROCESSING));
+            DownloadScheduler.getInstance().schedule(resource, new ResourceDownloader(resource));
+        }
+        return CompletableFuture.allOf(completions).thenApply(ignored -> {
+            final List<CacheEntry> checked = new ArrayList<>();
+            for (final Resource resource : resources) {
+                // an updated jar has a new entry, the old one is removed at cleanup
+                final CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+                // a resource which could not be reached is taken from the cache without being checked
+                if (resource.isSet(ERROR) || entry.getLastUpdated() < started) {
+                    LOG.info("Update check of {} failed, the jars are checked again on the next launch", resource.getLocation());
+                    return false;
+                }
+                checked.add(entry);
+            }
+            for (final CacheEntry entry : checked) {
+                setUpdatePending(entry, false);
+            }
+            LOG.debug("Checked {} jars for updates in the background", resources.size());
+            return true;
+        });
+    }
+
+    /**
+     * Returns the file a jar was cached in when its check started. The launch keeps using it while
+     * the check stores an update in a new cache file.
+     *
+     * @param location the location of a jar
+     * @return the cached file or null if the jar is not being checked
+     */
+    static File getLaunchFile(final URL location) {
+        final File file = launchFiles.get(Resource.keyOf(location));
+        return file != null && file.isFile() ? file : null;
+    }
+
+    /**
+     * Lets the launch use the updated jars, after their check completed before the jars were used.
+     *
+     * @param jars the jars of an application
+     */
+    public static void release(final List<JARDesc> jars) {
+        for (final JARDesc jar : jars) {
+            launchFiles.remove(Resource.keyOf(jar.getLocation()));
+        }
+    }
+
+    private static void setUpdatePending(final CacheEntry entry, final boolean pending) {
+        entry.lock();
+        try {
+            entry.setUpdatePending(pending);
+            entry.store();
+        } catch (RuntimeException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        } finally {
+            entry.unlock();
+        }
+    }
+}
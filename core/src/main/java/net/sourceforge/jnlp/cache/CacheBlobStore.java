@@ -0,0 +1,250 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Content addressed store of the cached files.
+ * <p>
+ * Every completely downloaded file of the cache is also linked into the blob directory of the cache
+ * under its SHA-256 digest. A file with the same content as an existing blob is replaced by a hard
+ * link to the blob, so identical jars of different urls, or of an entry which was downloaded again,
+ * occupy the disk only once. The entries keep their usual layout, readers of cache files are not
+ * affected.
+ * </p>
+ * <p>
+ * The digest of each entry is recorded in its info file. {@link CacheUtil#cleanCache()} collects the
+ * digests of the remaining entries and removes all blobs which are no longer referenced.
+ * </p>
+ * <p>
+ * On file systems without hard links the digests are recorded, but nothing is deduplicated.
+ * </p>
+ */
+public class CacheBlobStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheBlobStore.class);
+
+    static final String BLOB_DIR = "blobs";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String LINK_SUFFIX = ".link";
+
+    private final File dir;
+
+    CacheBlobStore(final File cacheDir) {
+        this.dir = new File(cacheDir, BLOB_DIR);
+    }
+
+    /**
+     * @return the blob store of the current cache directory
+     */
+    static CacheBlobStore getInstance() {
+        return new CacheBlobStore(CacheLRUWrapper.getInstance().getCacheDir().getFile());
+    }
+
+    File getBlob(final String digest) {
+        return new File(dir, digest);
+    }
+
+    /**
+     * @param digest hex encoded SHA-256 digest
+     * @return true if a blob with this digest is stored
+     */
+    boolean contains(final String digest) {
+        return digest != null && getBlob(digest).isFile();
+    }
+
+    /**
+     * Adds a completely written cache file to the store. If a blob with the same content exists,
+     * the file is replaced by a link to it.
+     *
+     * @param file the cache file
+     * @return the hex encoded SHA-256 digest of the file
+     * @throws IOException if the file could not be read
+     */
+    String adopt(final File file) throws IOException {
+        final String digest = digest(file);
+        final File blob = getBlob(digest);
+        try {
+            if (blob.isFile() && blob.length() == file.length()) {
+                if (!Files.isSameFile(blob.toPath(), file.toPath())) {
+                    replaceWithLink(file, blob);
+                    LOG.debug("Deduplicated {} with blob {}", file, digest);
+                }
+            } else {
+                Files.createDirectories(dir.toPath());
+                Files.deleteIfExists(blob.toPath());
+                Files.createLink(blob.toPath(), file.toPath());
+            }
+        } catch (final IOException | UnsupportedOperationException ex) {
+            LOG.debug("Could not link {} as blob {}: {}", file, digest, ex.toString());
+        }
+        return digest;
+    }
+
+    /**
+     * Uses a stored blob as content of a cache file, instead of downloading the content again.
+     *
+     * @param digest the hex encoded SHA-256 digest of the content
+     * @param file   the cache file
+     * @return true if the cache file has the content of the blob now
+     */
+    boolean linkTo(final String digest, final File file) {
+        if (!contains(digest)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            replaceWithLink(file, getBlob(digest));
+            LOG.debug("Used blob {} as content of {}", digest, file);
+            return true;
+        } catch (final IOException | UnsupportedOperationException ex) {
+            LOG.debug("Could not link blob {} to {}: {}", digest, file, ex.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the blobs which are not referenced by any cache entry.
+     *
+     * @param referenced digests of all cache entries
+     * @return the number of removed blobs
+     */
+    int removeUnreferenced(final Set<String> referenced) {
+        final File[] blobs = dir.listFiles();
+        if (blobs == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (final File blob : blobs) {
+            if (!referenced.contains(blob.getName())) {
+                try {
+                    Files.deleteIfExists(blob.toPath());
+                    removed++;
+                } catch (final IOException ex) {
+                    LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+                }
+            }
+        }
+        if (removed > 0) {
+            LOG.debug("Removed {} unreferenced blobs", removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes a cache file before it is written again, so a blob linked to it keeps its content.
+     *
+     * @param file the cache file about to be written
+     */
+    static void detach(final File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (final IOException ex) {
+            // it will be overwritten in place
+            LOG.debug("Could not remove {} before writing it: {}", file, ex.toString());
+        }
+    }
+
+    private static void replaceWithLink(final File file, final File blob) throws IOException {
+        // the file must never be missing for a concurrent reader
+        final Path link = file.toPath().resolveSibling(file.getName() + LINK_SUFFIX);
+        Files.deleteIfExists(link);
+        Files.createLink(link, blob.toPath());
+        try {
+            Files.move(link, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException ex) {
+            Files.deleteIfExists(link);
+            throw ex;
+        }
+    }
+
+    /**
+     * @param file file to hash
+     * @return the hex encoded SHA-256 digest of the file content
+     * @throws IOException if the file could not be read
+     */
+    public static String digest(final File file) throws IOException {
+        final MessageDigest md = newMessageDigest();
+        final byte[] buffer = new byte[64 * 1024];
+        try (final InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Reads the SHA-256 digest a server published for a response, from a {@code Repr-Digest}
+     * ({@code sha-256=:<base64>:}) or {@code Digest} ({@code SHA-256=<base64>}) header.
+     *
+     * @param reprDigest value of the Repr-Digest header or null
+     * @param digest     value of the Digest header or null
+     * @return the hex encoded digest or null if none was published
+     */
+    static String parsePublishedDigest(final String reprDigest, final String digest) {
+        final String fromRepr = findDigest(reprDigest, true);
+        return fromRepr != null ? fromRepr : findDigest(digest, false);
+    }
+
+    private static String findDigest(final String header, final boolean structured) {
+        if (header == null) {
+            return null;
+        }
+        for (final String part : header.split(",")) {
+            final int eq = part.indexOf('=');
+            if (eq < 0 || !part.substring(0, eq).trim().equalsIgnoreCase(DIGEST_ALGORITHM)) {
+                continue;
+            }
+            String value = part.substring(eq + 1).trim();
+            if (structured) {
+                if (value.length() < 2 || !value.startsWith(":") || !value.endsWith(":")) {
+                    continue;
+                }
+                value = value.substring(1, value.length() - 1);
+            }
+            try {
+                final byte[] bytes = Base64.getDecoder().decode(value);
+                if (bytes.length == newMessageDigest().getDigestLength()) {
+                    return toHex(bytes);
+                }
+            } catch (final IllegalArgumentException ex) {
+                LOG.debug("Ignoring malformed digest {}", part);
+            }
+        }
+        return null;
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException ex) {
+            // every java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            hex.append(String.format(Locale.ENGLISH, "%02x", b));
+        }
+        return hex.toString();
+    }
+}
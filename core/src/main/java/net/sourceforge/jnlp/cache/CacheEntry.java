@@ -37,10 +37,17 @@ public class CacheEntry {
 
     private final static Logger LOG = LoggerFactory.getLogger(CacheEntry.class);
 
-    private static final String KEY_CONTENT_LENGTH = "content-length";
+    static final String KEY_CONTENT_LENGTH = "content-length";
     private static final String KEY_LAST_MODIFIED = "last-modified";
     private static final String KEY_LAST_UPDATED = "last-updated";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_PARTIAL_LENGTH = "partial-length";
+    private static final String KEY_PARTIAL_VALIDATOR = "partial-validator";
     public static final String KEY_JNLP_PATH = "jnlp-path";
+    public static final String KEY_DIGEST = "sha-256";
+    private static final String KEY_PACKAGES = "packages";
+    private static final String KEY_SIGNATURES = "signatures";
+    private static final String KEY_UPDATE_PENDING = "update-pending";
 
     /** the remote resource location */
     private final URL location;
@@ -48,6 +55,9 @@ public class CacheEntry {
     /** the requested version */
     private final Version version;
 
+    /** the cached file, or null for the most recent one */
+    private final File cacheFile;
+
     /** info about the cached file */
     private final PropertiesFile properties;
 
@@ -59,10 +69,23 @@ public class CacheEntry {
      * @param version the version of the resource
      */
     public CacheEntry(URL location, Version version) {
+        this(location, version, null);
+    }
+
+    /**
+     * Create a CacheEntry for a given cached file of the resource, which
+     * may be older than the most recent one.
+     *
+     * @param location the remote resource location
+     * @param version the version of the resource
+     * @param cacheFile the cached file, or null for the most recent one
+     */
+    CacheEntry(URL location, Version version, File cacheFile) {
         this.location = location;
         this.version = version;
-        
-        File infoFile = CacheUtil.getCacheFile(location, version);
+        this.cacheFile = cacheFile;
+
+        File infoFile = cacheFile != null ? cacheFile : CacheUtil.getCacheFile(location, version);
         infoFile = new File(infoFile.getPath() + CacheDirectory.INFO_SUFFIX); // replace with something that can't be clobbered
 
         properties = new PropertiesFile(infoFile, R("CAutoGen"));
@@ -114,6 +137,131 @@ public class CacheEntry {
         setLongKey(KEY_LAST_MODIFIED, modifyTime);
     }
 
+    /**
+     * Returns the entity tag the server sent for the cached content.
+     * @return the ETag header value or null if the server did not send one
+     */
+    public String getETag() {
+        return properties.getProperty(KEY_ETAG);
+    }
+
+    /**
+     * Sets the entity tag the server sent for the cached content.
+     * @param eTag the ETag header value, null removes a stored one
+     */
+    public void setETag(String eTag) {
+        if (eTag == null) {
+            properties.load();
+            properties.remove(KEY_ETAG);
+        } else {
+            properties.setProperty(KEY_ETAG, eTag);
+        }
+    }
+
+    /**
+     * Returns the digest of the cached content, which is also the name of its blob.
+     * @return the hex encoded SHA-256 digest or null if it is not known
+     * @see CacheBlobStore
+     */
+    public String getDigest() {
+        return properties.getProperty(KEY_DIGEST);
+    }
+
+    /**
+     * Sets the digest of the cached content.
+     * @param digest the hex encoded SHA-256 digest
+     */
+    public void setDigest(String digest) {
+        properties.setProperty(KEY_DIGEST, digest);
+    }
+
+    /**
+     * @return the stored package index of the cached jar, or null if it is not known
+     * @see JarPackageIndex
+     */
+    public String getPackages() {
+        return properties.getProperty(KEY_PACKAGES);
+    }
+
+    /**
+     * Sets the package index of the cached jar.
+     * @param packages the package index as created by {@link JarPackageIndex#toString()}
+     */
+    public void setPackages(String packages) {
+        properties.setProperty(KEY_PACKAGES, packages);
+    }
+
+    /**
+     * @return the stored signatures of the cached jar, or null if they are not known
+     * @see JarSignatures
+     */
+    public String getSignatures() {
+        return properties.getProperty(KEY_SIGNATURES);
+    }
+
+    /**
+     * Sets the signatures of the cached jar.
+     * @param signatures the signatures as created by {@link JarSignatures#toString()}
+     */
+    public void setSignatures(String signatures) {
+        properties.setProperty(KEY_SIGNATURES, signatures);
+    }
+
+    /**
+     * @return true if a check for updates of the cached content was started but did not complete
+     * @see BackgroundUpdater
+     */
+    public boolean isUpdatePending() {
+        return Boolean.parseBoolean(properties.getProperty(KEY_UPDATE_PENDING));
+    }
+
+    /**
+     * Marks the start or the completion of a check for updates of the cached content.
+     * @param pending true when the check starts, false when it completed
+     */
+    public void setUpdatePending(boolean pending) {
+        if (pending) {
+            properties.setProperty(KEY_UPDATE_PENDING, Boolean.TRUE.toString());
+        } else {
+            properties.remove(KEY_UPDATE_PENDING);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of an interrupted download which are kept in the cache file.
+     * @return the number of bytes which can be resumed, 0 if there is no interrupted download
+     */
+    public long getPartialLength() {
+        return getLongKey(KEY_PARTIAL_LENGTH);
+    }
+
+    /**
+     * Returns the validator of the content of an interrupted download.
+     * @return the ETag or Last-Modified value to send as If-Range, or null if there is no interrupted download
+     */
+    public String getPartialValidator() {
+        return properties.getProperty(KEY_PARTIAL_VALIDATOR);
+    }
+
+    /**
+     * Records an interrupted download, so it can be resumed by a range request.
+     * @param length the number of bytes in the cache file
+     * @param validator the ETag or Last-Modified value identifying the downloaded content
+     */
+    public void setPartial(long length, String validator) {
+        setLongKey(KEY_PARTIAL_LENGTH, length);
+        properties.setProperty(KEY_PARTIAL_VALIDATOR, validator);
+    }
+
+    /**
+     * Forgets an interrupted download, e.g. because it was completed.
+     */
+    public void clearPartial() {
+        properties.load();
+        properties.remove(KEY_PARTIAL_LENGTH);
+        properties.remove(KEY_PARTIAL_VALIDATOR);
+    }
+
     private long getLongKey(String key) {
         try {
             return Long.parseLong(properties.getProperty(key));
@@ -182,7 +330,7 @@ public class CacheEntry {
      * Seam for testing
      */
     File getCacheFile() {
-        return CacheUtil.getCacheFile(location, version);
+        return cacheFile != null ? cacheFile : CacheUtil.getCacheFile(location, version);
     }
 
     /**
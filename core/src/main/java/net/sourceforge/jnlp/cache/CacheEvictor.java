@@ -0,0 +1,312 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.util.FileUtils;
+import net.sourceforge.jnlp.util.PropertiesFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the cache below its maximum size, see {@link ConfigurationConstants#KEY_CACHE_MAX_SIZE}.
+ * <p>
+ * The size of the cache is measured once and then maintained as files are downloaded and evicted.
+ * When it exceeds the maximum, a background task removes the least recently used entries in small
+ * batches until the size is below the low-water mark, see
+ * {@link ConfigurationConstants#KEY_CACHE_EVICTION_LOW_WATER}. The cache lock is held for a single
+ * batch only, so launches are not blocked by a long eviction.
+ * </p>
+ * <p>
+ * Entries used since this JVM was started are never evicted. Nothing is evicted while other
+ * instances of javaws are running, they may still use the jars and the folders extracted from them.
+ * </p>
+ */
+public class CacheEvictor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheEvictor.class);
+
+    /** maximal number of entries removed while holding the cache lock */
+    static final int BATCH_SIZE = 32;
+
+    private final CacheLRUWrapper lruHandler;
+    private final Executor executor;
+    private final long sessionStart;
+    private final Predicate<Runnable> onlyInstance;
+
+    private final AtomicLong cacheSize = new AtomicLong();
+    private volatile boolean measured = false;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private final AtomicLong evictionRuns = new AtomicLong();
+    private final AtomicLong evictedEntries = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+    private volatile long lastEvictionMillis = 0;
+
+    private static class CacheEvictorHolder {
+        private static final CacheEvictor INSTANCE = new CacheEvictor(CacheLRUWrapper.getInstance(),
+                CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL, ManagementFactory.getRuntimeMXBean().getStartTime(),
+                JNLPRuntime::runAsOnlyInstance);
+    }
+
+    /**
+     * @param lruHandler   the cache index
+     * @param executor     runs the eviction in the background
+     * @param sessionStart entries used after this time are kept
+     * @param onlyInstance runs a task unless other instances of javaws are running, returns whether it ran
+     */
+    CacheEvictor(final CacheLRUWrapper lruHandler, final Executor executor, final long sessionStart, final Predicate<Runnable> onlyInstance) {
+        this.lruHandler = lruHandler;
+        this.executor = executor;
+        this.sessionStart = sessionStart;
+        this.onlyInstance = onlyInstance;
+    }
+
+    public static CacheEvictor getInstance() {
+        return CacheEvictorHolder.INSTANCE;
+    }
+
+    /**
+     * Accounts a completely downloaded cache file and starts the eviction if the cache got too big.
+     *
+     * @param bytes size of the new file
+     */
+    void added(final long bytes) {
+        cacheSize.addAndGet(bytes);
+        evictIfNeeded();
+    }
+
+    /**
+     * Sets the size of the cache, after it was measured by somebody else.
+     *
+     * @param bytes the size of all cache entries
+     */
+    void resync(final long bytes) {
+        cacheSize.set(bytes);
+        measured = true;
+    }
+
+    /**
+     * Starts the eviction in the background unless the cache is known to be small enough or
+     * an eviction is running already.
+     */
+    void evictIfNeeded() {
+        final long maxSize = getMaxSize();
+        if (maxSize < 0 || (measured && cacheSize.get() <= maxSize)) {
+            return;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    if (!measured) {
+                        measure();
+                    }
+                    evict(maxSize, maxSize / 100 * getLowWaterPercent());
+                } catch (Exception ex) {
+                    LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+                } finally {
+                    scheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Sums up the sizes of all cache entries. Only the index is read under the cache lock.
+     */
+    void measure() {
+        final List<Entry<String, String>> entries;
+        synchronized (lruHandler) {
+            lruHandler.lock();
+            try {
+                lruHandler.load();
+                entries = lruHandler.getLRUSortedEntries();
+            } finally {
+                lruHandler.unlock();
+            }
+        }
+        long size = 0;
+        for (final Entry<String, String> entry : entries) {
+            size += getSize(new File(entry.getValue()));
+        }
+        resync(size);
+        LOG.debug("Cache size is {} bytes in {} entries", size, entries.size());
+    }
+
+    /**
+     * Evicts the least recently used entries if the cache is bigger than the maximum, until it is
+     * not bigger than the low-water mark.
+     *
+     * @param maxSize  maximal size of the cache in bytes
+     * @param lowWater size in bytes to reduce the cache to
+     * @return the number of evicted entries
+     */
+    int evict(final long maxSize, final long lowWater) {
+        if (cacheSize.get() <= maxSize) {
+            return 0;
+        }
+        final long start = System.nanoTime();
+        int evicted = 0;
+        while (cacheSize.get() > lowWater) {
+            final int batch = evictBatch(lowWater);
+            if (batch == 0) {
+                break;
+            }
+            evicted += batch;
+        }
+        lastEvictionMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        evictionRuns.incrementAndGet();
+        LOG.debug("Evicted {} cache entries in {} ms, cache size is {} bytes", evicted, lastEvictionMillis, cacheSize.get());
+        return evicted;
+    }
+
+    private int evictBatch(final long lowWater) {
+        final AtomicInteger evicted = new AtomicInteger();
+        if (!onlyInstance.test(() -> evicted.set(evictEntries(lowWater)))) {
+            LOG.debug("Cache is not evicted while other instances of javaws are running");
+        }
+        return evicted.get();
+    }
+
+    private int evictEntries(final long lowWater) {
+        int evicted = 0;
+        synchronized (lruHandler) {
+            lruHandler.lock();
+            try {
+                lruHandler.load();
+                for (final Entry<String, String> entry : lruHandler.getLeastRecentlyUsedEntries(BATCH_SIZE)) {
+                    if (cacheSize.get() <= lowWater || getLastUsed(entry.getKey()) >= sessionStart) {
+                        // the following entries were used even later
+                        break;
+                    }
+                    final File file = new File(entry.getValue());
+                    final long length = getSize(file);
+                    final File folder = getCacheFolder(file);
+                    try {
+                        if (folder != null) {
+                            FileUtils.recursiveDelete(folder, folder);
+                        }
+                    } catch (IOException ex) {
+                        // probably in use, try again next time
+                        LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+                        continue;
+                    }
+                    lruHandler.removeEntry(entry.getKey());
+                    cacheSize.addAndGet(-length);
+                    evictedBytes.addAndGet(length);
+                    evictedEntries.incrementAndGet();
+                    evicted++;
+                }
+                if (evicted > 0) {
+                    lruHandler.store();
+                }
+            } finally {
+                lruHandler.unlock();
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the numbered folder of the cache containing the file and its info, or null if the file
+     * is not inside of the cache
+     */
+    private File getCacheFolder(final File file) {
+        final String cacheDir = lruHandler.getCacheDir().getFullPath();
+        final String path = file.getPath();
+        if (!path.startsWith(cacheDir + File.separator)) {
+            return null;
+        }
+        final int end = path.indexOf(File.separatorChar, cacheDir.length() + 1);
+        return end < 0 ? null : new File(path.substring(0, end));
+    }
+
+    /**
+     * @return the content length recorded for a cache file, the file may be a link to a blob of the
+     * cache which is not freed with it
+     */
+    private static long getSize(final File file) {
+        final PropertiesFile info = new PropertiesFile(new File(file.getPath() + CacheDirectory.INFO_SUFFIX));
+        try {
+            final long length = Long.parseLong(info.getProperty(CacheEntry.KEY_CONTENT_LENGTH));
+            if (length >= 0) {
+                return length;
+            }
+        } catch (NumberFormatException ex) {
+            // not recorded
+        }
+        return file.length();
+    }
+
+    private static long getLastUsed(final String key) {
+        try {
+            return Long.parseLong(key.substring(0, key.indexOf(',')));
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long getMaxSize() {
+        try {
+            // megabytes, negative values mean unlimited
+            return Long.parseLong(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_CACHE_MAX_SIZE)) << 20;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static long getLowWaterPercent() {
+        try {
+            return Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_CACHE_EVICTION_LOW_WATER));
+        } catch (NumberFormatException ex) {
+            return 90;
+        }
+    }
+
+    /**
+     * @return the size of the cache in bytes, as accounted so far
+     */
+    public long getCacheSize() {
+        return cacheSize.get();
+    }
+
+    /**
+     * @return how often the cache was evicted
+     */
+    public long getEvictionRuns() {
+        return evictionRuns.get();
+    }
+
+    /**
+     * @return the number of all evicted entries
+     */
+    public long getEvictedEntries() {
+        return evictedEntries.get();
+    }
+
+    /**
+     * @return the size in bytes of all evicted files
+     */
+    public long getEvictedBytes() {
+        return evictedBytes.get();
+    }
+
+    /**
+     * @return the duration in ms of the last eviction
+     */
+    public long getLastEvictionMillis() {
+        return lastEvictionMillis;
+    }
+}
@@ -0,0 +1,219 @@
+package net.sourceforge.jnlp.cache;
+
+import java.io.File;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In memory index over the entries of the recently used file.
+ * <p>
+ * The recently used file stays the persistent store which is shared by all javaws processes.
+ * This index is derived from it and only needs to be rebuilt after the file was reloaded from disk.
+ * It allows to look up the most recent entry of a resource without sorting and scanning all entries
+ * and keeps the entries in LRU order for cleaning the cache.
+ * <p>
+ * Keys have the format {@code "<milliseconds>,<cache folder>"} and values are the absolute path
+ * of the cached file. Entries with keys or paths in an unexpected format are counted but not indexed.
+ * <p>
+ * This class is not thread safe. It is guarded by the {@link CacheLRUWrapper} owning it.
+ */
+class CacheIndex {
+
+    private final String cacheDirPath;
+
+    /**
+     * all known entries as stored in the recently used file
+     */
+    private final Map<String, String> entries = new HashMap<>();
+
+    /**
+     * indexed entries ordered from the most recently to the least recently used
+     */
+    private final TreeMap<LruKey, String> lruOrder = new TreeMap<>();
+
+    /**
+     * indexed entries grouped by the path of the resource relative to its cache folder
+     */
+    private final Map<String, TreeSet<LruKey>> byRelativePath = new HashMap<>();
+
+    private long highestFolderId = -1;
+
+    CacheIndex(final String cacheDirPath) {
+        this.cacheDirPath = cacheDirPath;
+    }
+
+    String getCacheDirPath() {
+        return cacheDirPath;
+    }
+
+    /**
+     * Replaces the content of this index.
+     *
+     * @param newEntries the entries of the recently used file
+     */
+    void rebuild(final Iterable<Entry<Object, Object>> newEntries) {
+        clear();
+        for (final Entry<Object, Object> e : newEntries) {
+            add((String) e.getKey(), (String) e.getValue());
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        lruOrder.clear();
+        byRelativePath.clear();
+        highestFolderId = -1;
+    }
+
+    void add(final String key, final String path) {
+        remove(key);
+        entries.put(key, path);
+
+        final LruKey lruKey = LruKey.parse(key);
+        final String relativePath = toRelativePath(path);
+        if (lruKey == null || relativePath == null) {
+            return;
+        }
+        lruOrder.put(lruKey, path);
+        byRelativePath.computeIfAbsent(relativePath, k -> new TreeSet<>()).add(lruKey);
+        highestFolderId = Math.max(highestFolderId, lruKey.folderId);
+    }
+
+    void remove(final String key) {
+        final String path = entries.remove(key);
+        if (path == null) {
+            return;
+        }
+
+        final LruKey lruKey = LruKey.parse(key);
+        final String relativePath = toRelativePath(path);
+        if (lruKey == null || relativePath == null) {
+            return;
+        }
+        lruOrder.remove(lruKey);
+        final TreeSet<LruKey> keys = byRelativePath.get(relativePath);
+        if (keys != null) {
+            keys.remove(lruKey);
+            if (keys.isEmpty()) {
+                byRelativePath.remove(relativePath);
+            }
+        }
+    }
+
+    /**
+     * @param relativePath path of a resource relative to its cache folder,
+     *                     as created by {@link CacheUtil#urlToPath(java.net.URL, String)} with an empty subdir
+     * @return the most recently used entry for the given path or {@code null} if there is none
+     */
+    Entry<String, String> getMostRecentEntry(final String relativePath) {
+        final TreeSet<LruKey> keys = byRelativePath.get(relativePath);
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        final LruKey key = keys.first();
+        return new AbstractMap.SimpleImmutableEntry<>(key.key, lruOrder.get(key));
+    }
+
+    /**
+     * @return the indexed entries ordered from the most recently to the least recently used
+     */
+    List<Entry<String, String>> getLRUSortedEntries() {
+        final List<Entry<String, String>> result = new ArrayList<>(lruOrder.size());
+        for (final Entry<LruKey, String> e : lruOrder.entrySet()) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey().key, e.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @param max maximal number of returned entries
+     * @return the indexed entries ordered from the least recently to the most recently used
+     */
+    List<Entry<String, String>> getLeastRecentlyUsedEntries(final int max) {
+        final List<Entry<String, String>> result = new ArrayList<>(Math.min(max, lruOrder.size()));
+        for (final Entry<LruKey, String> e : lruOrder.descendingMap().entrySet()) {
+            if (result.size() >= max) {
+                break;
+            }
+            result.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey().key, e.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the highest id of a cache folder which is known to this index, or -1 if none is known
+     */
+    long getHighestFolderId() {
+        return highestFolderId;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private String toRelativePath(final String path) {
+        if (path == null || !path.startsWith(cacheDirPath) || path.length() <= cacheDirPath.length() + 1) {
+            return null;
+        }
+        final int index = path.indexOf(File.separatorChar, cacheDirPath.length() + 1);
+        if (index < 0) {
+            return null;
+        }
+        return path.substring(index);
+    }
+
+    /**
+     * Parsed key of the recently used file. Orders from the most to the least recently used.
+     */
+    private static class LruKey implements Comparable<LruKey> {
+
+        private final String key;
+        private final long accessTime;
+        private final long folderId;
+
+        private LruKey(final String key, final long accessTime, final long folderId) {
+            this.key = key;
+            this.accessTime = accessTime;
+            this.folderId = folderId;
+        }
+
+        private static LruKey parse(final String key) {
+            if (key == null) {
+                return null;
+            }
+            final int comma = key.indexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            try {
+                final long accessTime = Long.parseLong(key.substring(0, comma));
+                final long folderId = Long.parseLong(key.substring(comma + 1));
+                return new LruKey(key, accessTime, folderId);
+            } catch (final NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public int compareTo(final LruKey other) {
+            final int byTime = Long.compare(other.accessTime, accessTime);
+            return byTime != 0 ? byTime : key.compareTo(other.key);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof LruKey && key.equals(((LruKey) obj).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append only journal of accesses to cache entries.
+ * <p>
+ * Marking an entry as recently used only changes its key in the recently used file. Instead of
+ * rewriting the whole file on every cache hit, the change is appended to this journal as a single
+ * {@code "<old key> <new key>"} line. The state of the LRU is the content of the recently used file
+ * with all records of the journal applied in order. Storing the recently used file compacts the
+ * journal by truncating it.
+ * <p>
+ * This class is not thread safe. All access must happen while holding the lock of the recently
+ * used file, which also serializes the access between processes.
+ */
+class CacheLRUJournal {
+
+    private final static Logger LOG = LoggerFactory.getLogger(CacheLRUJournal.class);
+
+    static final String JOURNAL_SUFFIX = ".journal";
+
+    private final File file;
+
+    /**
+     * number of bytes of the journal which were already replayed by this instance
+     */
+    private long replayedLength = 0;
+
+    CacheLRUJournal(final File recentlyUsedFile) {
+        this.file = new File(recentlyUsedFile.getPath() + JOURNAL_SUFFIX);
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the size of the journal on disk in bytes
+     */
+    long length() {
+        return file.length();
+    }
+
+    /**
+     * Appends the move of an entry from an old to a new key.
+     *
+     * @param oldKey key which is replaced
+     * @param newKey key which replaces the old one
+     * @return true if the record was written, false otherwise
+     */
+    boolean append(final String oldKey, final String newKey) {
+        final byte[] record = (oldKey + " " + newKey + "\n").getBytes(UTF_8);
+        final boolean upToDate = replayedLength == file.length();
+        try (final FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(record);
+        } catch (final IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            return false;
+        }
+        if (upToDate) {
+            // our own records do not need to be replayed again
+            replayedLength += record.length;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the records which were appended since the last call.
+     *
+     * @param fromStart if true all records are read, not only the new ones
+     * @return the records as pairs of old and new key, in the order they were written
+     */
+    List<String[]> readRecords(final boolean fromStart) {
+        final List<String[]> result = new ArrayList<>();
+        final long length = file.length();
+        if (fromStart || length < replayedLength) {
+            // replay everything, the journal was compacted in the meantime
+            replayedLength = 0;
+        }
+        if (length <= replayedLength) {
+            return result;
+        }
+
+        final byte[] tail;
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(replayedLength);
+            tail = new byte[(int) (length - replayedLength)];
+            raf.readFully(tail);
+        } catch (final IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            return result;
+        }
+
+        // only consume complete lines, a record may be just being written
+        int consumed = 0;
+        for (int i = 0; i < tail.length; i++) {
+            if (tail[i] == '\n') {
+                final String line = new String(tail, consumed, i - consumed, UTF_8);
+                final String[] record = line.split(" ");
+                if (record.length == 2) {
+                    result.add(record);
+                }
+                consumed = i + 1;
+            }
+        }
+        replayedLength += consumed;
+        return result;
+    }
+
+    /**
+     * Removes all records. To be called right after the recently used file was stored.
+     */
+    void truncate() {
+        if (file.exists()) {
+            try (final FileOutputStream out = new FileOutputStream(file, false)) {
+                out.flush();
+            } catch (final IOException ex) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            }
+        }
+        replayedLength = 0;
+    }
+}
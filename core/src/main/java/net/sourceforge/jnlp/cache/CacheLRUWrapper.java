@@ -46,14 +46,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static net.adoptopenjdk.icedteaweb.i18n.Translator.R;
 
@@ -65,6 +62,11 @@ import static net.adoptopenjdk.icedteaweb.i18n.Translator.R;
 public class CacheLRUWrapper {
 
     private final static Logger LOG = LoggerFactory.getLogger(CacheLRUWrapper.class);
+
+    /**
+     * size of the access journal in bytes after which it is merged into the recently used file
+     */
+    private static final long JOURNAL_COMPACTION_THRESHOLD = 64 * 1024;
     
     /*
      * back-end of how LRU is implemented This file is to keep track of the most
@@ -111,6 +113,19 @@ public class CacheLRUWrapper {
 
     
     private PropertiesFile cachedRecentlyUsedPropertiesFile = null ;
+
+    /**
+     * index over the content of the recently used file, null if it has to be rebuilt
+     */
+    private CacheIndex index = null;
+
+    /**
+     * journal of accesses belonging to the current recently used file
+     */
+    private CacheLRUJournal journal = null;
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+
     /**
      * @return the recentlyUsedPropertiesFile
      */
@@ -118,6 +133,8 @@ public class CacheLRUWrapper {
         if (cachedRecentlyUsedPropertiesFile == null) {
             //no properties file yet, create it
             cachedRecentlyUsedPropertiesFile = new PropertiesFile(recentlyUsedPropertiesFile.getFile());
+            journal = new CacheLRUJournal(recentlyUsedPropertiesFile.getFile());
+            index = null;
             return cachedRecentlyUsedPropertiesFile;
         } 
         if (recentlyUsedPropertiesFile.getFile().equals(cachedRecentlyUsedPropertiesFile.getStoreFile())){
@@ -127,14 +144,32 @@ public class CacheLRUWrapper {
             //the InfrastructureFileDescriptor was set to different location, move to it
             if (cachedRecentlyUsedPropertiesFile.tryLock()) {
                 cachedRecentlyUsedPropertiesFile.store();
+                journal.truncate();
                 cachedRecentlyUsedPropertiesFile.unlock();
             }
             cachedRecentlyUsedPropertiesFile = new PropertiesFile(recentlyUsedPropertiesFile.getFile());
+            journal = new CacheLRUJournal(recentlyUsedPropertiesFile.getFile());
+            index = null;
             return cachedRecentlyUsedPropertiesFile;
         }
         
     }
 
+    /**
+     * Returns the index over the recently used file. The index is rebuilt only if the file
+     * was reloaded or its content was changed behind the back of this wrapper.
+     *
+     * @return the up to date index
+     */
+    private CacheIndex getIndex() {
+        final PropertiesFile props = getRecentlyUsedPropertiesFile();
+        if (index == null || index.size() != props.size() || !index.getCacheDirPath().equals(getCacheDir().getFullPath())) {
+            index = new CacheIndex(getCacheDir().getFullPath());
+            index.rebuild(props.entrySet());
+        }
+        return index;
+    }
+
     /**
      * @return the cacheDir
      */
@@ -162,6 +197,10 @@ public class CacheLRUWrapper {
      */
     public synchronized void load() {
         boolean loaded = getRecentlyUsedPropertiesFile().load();
+        if (loaded) {
+            index = null;
+        }
+        replayJournal(loaded);
         /* 
          * clean up possibly corrupted entries
          */
@@ -173,6 +212,31 @@ public class CacheLRUWrapper {
         }
     }
 
+    /**
+     * Applies the accesses recorded in the journal to the loaded entries.
+     *
+     * @param fromStart true if the recently used file was reloaded and the whole journal needs to be replayed,
+     *                  false if only the records appended since the last replay are missing
+     */
+    private void replayJournal(boolean fromStart) {
+        final PropertiesFile props = getRecentlyUsedPropertiesFile();
+        for (String[] record : journal.readRecords(fromStart)) {
+            final String oldKey = record[0];
+            final String newKey = record[1];
+            final String value = props.getProperty(oldKey);
+            if (value == null) {
+                // already applied or removed in the meantime
+                continue;
+            }
+            props.remove(oldKey);
+            props.setProperty(newKey, value);
+            if (index != null) {
+                index.remove(oldKey);
+                index.add(newKey, value);
+            }
+        }
+    }
+
     /**
      * check content of recentlyUsedPropertiesFile and remove invalid/corrupt entries
      *
@@ -209,6 +273,9 @@ public class CacheLRUWrapper {
                 modified = true;
             }
         }
+        if (modified) {
+            index = null;
+        }
         
         return modified;
     }
@@ -220,6 +287,8 @@ public class CacheLRUWrapper {
     public synchronized boolean store() {
         if (getRecentlyUsedPropertiesFile().isHeldByCurrentThread()) {
             getRecentlyUsedPropertiesFile().store();
+            // the stored file contains all journaled accesses now
+            journal.truncate();
             return true;
         }
         return false;
@@ -238,6 +307,9 @@ public class CacheLRUWrapper {
             return false;
         }
         props.setProperty(key, path);
+        if (index != null) {
+            index.add(key, path);
+        }
         return true;
     }
 
@@ -253,6 +325,9 @@ public class CacheLRUWrapper {
             return false;
         }
         props.remove(key);
+        if (index != null) {
+            index.remove(key);
+        }
         return true;
     }
 
@@ -264,6 +339,9 @@ public class CacheLRUWrapper {
 
     /**
      * This updates the given key to reflect it was recently accessed.
+     * <p>
+     * If the lock is held, the access is persisted immediately by appending it to the journal,
+     * so there is no need to {@link #store()} the whole recently used file afterwards.
      * 
      * @param oldKey Key we wish to update.
      * @return true if we successfully updated value, false otherwise.
@@ -276,38 +354,85 @@ public class CacheLRUWrapper {
         String value = props.getProperty(oldKey);
         String folder = getIdForCacheFolder(value);
 
+        final String newKey = Long.toString(System.currentTimeMillis()) + "," + folder;
         props.remove(oldKey);
-        props.setProperty(Long.toString(System.currentTimeMillis()) + "," + folder, value);
+        props.setProperty(newKey, value);
+        if (index != null) {
+            index.remove(oldKey);
+            index.add(newKey, value);
+        }
+        if (props.isHeldByCurrentThread() && journal.append(oldKey, newKey)) {
+            if (journal.length() > JOURNAL_COMPACTION_THRESHOLD) {
+                scheduleCompaction();
+            }
+        }
         return true;
     }
 
     /**
-     * Return a copy of the keys available.
+     * Merges the journal into the recently used file in the background.
+     */
+    private void scheduleCompaction() {
+        if (!compactionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    synchronized (CacheLRUWrapper.this) {
+                        lock();
+                        try {
+                            load();
+                            if (journal.length() > JOURNAL_COMPACTION_THRESHOLD) {
+                                LOG.debug("Compacting cache access journal {}", journal.getFile());
+                                store();
+                            }
+                        } finally {
+                            unlock();
+                        }
+                    }
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Return a copy of the entries available.
      * 
-     * @return List of Strings sorted by ascending order.
+     * @return List of entries sorted from the most recently to the least recently used.
      */
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    //although Properties are pretending to be <object,Object> they are always <String,String>
-    //bug in jdk?
     public synchronized List<Entry<String, String>> getLRUSortedEntries() {
-        List<Entry<String, String>> entries = new ArrayList<>();
+        return getIndex().getLRUSortedEntries();
+    }
 
-        for (Entry e : getRecentlyUsedPropertiesFile().entrySet()) {
-            entries.add(new AbstractMap.SimpleImmutableEntry(e));
-        }
+    /**
+     * Return a copy of the least recently used entries.
+     *
+     * @param max maximal number of returned entries
+     * @return List of entries sorted from the least recently to the most recently used.
+     */
+    public synchronized List<Entry<String, String>> getLeastRecentlyUsedEntries(int max) {
+        return getIndex().getLeastRecentlyUsedEntries(max);
+    }
 
-        // sort by keys in descending order.
-        Collections.sort(entries, new Comparator<Entry<String, String>>() {
-            @Override
-            public int compare(Entry<String, String> e1, Entry<String, String> e2) {
-                Long t1 = Long.parseLong(e1.getKey().split(",")[0]);
-                Long t2 = Long.parseLong(e2.getKey().split(",")[0]);
+    /**
+     * Looks up the most recently used entry of a cached resource.
+     *
+     * @param relativePath path of the resource relative to its cache folder
+     * @return the entry with the key and the absolute path of the cached file, or {@code null} if not cached
+     */
+    public synchronized Entry<String, String> getMostRecentEntry(String relativePath) {
+        return getIndex().getMostRecentEntry(relativePath);
+    }
 
-                int c = t1.compareTo(t2);
-                return c < 0 ? 1 : (c > 0 ? -1 : 0);
-            }
-        });
-        return entries;
+    /**
+     * @return the highest id of a cache folder referenced by an entry, or -1 if there are no entries
+     */
+    public synchronized long getHighestFolderId() {
+        return getIndex().getHighestFolderId();
     }
 
     /**
@@ -355,5 +480,6 @@ public class CacheLRUWrapper {
 
     void clearLRUSortedEntries() {
         getRecentlyUsedPropertiesFile().clear();
+        index = null;
     }
 }
@@ -130,7 +130,10 @@ public class CacheUtil {
     public static Permission getReadPermission(URL location, Version version) {
         Permission result = null;
         if (CacheUtil.isCacheable(location, version)) {
-            File file = CacheUtil.getCacheFile(location, version);
+            File file = BackgroundUpdater.getLaunchFile(location);
+            if (file == null) {
+                file = CacheUtil.getCacheFile(location, version);
+            }
             result = new FilePermission(file.getPath(), FILE_READ_ACTION);
         } else {
             // this is what URLClassLoader does
@@ -175,6 +178,7 @@ public class CacheUtil {
                 cacheDir.mkdir();
                 lruHandler.clearLRUSortedEntries();
                 lruHandler.store();
+                CacheEvictor.getInstance().resync(0);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             } finally {
@@ -517,8 +521,8 @@ public class CacheUtil {
                 cacheFile = getCacheFileIfExist(urlToPath(source, ""));
                 if (cacheFile == null) { // We did not find a copy of it.
                     cacheFile = makeNewCacheFile(source, version);
-                } else
-                    lruHandler.store();
+                }
+                // on a hit the access was already appended to the journal, no need to store the whole file
             } finally {
                 lruHandler.unlock();
             }
@@ -535,32 +539,15 @@ public class CacheUtil {
     private static File getCacheFileIfExist(File urlPath) {
         CacheLRUWrapper lruHandler = CacheLRUWrapper.getInstance();
         synchronized (lruHandler) {
-            File cacheFile = null;
-            List<Entry<String, String>> entries = lruHandler.getLRUSortedEntries();
-            // Start searching from the most recent to least recent.
-            for (Entry<String, String> e : entries) {
-                final String key = e.getKey();
-                final String path = e.getValue();
-
-                if (pathToURLPath(path).equals(urlPath.getPath())) { // Match found.
-                    cacheFile = new File(path);
-                    lruHandler.updateEntry(key);
-                    break; // Stop searching since we got newest one already.
-                }
+            final Entry<String, String> e = lruHandler.getMostRecentEntry(urlPath.getPath());
+            if (e == null) {
+                return null;
             }
-            return cacheFile;
+            lruHandler.updateEntry(e.getKey());
+            return new File(e.getValue());
         }
     }
 
-    /**
-     * Get the path to file minus the cache directory and indexed folder.
-     */
-    private static String pathToURLPath(String path) {
-        int len = CacheLRUWrapper.getInstance().getCacheDir().getFullPath().length();
-        int index = path.indexOf(File.separatorChar, len + 1);
-        return path.substring(index);
-    }
-
     /**
      * Returns the parent directory of the cached resource.
      *
@@ -599,7 +586,8 @@ public class CacheUtil {
             try {
                 lruHandler.lock();
                 lruHandler.load();
-                for (long i = 0; i < Long.MAX_VALUE; i++) {
+                // folders up to the highest indexed one are most likely taken, do not probe them one by one
+                for (long i = lruHandler.getHighestFolderId() + 1; i < Long.MAX_VALUE; i++) {
                     String path = lruHandler.getCacheDir().getFullPath() + File.separator + i;
                     File cDir = new File(path);
                     if (!cDir.exists()) {
@@ -636,8 +624,25 @@ public class CacheUtil {
      * @throws IOException if IO breaks
      */
     public static OutputStream getOutputStream(URL source, Version version) throws IOException {
+        return getOutputStream(source, version, false);
+    }
+
+    /**
+     * Returns a buffered output stream open for writing to the
+     * cache file.
+     *
+     * @param source  the remote location
+     * @param version the file version to write to
+     * @param append  true to write behind the current content of the cache file
+     * @return the stream to write to resource
+     * @throws IOException if IO breaks
+     */
+    public static OutputStream getOutputStream(URL source, Version version, boolean append) throws IOException {
         File localFile = getCacheFile(source, version);
-        OutputStream out = new FileOutputStream(localFile);
+        if (!append) {
+            CacheBlobStore.detach(localFile);
+        }
+        OutputStream out = new FileOutputStream(localFile, append);
 
         return new BufferedOutputStream(out);
     }
@@ -824,6 +829,7 @@ public class CacheUtil {
             // First we want to figure out which stuff we need to delete.
             HashSet<String> keep = new HashSet<>();
             HashSet<String> remove = new HashSet<>();
+            HashSet<String> digests = new HashSet<>();
             synchronized (lruHandler) {
                 try {
                     lruHandler.lock();
@@ -880,6 +886,10 @@ public class CacheUtil {
 
                         curSize += len;
                         keep.add(file.getPath().substring(rStr.length()));
+                        String digest = pf.getProperty(CacheEntry.KEY_DIGEST);
+                        if (digest != null) {
+                            digests.add(digest);
+                        }
 
                         for (File f : file.getParentFile().listFiles()) {
                             if (!(f.equals(file) || f.equals(pf.getStoreFile()))) {
@@ -893,6 +903,9 @@ public class CacheUtil {
                         }
                     }
                     lruHandler.store();
+                    CacheEvictor.getInstance().resync(curSize);
+                    new CacheBlobStore(lruHandler.getCacheDir().getFile()).removeUnreferenced(digests);
+                    NativeLibraryStorage.removeUnreferenced(lruHandler.getCacheDir().getFile(), digests);
                 } finally {
                     lruHandler.unlock();
                 }
@@ -38,7 +38,10 @@ package net.sourceforge.jnlp.cache;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class CachedDaemonThreadPoolProvider {
@@ -83,4 +86,18 @@ public class CachedDaemonThreadPoolProvider {
 
     public static final ExecutorService DAEMON_THREAD_POOL = Executors.newCachedThreadPool(new DaemonThreadFactory());
 
+    /**
+     * Creates a pool running at most the given number of tasks at the same
+     * time, for cpu bound work. Its daemon threads stop when they are idle.
+     *
+     * @param threads maximal number of threads
+     * @return the new pool
+     */
+    public static ExecutorService newFixedDaemonThreadPool(final int threads) {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
 }
@@ -0,0 +1,286 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Schedules the downloads started by {@link ResourceTracker}.
+ * <p>
+ * Only a limited number of downloads runs at the same time, in total and per host. All other downloads
+ * wait in a queue which is ordered by the {@link Resource.Priority} of the resources and then by the
+ * time they were scheduled. The limits are read from {@link ConfigurationConstants#KEY_DOWNLOAD_MAX_CONNECTIONS}
+ * and {@link ConfigurationConstants#KEY_DOWNLOAD_MAX_CONNECTIONS_PER_HOST}.
+ * </p>
+ * <p>
+ * The downloads itself still run on {@link CachedDaemonThreadPoolProvider#DAEMON_THREAD_POOL}.
+ * </p>
+ */
+public class DownloadScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadScheduler.class);
+
+    static final int DEFAULT_MAX_CONNECTIONS = 16;
+    static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 6;
+
+    private final int maxConnections;
+    private final int maxConnectionsPerHost;
+    private final Executor executor;
+
+    /** guards all fields below */
+    private final Object lock = new Object();
+
+    private final TreeSet<Task> queue = new TreeSet<>();
+    private final Map<Resource, Task> queuedByResource = new IdentityHashMap<>();
+    private final Map<String, Integer> activeByHost = new HashMap<>();
+    private int active = 0;
+    private long sequence = 0;
+
+    private long startedDownloads = 0;
+    private long totalWaitTime = 0;
+    private long maxWaitTime = 0;
+
+    private static class DownloadSchedulerHolder {
+        private static final DownloadScheduler INSTANCE = new DownloadScheduler(
+                readLimit(ConfigurationConstants.KEY_DOWNLOAD_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS),
+                readLimit(ConfigurationConstants.KEY_DOWNLOAD_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_CONNECTIONS_PER_HOST),
+                CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL);
+    }
+
+    /**
+     * @return the scheduler shared by all resource trackers
+     */
+    public static DownloadScheduler getInstance() {
+        return DownloadSchedulerHolder.INSTANCE;
+    }
+
+    /**
+     * @param maxConnections        maximum number of concurrent downloads, values below 1 mean unlimited
+     * @param maxConnectionsPerHost maximum number of concurrent downloads from one host, values below 1 mean unlimited
+     * @param executor              executor running the downloads
+     */
+    DownloadScheduler(final int maxConnections, final int maxConnectionsPerHost, final Executor executor) {
+        this.maxConnections = maxConnections < 1 ? Integer.MAX_VALUE : maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost < 1 ? Integer.MAX_VALUE : maxConnectionsPerHost;
+        this.executor = executor;
+    }
+
+    private static int readLimit(final String key, final int defaultValue) {
+        try {
+            return Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(key));
+        } catch (final Exception ex) {
+            LOG.debug("Using default {} for {}", defaultValue, key);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Enqueues the download of a resource. It will be started as soon as the limits allow it.
+     *
+     * @param resource the resource to download
+     * @param download the work to run
+     */
+    public void schedule(final Resource resource, final Runnable download) {
+        synchronized (lock) {
+            final Task task = new Task(resource, download, resource.getPriority(), sequence++, System.currentTimeMillis());
+            queue.add(task);
+            queuedByResource.put(resource, task);
+        }
+        dispatch();
+    }
+
+    /**
+     * Moves a queued resource ahead according to its current {@link Resource#getPriority() priority}.
+     * Does nothing if the resource is not queued.
+     *
+     * @param resource the resource whose priority was raised
+     */
+    public void reprioritize(final Resource resource) {
+        synchronized (lock) {
+            final Task task = queuedByResource.get(resource);
+            if (task == null || task.priority == resource.getPriority()) {
+                return;
+            }
+            queue.remove(task);
+            final Task raised = new Task(task.resource, task.download, resource.getPriority(), task.sequence, task.queuedAt);
+            queue.add(raised);
+            queuedByResource.put(resource, raised);
+        }
+        dispatch();
+    }
+
+    /**
+     * Starts as many queued downloads as the limits allow.
+     */
+    private void dispatch() {
+        while (true) {
+            final Task next;
+            synchronized (lock) {
+                next = pollStartable();
+                if (next == null) {
+                    return;
+                }
+                final long waited = System.currentTimeMillis() - next.queuedAt;
+                startedDownloads++;
+                totalWaitTime += waited;
+                maxWaitTime = Math.max(maxWaitTime, waited);
+                LOG.debug("Starting download of {} with priority {} after {} ms in queue ({} active, {} queued)",
+                        next.resource.getLocation(), next.priority, waited, active, queue.size());
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        next.download.run();
+                    } finally {
+                        finished(next);
+                    }
+                });
+            } catch (final RuntimeException ex) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+                finished(next);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Removes the first task which may start now and accounts it as active. Must be called holding the lock.
+     */
+    private Task pollStartable() {
+        if (active >= maxConnections) {
+            return null;
+        }
+        for (final Iterator<Task> it = queue.iterator(); it.hasNext(); ) {
+            final Task task = it.next();
+            final int activeOnHost = activeByHost.getOrDefault(task.host, 0);
+            if (activeOnHost < maxConnectionsPerHost) {
+                it.remove();
+                queuedByResource.remove(task.resource);
+                activeByHost.put(task.host, activeOnHost + 1);
+                active++;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void finished(final Task task) {
+        synchronized (lock) {
+            active--;
+            final int activeOnHost = activeByHost.getOrDefault(task.host, 1) - 1;
+            if (activeOnHost > 0) {
+                activeByHost.put(task.host, activeOnHost);
+            } else {
+                activeByHost.remove(task.host);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * @return number of downloads waiting to be started
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * @return number of downloads currently running
+     */
+    public int getActiveDownloads() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    /**
+     * @param url any url of the host
+     * @return number of downloads currently running from the host of the given url
+     */
+    public int getActiveDownloads(final URL url) {
+        synchronized (lock) {
+            return activeByHost.getOrDefault(hostKey(url), 0);
+        }
+    }
+
+    /**
+     * @return number of downloads started so far
+     */
+    public long getStartedDownloads() {
+        synchronized (lock) {
+            return startedDownloads;
+        }
+    }
+
+    /**
+     * @return average time in ms the started downloads spent in the queue
+     */
+    public long getAverageWaitTime() {
+        synchronized (lock) {
+            return startedDownloads == 0 ? 0 : totalWaitTime / startedDownloads;
+        }
+    }
+
+    /**
+     * @return longest time in ms a started download spent in the queue
+     */
+    public long getMaxWaitTime() {
+        synchronized (lock) {
+            return maxWaitTime;
+        }
+    }
+
+    private static String hostKey(final URL url) {
+        if (url == null || url.getHost() == null) {
+            return "";
+        }
+        return url.getProtocol() + "://" + url.getHost().toLowerCase(Locale.ENGLISH) + ":" + url.getPort();
+    }
+
+    private static class Task implements Comparable<Task> {
+        private final Resource resource;
+        private final Runnable download;
+        private final Resource.Priority priority;
+        private final long sequence;
+        private final String host;
+        private final long queuedAt;
+
+        private Task(final Resource resource, final Runnable download, final Resource.Priority priority, final long sequence, final long queuedAt) {
+            this.resource = resource;
+            this.queuedAt = queuedAt;
+            this.download = download;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.host = hostKey(resource.getLocation());
+        }
+
+        @Override
+        public int compareTo(final Task other) {
+            final int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Task && ((Task) obj).sequence == sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sequence);
+        }
+    }
+}
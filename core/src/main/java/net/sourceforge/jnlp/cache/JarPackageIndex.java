@@ -0,0 +1,154 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.jnlp.version.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The packages of a cached jar, that is the directories containing its entries.
+ * <p>
+ * The index is computed when a jar is cached and stored in the info file of its {@link CacheEntry}.
+ * It tells a class loader which lazy jar can contain a class or resource, without activating the
+ * jar. The index is only as current as the cached jar, so a jar which is to be checked for updates
+ * is checked first.
+ * </p>
+ */
+public class JarPackageIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JarPackageIndex.class);
+
+    /** marks a jar which can contain anything, because it contains nested jars */
+    private static final String ANY = "*";
+    private static final String SEPARATOR = ",";
+    private static final String NESTED_JAR_SUFFIX = ".jar";
+
+    private final Set<String> packages;
+
+    private JarPackageIndex(final Set<String> packages) {
+        this.packages = packages;
+    }
+
+    /**
+     * @param entryName name of a jar entry, for example {@code com/example/Main.class}
+     * @return true if the jar may contain the entry
+     */
+    public boolean mayContain(final String entryName) {
+        return packages.contains(ANY) || packages.contains(packageOf(entryName));
+    }
+
+    /**
+     * @return the stored form of the index, see {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        return String.join(SEPARATOR, packages);
+    }
+
+    static JarPackageIndex parse(final String stored) {
+        final Set<String> packages = new TreeSet<>();
+        Collections.addAll(packages, stored.split(SEPARATOR, -1));
+        return new JarPackageIndex(packages);
+    }
+
+    /**
+     * @param jar a jar file
+     * @return the index of the jar
+     * @throws IOException if the jar could not be read
+     */
+    static JarPackageIndex read(final File jar) throws IOException {
+        final Set<String> packages = new TreeSet<>();
+        try (final JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                if (entry.getName().endsWith(NESTED_JAR_SUFFIX)) {
+                    // nested jars are extracted and added to the class path on activation
+                    packages.add(ANY);
+                }
+                packages.add(packageOf(entry.getName()));
+            }
+        }
+        return new JarPackageIndex(packages);
+    }
+
+    /**
+     * @param entryName name of a jar entry
+     * @return the directory of the entry, empty for entries in the root of the jar
+     */
+    static String packageOf(final String entryName) {
+        final int slash = entryName.lastIndexOf('/');
+        return slash < 0 ? "" : entryName.substring(0, slash);
+    }
+
+    /**
+     * Computes and stores the index of a jar which was just downloaded into the cache.
+     *
+     * @param location the location of the jar
+     * @param version  the version of the jar
+     * @param jar      the cached jar
+     */
+    static void store(final URL location, final Version version, final File jar) {
+        final CacheEntry entry = new CacheEntry(location, version);
+        entry.lock();
+        try {
+            entry.setPackages(read(jar).toString());
+            entry.store();
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    /**
+     * Returns the index of a cached jar, of the file the launch started with while the jar is
+     * checked for updates. The index of a jar cached by an older version is computed and stored now.
+     *
+     * @param location the location of the jar
+     * @param version  the version of the jar
+     * @return the index or null if the jar is not cached
+     */
+    public static JarPackageIndex get(final URL location, final Version version) {
+        if (!CacheUtil.isCacheable(location, version)) {
+            return null;
+        }
+        final CacheEntry entry = new CacheEntry(location, version, BackgroundUpdater.getLaunchFile(location));
+        final String stored = entry.getPackages();
+        if (stored != null) {
+            return parse(stored);
+        }
+        final File jar = entry.getCacheFile();
+        if (!jar.isFile() || entry.getPartialLength() > 0) {
+            return null;
+        }
+        try {
+            final JarPackageIndex index = read(jar);
+            entry.lock();
+            try {
+                entry.setPackages(index.toString());
+                entry.store();
+            } finally {
+                entry.unlock();
+            }
+            return index;
+        } catch (IOException ex) {
+            // not a jar or not complete
+            LOG.debug("Could not index {}: {}", jar, ex.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.jnlp.version.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.security.cert.CertPath;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The outcome of reading the signatures of a cached jar: the number of entries which have to be
+ * signed and how many of them each signer signed.
+ * <p>
+ * Reading the signatures means checking the digest of every entry, which is expensive for big jars.
+ * The outcome is therefore stored in the info file of the {@link CacheEntry}, together with the
+ * size, modification time and SHA-256 digest of the jar it was read from. It is used again only if
+ * the jar still has the same digest, so a modified jar is always read again. Whether the signers
+ * are valid and trusted is not stored, as that changes with time and with the key stores.
+ * </p>
+ */
+public class JarSignatures {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JarSignatures.class);
+
+    private static final String SEPARATOR = ";";
+    private static final String COUNT_SEPARATOR = ":";
+    private static final String FINGERPRINT_SEPARATOR = ",";
+    private static final String CERT_PATH_ENCODING = "PkiPath";
+
+    private final int signableEntries;
+    private final Map<CertPath, Integer> signers;
+
+    /**
+     * @param signableEntries number of entries of the jar which have to be signed
+     * @param signers         the signers of the jar and the number of entries each of them signed
+     */
+    public JarSignatures(final int signableEntries, final Map<CertPath, Integer> signers) {
+        this.signableEntries = signableEntries;
+        this.signers = Collections.unmodifiableMap(new LinkedHashMap<>(signers));
+    }
+
+    /**
+     * @return number of entries of the jar which have to be signed
+     */
+    public int getSignableEntries() {
+        return signableEntries;
+    }
+
+    /**
+     * @return the signers of the jar and the number of entries each of them signed
+     */
+    public Map<CertPath, Integer> getSigners() {
+        return signers;
+    }
+
+    /**
+     * @return the stored form of the signatures, see {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder().append(signableEntries);
+        for (final Map.Entry<CertPath, Integer> signer : signers.entrySet()) {
+            try {
+                sb.append(SEPARATOR).append(signer.getValue()).append(COUNT_SEPARATOR)
+                        .append(Base64.getEncoder().encodeToString(signer.getKey().getEncoded(CERT_PATH_ENCODING)));
+            } catch (CertificateException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return sb.toString();
+    }
+
+    static JarSignatures parse(final String stored) throws CertificateException {
+        final String[] parts = stored.split(SEPARATOR);
+        final CertificateFactory factory = CertificateFactory.getInstance("X.509");
+        final Map<CertPath, Integer> signers = new LinkedHashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            final int colon = parts[i].indexOf(COUNT_SEPARATOR);
+            final byte[] encoded = Base64.getDecoder().decode(parts[i].substring(colon + 1));
+            signers.put(factory.generateCertPath(new ByteArrayInputStream(encoded), CERT_PATH_ENCODING),
+                    Integer.valueOf(parts[i].substring(0, colon)));
+        }
+        return new JarSignatures(Integer.parseInt(parts[0]), signers);
+    }
+
+    /**
+     * Identifies the content of a cached jar. The jar is read completely to compute its digest,
+     * which is still much cheaper than reading its signatures.
+     *
+     * @param location the location of the jar
+     * @param version  the version of the jar
+     * @param jar      the jar file about to be verified
+     * @return the fingerprint of the jar, or null if the jar is not a cached file
+     */
+    public static String fingerprint(final URL location, final Version version, final File jar) {
+        if (!CacheUtil.isCacheable(location, version) || !jar.equals(CacheUtil.getCacheFile(location, version))) {
+            return null;
+        }
+        try {
+            final long length = jar.length();
+            final long lastModified = jar.lastModified();
+            return length + FINGERPRINT_SEPARATOR + lastModified + FINGERPRINT_SEPARATOR + CacheBlobStore.digest(jar);
+        } catch (IOException ex) {
+            LOG.debug("Could not compute the digest of {}: {}", jar, ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param location    the location of the jar
+     * @param version     the version of the jar
+     * @param fingerprint the fingerprint of the jar, see {@link #fingerprint(URL, Version, File)}
+     * @return the stored signatures or null if none are stored for a jar with this fingerprint
+     */
+    public static JarSignatures get(final URL location, final Version version, final String fingerprint) {
+        if (fingerprint == null) {
+            return null;
+        }
+        final String stored = new CacheEntry(location, version).getSignatures();
+        if (stored == null || !stored.startsWith(fingerprint + SEPARATOR)) {
+            return null;
+        }
+        try {
+            return parse(stored.substring(fingerprint.length() + SEPARATOR.length()));
+        } catch (CertificateException | RuntimeException ex) {
+            LOG.debug("Ignoring malformed signatures of {}: {}", location, ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the signatures read from a cached jar. Nothing is stored if the jar was modified since
+     * its fingerprint was computed, as the signatures may have been read from the modified jar.
+     *
+     * @param location    the location of the jar
+     * @param version     the version of the jar
+     * @param jar         the jar file
+     * @param fingerprint the fingerprint computed before the signatures were read
+     * @param signatures  the signatures read from the jar
+     */
+    public static void store(final URL location, final Version version, final File jar, final String fingerprint, final JarSignatures signatures) {
+        if (fingerprint == null
+                || !fingerprint.startsWith(jar.length() + FINGERPRINT_SEPARATOR + jar.lastModified() + FINGERPRINT_SEPARATOR)) {
+            return;
+        }
+        final CacheEntry entry = new CacheEntry(location, version);
+        entry.lock();
+        try {
+            entry.setSignatures(fingerprint + SEPARATOR + signatures);
+            entry.store();
+        } catch (RuntimeException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        } finally {
+            entry.unlock();
+        }
+    }
+}
@@ -9,9 +9,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -19,7 +22,8 @@ import static net.adoptopenjdk.icedteaweb.JvmPropertyConstants.JAVA_IO_TMPDIR;
 
 /**
  * Handles loading and access of native code loading through a JNLP application or applet.
- * Stores native code in a temporary folder.
+ * Stores native code in the native library store of the cache, or in a temporary folder if
+ * the store cannot be used.
  * Be sure to call cleanupTemporaryFolder when finished with the object.
  */
 public class NativeLibraryStorage {
@@ -83,12 +87,21 @@ public class NativeLibraryStorage {
         return null;
     }
 
+    /** directory of the cache storing the native files of the jars */
+    static final String NATIVES_DIR = "natives";
+
     public static final String[] NATIVE_LIBRARY_EXTENSIONS = { ".so", ".dylib", ".jnilib", ".framework", ".dll" };
 
     /**
      * Search for and enable any native code contained in a JAR by copying the
      * native files into the filesystem. Called in the security context of the
      * classloader.
+     * <p>
+     * The native files of a jar are copied only once into the native library
+     * store of the cache, a directory named after the SHA-256 digest of the
+     * jar. Later launches use that directory again, without reading the jar,
+     * as long as the jar has the same digest.
+     * </p>
      * @param jarLocation location of jar to be searched
      */
     public void addSearchJar(URL jarLocation) {
@@ -98,44 +111,137 @@ public class NativeLibraryStorage {
             return;
 
         try {
-            try (JarFile jarFile = new JarFile(localFile, false)) {
-                Enumeration<JarEntry> entries = jarFile.entries();
-                
-                while (entries.hasMoreElements()) {
-                    JarEntry e = entries.nextElement();
-                    
-                    if (e.isDirectory()) {
-                        continue;
-                    }
-                    
-                    String name = new File(e.getName()).getName();
-                    boolean isLibrary = false;
-                    
-                    for (String suffix : NATIVE_LIBRARY_EXTENSIONS) {
-                        if (name.endsWith(suffix)) {
-                            isLibrary = true;
-                            break;
-                        }
-                    }
-                    if (!isLibrary) {
-                        continue;
+            File directory = getStoredLibraries(localFile);
+            String[] libraries = directory.list();
+            if (libraries != null && libraries.length > 0 && !nativeSearchDirectories.contains(directory)) {
+                addSearchDirectory(directory);
+            }
+            return;
+        } catch (IOException ex) {
+            LOG.debug("Could not use the native library store for {}: {}", localFile, ex.toString());
+        }
+
+        try {
+            extractLibraries(localFile, null);
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        }
+    }
+
+    /**
+     * Returns the directory of the store containing the native files of a
+     * jar, copying them there first if they are not stored yet. The directory
+     * is empty if the jar contains no native files.
+     */
+    private File getStoredLibraries(File localFile) throws IOException {
+        final File store = getStore(CacheLRUWrapper.getInstance().getCacheDir().getFile());
+        final File directory = new File(store, CacheBlobStore.digest(localFile));
+        if (directory.isDirectory()) {
+            LOG.debug("Using native libraries of {} stored in {}", localFile, directory);
+            return directory;
+        }
+
+        // copied aside first, so the directory is never seen incomplete
+        Files.createDirectories(store.toPath());
+        final File temporary = Files.createTempDirectory(store.toPath(), directory.getName() + ".").toFile();
+        try {
+            extractLibraries(localFile, temporary);
+            try {
+                Files.move(temporary.toPath(), directory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                if (!directory.isDirectory()) {
+                    throw ex;
+                }
+                // stored by another launch meanwhile
+            }
+        } finally {
+            if (temporary.exists()) {
+                FileUtils.recursiveDelete(temporary, store);
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Copies the native files of a jar.
+     *
+     * @param localFile the jar
+     * @param directory the directory to copy to, or null to copy to the
+     * temporary directory of this storage
+     */
+    private void extractLibraries(File localFile, File directory) throws IOException {
+        try (JarFile jarFile = new JarFile(localFile, false)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+
+            while (entries.hasMoreElements()) {
+                JarEntry e = entries.nextElement();
+
+                if (e.isDirectory()) {
+                    continue;
+                }
+
+                String name = new File(e.getName()).getName();
+                boolean isLibrary = false;
+
+                for (String suffix : NATIVE_LIBRARY_EXTENSIONS) {
+                    if (name.endsWith(suffix)) {
+                        isLibrary = true;
+                        break;
                     }
-                    
+                }
+                if (!isLibrary) {
+                    continue;
+                }
+
+                if (directory == null) {
                     ensureNativeStoreDirectory();
-                    
-                    File outFile = new File(jarEntryDirectory, name);
-                    if (!outFile.isFile()) {
-                        FileUtils.createRestrictedFile(outFile, true);
-                    }
-                    CacheUtil.streamCopy(jarFile.getInputStream(e),
-                            new FileOutputStream(outFile));
+                    directory = jarEntryDirectory;
+                }
+
+                File outFile = new File(directory, name);
+                if (!outFile.isFile()) {
+                    FileUtils.createRestrictedFile(outFile, true);
                 }
+                CacheUtil.streamCopy(jarFile.getInputStream(e),
+                        new FileOutputStream(outFile));
             }
-        } catch (IOException ex) {
-            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
         }
     }
 
+    static File getStore(File cacheDir) {
+        return new File(cacheDir, NATIVES_DIR);
+    }
+
+    /**
+     * Removes the stored native files of jars which are no longer cached.
+     *
+     * @param cacheDir the cache directory
+     * @param referenced digests of all cache entries
+     * @return the number of removed directories
+     */
+    static int removeUnreferenced(File cacheDir, Set<String> referenced) {
+        final File[] directories = getStore(cacheDir).listFiles();
+        if (directories == null) {
+            return 0;
+        }
+        int removed = 0;
+        for (final File directory : directories) {
+            if (!referenced.contains(directory.getName())) {
+                try {
+                    FileUtils.recursiveDelete(directory, directory.getParentFile());
+                    removed++;
+                } catch (IOException ex) {
+                    // probably in use by a running application
+                    LOG.debug("Could not remove native libraries {}: {}", directory, ex.toString());
+                }
+            }
+        }
+        if (removed > 0) {
+            LOG.debug("Removed the native libraries of {} jars", removed);
+        }
+        return removed;
+    }
+
     void ensureNativeStoreDirectory() {
         if (jarEntryDirectory == null) {
             jarEntryDirectory = createNativeStoreDirectory();
@@ -23,11 +23,16 @@ import net.sourceforge.jnlp.util.UrlUtils;
 import net.sourceforge.jnlp.util.WeakList;
 
 import java.io.File;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -65,8 +70,20 @@ public class Resource {
         PROCESSING // in queue or being worked on
     }
 
-    /** list of weak references of resources currently in use */
-    private static final WeakList<Resource> resources = new WeakList<>();
+    /**
+     * Order in which queued downloads are started, see {@link DownloadScheduler}.
+     */
+    public enum Priority {
+        HIGH, // main and eager jars
+        NORMAL, // resources somebody is waiting for
+        LOW // prefetched lazy jars, icons, ...
+    }
+
+    /**
+     * resources currently in use, by their key. An entry is dropped when its resource is collected,
+     * as only the resource references its key.
+     */
+    private static final Map<String, WeakReference<Resource>> resources = new WeakHashMap<>();
 
     /** weak list of trackers monitoring this resource */
     private final WeakList<ResourceTracker> trackers = new WeakList<>();
@@ -74,6 +91,9 @@ public class Resource {
     /** the remote location of the resource */
     private final URL location;
 
+    /** the normalized location, identifies the resource */
+    private final String key;
+
     /** the location to use when downloading */
     private URL downloadLocation;
 
@@ -94,6 +114,9 @@ public class Resource {
 
     /** the status of the resource */
     private final EnumSet<Status> status = EnumSet.noneOf(Status.class);
+
+    /** completed when the resource is downloaded or has an error, guarded by status */
+    private CompletableFuture<Resource> completion = new CompletableFuture<>();
     
     /** Update policy for this resource */
     private final UpdatePolicy updatePolicy;
@@ -101,11 +124,15 @@ public class Resource {
     /** Download options for this resource */
     private DownloadOptions downloadOptions;
 
+    /** priority of the download, raised by the trackers adding or waiting for this resource */
+    private volatile Priority priority = Priority.LOW;
+
     /**
      * Create a resource.
      */
     private Resource(URL location, Version requestVersion, UpdatePolicy updatePolicy) {
         this.location = location;
+        this.key = keyOf(location);
         this.downloadLocation = location;
         this.requestVersion = requestVersion;
         this.updatePolicy = updatePolicy;
@@ -121,26 +148,74 @@ public class Resource {
      */
     public static Resource getResource(URL location, Version requestVersion, UpdatePolicy updatePolicy) {
         //TODO -rename to create resource?
+        final String key = keyOf(location);
         synchronized (resources) {
-            Resource resource = new Resource(location, requestVersion, updatePolicy);
-
             //FIXME - url ignores port during its comparison
             //this may affect test-suites
-            int index = resources.indexOf(resource);
-            if (index >= 0) { // return existing object
-                Resource result = resources.get(index);
+            final WeakReference<Resource> existing = resources.get(key);
+            if (existing != null) { // return existing object
+                Resource result = existing.get();
                 if (result != null) {
                     return result;
                 }
             }
 
-            resources.add(resource);
-            resources.trimToSize();
+            Resource resource = new Resource(location, requestVersion, updatePolicy);
+            resources.put(resource.key, new WeakReference<>(resource));
 
             return resource;
         }
     }
 
+    /**
+     * Creates a resource which is not shared with the trackers, so it can be downloaded without
+     * changing the status of the resource the application uses.
+     * @param location final location of resource
+     * @param requestVersion final version of resource
+     * @param updatePolicy final policy for updating
+     * @return new resource, which is not added in resources list
+     */
+    static Resource createUnshared(URL location, Version requestVersion, UpdatePolicy updatePolicy) {
+        return new Resource(location, requestVersion, updatePolicy);
+    }
+
+    /**
+     * Seam for testing
+     */
+    static boolean isShared(URL location) {
+        synchronized (resources) {
+            return resources.containsKey(keyOf(location));
+        }
+    }
+
+    /**
+     * Computes the key identifying the resource of a location. Two locations have the same key if
+     * they are equal according to {@link UrlUtils#urlEquals(URL, URL)} after normalization, so the
+     * expensive normalization is done once per lookup instead of once per compared resource.
+     *
+     * @param location location of a resource
+     * @return the key of the resource
+     */
+    static String keyOf(URL location) {
+        final URL normalized = UrlUtils.normalizeUrlQuietly(location);
+        // the port is ignored, like by UrlUtils.urlEquals
+        return lowerCase(normalized.getProtocol()) + "://" + lowerCase(normalized.getHost())
+                + normalized.getPath()
+                + (normalized.getQuery() == null ? "" : "?" + normalized.getQuery())
+                + (normalized.getRef() == null ? "" : "#" + normalized.getRef());
+    }
+
+    private static String lowerCase(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return the key identifying this resource, see {@link #keyOf(URL)}
+     */
+    String getKey() {
+        return key;
+    }
+
     /**
      * Returns the remote location of the resource.
      * @return the same location as the one with which this resource was created
@@ -328,6 +403,7 @@ public class Resource {
             if (add != null) {
                 status.addAll(add);
             }
+            updateCompletion();
         }
     }
 
@@ -338,6 +414,7 @@ public class Resource {
     public void setStatusFlag(Status flag) {
         synchronized (status) {
             status.add(flag);
+            updateCompletion();
         }
     }
 
@@ -348,6 +425,7 @@ public class Resource {
     public void setStatusFlags(Collection<Status> flags) {
         synchronized (status) {
             status.addAll(flags);
+            updateCompletion();
         }
     }
 
@@ -358,6 +436,7 @@ public class Resource {
     public void unsetStatusFlag(Collection<Status> flags) {
         synchronized (status) {
             status.removeAll(flags);
+            updateCompletion();
         }
     }
 
@@ -367,6 +446,32 @@ public class Resource {
     public void resetStatus() {
         synchronized (status) {
             status.clear();
+            updateCompletion();
+        }
+    }
+
+    /**
+     * Returns a future completed as soon as this resource is downloaded or has an error. If the
+     * resource is reset afterwards to be downloaded again, a new future is returned from then on.
+     *
+     * @return the completion of the current download of this resource
+     */
+    public CompletableFuture<Resource> getCompletion() {
+        synchronized (status) {
+            return completion;
+        }
+    }
+
+    /**
+     * Completes the waiters once the resource is done, or renews the future when the resource
+     * is not done anymore. Must be called with the status lock held.
+     */
+    private void updateCompletion() {
+        final boolean done = status.contains(Status.DOWNLOADED) || status.contains(Status.ERROR);
+        if (done) {
+            completion.complete(this);
+        } else if (completion.isDone()) {
+            completion = new CompletableFuture<>();
         }
     }
 
@@ -425,6 +530,30 @@ public class Resource {
         }
     }
 
+    /**
+     * @return the priority of downloading this resource
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of downloading this resource. A priority is never lowered,
+     * because the resource is shared and another tracker may need it urgently.
+     *
+     * @param newPriority the requested priority
+     * @return true if the priority was raised
+     */
+    public boolean raisePriority(Priority newPriority) {
+        synchronized (status) {
+            if (newPriority.compareTo(priority) < 0) {
+                priority = newPriority;
+                return true;
+            }
+            return false;
+        }
+    }
+
     public void setDownloadOptions(DownloadOptions downloadOptions) {
         this.downloadOptions = downloadOptions;
     }
@@ -439,11 +568,8 @@ public class Resource {
 
     @Override
     public int hashCode() {
-        // FIXME: should probably have a better hashcode than this, but considering
-        // #equals(Object) was already defined first (without also overriding hashcode!),
-        // this is just being implemented in line with that so we don't break HashMaps,
-        // HashSets, etc
-        return location.hashCode();
+        // URL#hashCode resolves the host name, the key does not
+        return key.hashCode();
     }
 
     @Override
@@ -454,7 +580,7 @@ public class Resource {
             // time spent in synchronized addResource determining if
             // Resource is already in a tracker, and better for offline
             // mode on some OS.
-            return UrlUtils.urlEquals(location, ((Resource) other).location);
+            return key.equals(((Resource) other).key);
         }
         return false;
     }
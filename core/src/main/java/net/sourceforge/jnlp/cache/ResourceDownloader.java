@@ -9,11 +9,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
 import java.util.zip.GZIPInputStream;
@@ -27,8 +33,10 @@ import net.adoptopenjdk.icedteaweb.http.HttpMethod;
 import net.adoptopenjdk.icedteaweb.http.HttpUtils;
 import net.adoptopenjdk.icedteaweb.jnlp.version.Version;
 import net.sourceforge.jnlp.DownloadOptions;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
 import net.sourceforge.jnlp.runtime.Boot;
 import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import net.sourceforge.jnlp.runtime.LaunchTimeline;
 import net.sourceforge.jnlp.util.UrlUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,15 +55,28 @@ public class ResourceDownloader implements Runnable {
 
     private static final String ACCEPT_ENCODING = "Accept-Encoding";
     private static final String PACK_200_OR_GZIP = "pack200-gzip, gzip";
+    private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String ETAG = "ETag";
+    private static final String RANGE = "Range";
+    private static final String IF_RANGE = "If-Range";
+    private static final String CONTENT_RANGE = "Content-Range";
+    private static final String REPR_DIGEST = "Repr-Digest";
+    private static final String DIGEST = "Digest";
+    private static final String JAR_SUFFIX = ".jar";
+
+    /** number of http requests sent to servers so far */
+    private static final AtomicLong requestCount = new AtomicLong();
+
+    /** number of conditional requests answered with 304 (not modified) so far */
+    private static final AtomicLong notModifiedCount = new AtomicLong();
 
     private static final HttpMethod[] validRequestMethods = {HttpMethod.HEAD, HttpMethod.GET};
 
     private final Resource resource;
-    private final Object lock;
 
-    public ResourceDownloader(Resource resource, Object lock) {
+    public ResourceDownloader(Resource resource) {
         this.resource = resource;
-        this.lock = lock;
     }
 
     /**
@@ -69,6 +90,7 @@ public class ResourceDownloader implements Runnable {
      */
     static UrlRequestResult getUrlResponseCodeWithRedirectionResult(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
 
+        requestCount.incrementAndGet();
         try (final CloseableConnection connection = ConnectionFactory.openConnection(url, requestMethod, requestProperties)) {
 
             final int responseCode = connection.getResponseCode();
@@ -97,22 +119,40 @@ public class ResourceDownloader implements Runnable {
             final long lastModified = connection.getLastModified();
             final long length = connection.getContentLength();
 
-            return new UrlRequestResult(responseCode, redirectUrl, lastModified, length);
+            return new UrlRequestResult(responseCode, redirectUrl, lastModified, length, getPublishedDigest(connection));
         }
 
     }
 
+    /**
+     * @return number of requests sent to servers so far, each one is a round trip
+     */
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return number of conditional requests which were answered with 304 (not modified) so far
+     */
+    public static long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
     @Override
     public void run() {
         if (resource.isSet(PRECONNECT) && !resource.hasFlags(EnumSet.of(ERROR, CONNECTING, CONNECTED))) {
             resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(CONNECTING));
             resource.fireDownloadEvent(); // fire CONNECTING
-            initializeResource();
+            try (final LaunchTimeline.Phase phase = LaunchTimeline.start("download.connect", resource.getLocation())) {
+                initializeResource();
+            }
         }
         if (resource.isSet(PREDOWNLOAD) && !resource.hasFlags(EnumSet.of(ERROR, DOWNLOADING, DOWNLOADED))) {
             resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(DOWNLOADING));
             resource.fireDownloadEvent(); // fire CONNECTING
-            downloadResource();
+            try (final LaunchTimeline.Phase phase = LaunchTimeline.start("download.transfer", resource.getLocation())) {
+                downloadResource();
+            }
         }
     }
 
@@ -126,6 +166,10 @@ public class ResourceDownloader implements Runnable {
 
     private void initializeOnlineResource() {
         try {
+            if (isConditionalGetEnabled() && resource.isSet(PREDOWNLOAD) && conditionalDownload()) {
+                LOG.debug("{} requests sent so far, {} answered with not modified", requestCount.get(), notModifiedCount.get());
+                return;
+            }
             final UrlRequestResult finalLocation = findBestUrl(resource);
             if (finalLocation != null) {
                 initializeFromURL(finalLocation);
@@ -135,9 +179,6 @@ public class ResourceDownloader implements Runnable {
         } catch (Exception e) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
             resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(ERROR));
-            synchronized (lock) {
-                lock.notifyAll(); // wake up wait's to check for completion
-            }
             resource.fireDownloadEvent(); // fire ERROR
         }
     }
@@ -151,7 +192,7 @@ public class ResourceDownloader implements Runnable {
             File localFile = CacheUtil.getCacheFile(resource.getLocation(), resource.getDownloadVersion());
             Long size = location.length;
             if (size == null) {
-                size = connection.getContentLength();
+                size = getContentLength(connection);
             }
             Long lm = location.lastModified;
             if (lm == null) {
@@ -170,6 +211,8 @@ public class ResourceDownloader implements Runnable {
                     entry = newEntry;
                 }
             }
+            // the content may be known by the digest the server published
+            final boolean fromBlob = !current && CacheBlobStore.getInstance().linkTo(location.digest, localFile);
 
             synchronized (resource) {
                 resource.setLocalFile(localFile);
@@ -178,52 +221,235 @@ public class ResourceDownloader implements Runnable {
                 resource.changeStatus(EnumSet.of(PRECONNECT, CONNECTING), EnumSet.of(CONNECTED, PREDOWNLOAD));
 
                 // check if up-to-date; if so set as downloaded
-                if (current) {
+                if (current || fromBlob) {
                     resource.changeStatus(EnumSet.of(PREDOWNLOAD, DOWNLOADING), EnumSet.of(DOWNLOADED));
                 }
             }
 
             // update cache entry
             if (!current) {
-                entry.setRemoteContentLength(size);
+                entry.setRemoteContentLength(fromBlob ? localFile.length() : size);
                 entry.setLastModified(lm);
             }
+            if (fromBlob) {
+                LOG.debug("Download of {} skipped, its content is stored as blob {}", resource, location.digest);
+                entry.setDigest(location.digest);
+                CacheEvictor.getInstance().added(localFile.length());
+            }
             entry.setLastUpdated(System.currentTimeMillis());
-            try {
-                //do not die here no matter of cost. Just metadata
-                //is the path from user best to store? He can run some jnlp from temp which then be stored
-                //on contrary, this downloads the jnlp, we actually do not have jnlp parsed during first interaction
-                //in addition, downloaded name can be really nasty (some generated has from dynamic servlet.jnlp)
-                //another issue is forking. If this (eg local) jnlp starts its second instance, the url *can* be different
-                //in contrary, usually si no. as fork is reusing all args, and only adding xmx/xms and xnofork.
-                String jnlpPath = Boot.getOptionParser().getMainArg(); //get jnlp from args passed 
+            storeJnlpPath(entry);
+            entry.store();
+            resource.fireDownloadEvent(); // fire CONNECTED
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    private static void storeJnlpPath(final CacheEntry entry) {
+        try {
+            //do not die here no matter of cost. Just metadata
+            //is the path from user best to store? He can run some jnlp from temp which then be stored
+            //on contrary, this downloads the jnlp, we actually do not have jnlp parsed during first interaction
+            //in addition, downloaded name can be really nasty (some generated has from dynamic servlet.jnlp)
+            //another issue is forking. If this (eg local) jnlp starts its second instance, the url *can* be different
+            //in contrary, usually si no. as fork is reusing all args, and only adding xmx/xms and xnofork.
+            String jnlpPath = Boot.getOptionParser().getMainArg(); //get jnlp from args passed 
+            if (jnlpPath == null || jnlpPath.equals("")) {
+                jnlpPath = Boot.getOptionParser().getParam(CommandLineOptions.JNLP);
                 if (jnlpPath == null || jnlpPath.equals("")) {
-                    jnlpPath = Boot.getOptionParser().getParam(CommandLineOptions.JNLP);
+                    jnlpPath = Boot.getOptionParser().getParam(CommandLineOptions.HTML);
                     if (jnlpPath == null || jnlpPath.equals("")) {
-                        jnlpPath = Boot.getOptionParser().getParam(CommandLineOptions.HTML);
-                        if (jnlpPath == null || jnlpPath.equals("")) {
-                            LOG.info("Not-setting jnlp-path for missing main/jnlp/html argument");
-                        } else {
-                            entry.setJnlpPath(jnlpPath);
-                        }
+                        LOG.info("Not-setting jnlp-path for missing main/jnlp/html argument");
                     } else {
                         entry.setJnlpPath(jnlpPath);
                     }
                 } else {
                     entry.setJnlpPath(jnlpPath);
                 }
-            } catch (Exception ex) {
-                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            } else {
+                entry.setJnlpPath(jnlpPath);
+            }
+        } catch (Exception ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        }
+    }
+
+    private static boolean isConditionalGetEnabled() {
+        return Boolean.valueOf(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_HTTP_CONDITIONAL_GET));
+    }
+
+    /**
+     * Connects to and downloads the resource with a single conditional GET request per candidate url.
+     * The last modified date and ETag of the cached copy are sent along. A 304 response marks the cached
+     * copy as current, any other successful response is streamed into the cache right away.
+     *
+     * @return true if the resource was handled, false if the candidates need to be probed by
+     * {@link #findBestUrl(Resource)} because a server answered with a redirect or 511
+     * @throws IOException if writing into the cache failed
+     */
+    private boolean conditionalDownload() throws IOException {
+        DownloadOptions options = resource.getDownloadOptions();
+        if (options == null) {
+            options = new DownloadOptions(false, false);
+        }
+        final List<URL> urls = new ResourceUrlCreator(resource, options).getUrls();
+
+        final Map<String, String> requestProperties = new HashMap<>();
+        requestProperties.put(ACCEPT_ENCODING, PACK_200_OR_GZIP);
+        final boolean validating = addValidators(requestProperties);
+
+        for (final URL url : urls) {
+            CloseableConnection connection = null;
+            final int responseCode;
+            try {
+                requestCount.incrementAndGet();
+                connection = ConnectionFactory.openConnection(url, HttpMethod.GET, withRange(requestProperties, url));
+                responseCode = connection.getResponseCode();
+            } catch (IOException e) {
+                if (connection != null) {
+                    connection.close();
+                }
+                // continue to next candidate
+                LOG.error("While processing " + url.toString() + " by conditional GET for resource " + resource.toString() + " got " + e + ": ", e);
+                continue;
+            }
+
+            try {
+                final boolean redirected = !url.equals(connection.getURL())
+                        || (responseCode >= 300 && responseCode < 400 && responseCode != HttpURLConnection.HTTP_NOT_MODIFIED);
+                if (redirected || responseCode == 511) {
+                    LOG.debug("Conditional GET of {} for {} returned {}, probing the candidates instead", url, resource, responseCode);
+                    HttpUtils.consumeAndCloseConnectionSilently(connection);
+                    return false;
+                }
+                if (validating && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    notModifiedCount.incrementAndGet();
+                    LOG.debug("{} is current, validated by a single conditional GET of {}", resource, url);
+                    HttpUtils.consumeAndCloseConnectionSilently(connection);
+                    initializeNotModified(url, connection.getHeaderField(ETAG));
+                    return true;
+                }
+                if (responseCode < 200 || responseCode >= 300) {
+                    LOG.debug("For {} the server returned {} code for conditional GET of {}", resource, responseCode, url);
+                    HttpUtils.consumeAndCloseConnectionSilently(connection);
+                    continue;
+                }
+                LOG.debug("{} is fetched by a single GET of {}", resource, url);
+                downloadFromConditionalGet(url, connection);
+                return true;
+            } finally {
+                connection.close();
+            }
+        }
+
+        initializeOfflineResource();
+        return true;
+    }
+
+    /**
+     * Adds If-Modified-Since and If-None-Match for the cached copy of the resource, if there is one.
+     *
+     * @return true if any validator was added
+     */
+    private boolean addValidators(final Map<String, String> requestProperties) {
+        if (resource.getUpdatePolicy() == UpdatePolicy.FORCE) {
+            return false;
+        }
+        final CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+        entry.lock();
+        try {
+            if (!entry.isCached()) {
+                return false;
             }
+            final long lastModified = entry.getLastModified();
+            if (lastModified > 0) {
+                requestProperties.put(IF_MODIFIED_SINCE, formatHttpDate(lastModified));
+            }
+            final String eTag = entry.getETag();
+            if (eTag != null) {
+                requestProperties.put(IF_NONE_MATCH, eTag);
+            }
+            return lastModified > 0 || eTag != null;
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    private void initializeNotModified(final URL location, final String eTag) {
+        final CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+        entry.lock();
+        try {
+            final File localFile = CacheUtil.getCacheFile(resource.getLocation(), resource.getDownloadVersion());
+            synchronized (resource) {
+                resource.setDownloadLocation(location);
+                resource.setLocalFile(localFile);
+                resource.setSize(localFile.length());
+                resource.changeStatus(EnumSet.of(PRECONNECT, CONNECTING, PREDOWNLOAD, DOWNLOADING), EnumSet.of(CONNECTED, DOWNLOADED));
+            }
+            if (eTag != null) {
+                entry.setETag(eTag);
+            }
+            entry.setLastUpdated(System.currentTimeMillis());
             entry.store();
+        } finally {
+            entry.unlock();
+        }
+        resource.fireDownloadEvent(); // fire DOWNLOADED
+    }
 
-            synchronized (lock) {
-                lock.notifyAll(); // wake up wait's to check for completion
+    private void downloadFromConditionalGet(final URL location, final CloseableConnection connection) throws IOException {
+        final boolean fromBlob;
+        CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+        entry.lock();
+        try {
+            File localFile = CacheUtil.getCacheFile(resource.getLocation(), resource.getDownloadVersion());
+            if (entry.isCached()) {
+                // the cached copy is outdated or an update is forced
+                entry.markForDelete();
+                entry.store();
+                // Old entry will still exist. (but removed at cleanup)
+                localFile = CacheUtil.makeNewCacheFile(resource.getLocation(), resource.getDownloadVersion());
+                CacheEntry newEntry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+                newEntry.lock();
+                entry.unlock();
+                entry = newEntry;
             }
-            resource.fireDownloadEvent(); // fire CONNECTED
+
+            final long size = getContentLength(connection);
+            synchronized (resource) {
+                resource.setDownloadLocation(location);
+                resource.setLocalFile(localFile);
+                resource.setSize(size);
+                resource.changeStatus(EnumSet.of(PRECONNECT, CONNECTING, PREDOWNLOAD), EnumSet.of(CONNECTED, DOWNLOADING));
+            }
+
+            entry.setRemoteContentLength(size);
+            entry.setLastModified(connection.getLastModified());
+            entry.setETag(connection.getHeaderField(ETAG));
+            entry.setLastUpdated(System.currentTimeMillis());
+            storeJnlpPath(entry);
+            // the content may be known by the digest the server published
+            final String digest = getPublishedDigest(connection);
+            fromBlob = CacheBlobStore.getInstance().linkTo(digest, localFile);
+            if (fromBlob) {
+                LOG.debug("Download of {} skipped, its content is stored as blob {}", resource, digest);
+                entry.setRemoteContentLength(localFile.length());
+                entry.setDigest(digest);
+                CacheEvictor.getInstance().added(localFile.length());
+            }
+            entry.store();
         } finally {
             entry.unlock();
         }
+        resource.fireDownloadEvent(); // fire CONNECTED
+
+        if (!fromBlob) {
+            downloadContent(connection, location, resource.getLocation());
+            cacheFileCompleted();
+        }
+
+        resource.changeStatus(EnumSet.of(DOWNLOADING), EnumSet.of(DOWNLOADED));
+        resource.fireDownloadEvent(); // fire DOWNLOADED
     }
 
     private void initializeOfflineResource() {
@@ -245,10 +471,6 @@ public class ResourceDownloader implements Runnable {
                 LOG.warn("You are trying to get resource {} but it is not in cache and could not be downloaded. Attempting to continue, but you may expect failure", resource.getLocation().toExternalForm());
                 resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(ERROR));
             }
-
-            synchronized (lock) {
-                lock.notifyAll(); // wake up wait's to check for completion
-            }
             resource.fireDownloadEvent(); // fire CONNECTED or ERROR
 
         } finally {
@@ -274,6 +496,21 @@ public class ResourceDownloader implements Runnable {
         List<URL> urls = new ResourceUrlCreator(resource, options).getUrls();
         LOG.debug("Finding best URL for: {} : {}", resource.getLocation(), options.toString());
         LOG.debug("All possible urls for {} : {}", resource.toString(), urls);
+
+        if (UrlProber.isEnabled()) {
+            Map<String, String> requestProperties = new HashMap<>();
+            requestProperties.put(ACCEPT_ENCODING, PACK_200_OR_GZIP);
+            try {
+                UrlProber.Result result = UrlProber.create().probe(resource, urls, requestProperties);
+                if (!result.isSequentialProbingRequired()) {
+                    return result.getBest();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            LOG.debug("Falling back to sequential probing for {}", resource.toString());
+        }
         for (final HttpMethod requestMethod : validRequestMethods) {
             for (int i = 0; i < urls.size(); i++) {
                 URL url = urls.get(i);
@@ -331,45 +568,144 @@ public class ResourceDownloader implements Runnable {
 
         try (final CloseableConnection connection = getDownloadConnection(downloadFrom)) {
 
-            String contentEncoding = connection.getContentEncoding();
-
-            LOG.debug("Downloading {} using {} (encoding : {})", downloadTo, downloadFrom, contentEncoding);
-
-            boolean packgz = "pack200-gzip".equals(contentEncoding)
-                    || downloadFrom.getPath().endsWith(".pack.gz");
-            boolean gzip = "gzip".equals(contentEncoding);
-
-            // It's important to check packgz first. If a stream is both
-            // pack200 and gz encoded, then con.getContentEncoding() could
-            // return ".gz", so if we check gzip first, we would end up
-            // treating a pack200 file as a jar file.
-            if (packgz) {
-                downloadPackGzFile(connection, downloadFrom, downloadTo);
-            } else if (gzip) {
-                downloadGZipFile(connection, downloadFrom, downloadTo);
-            } else {
-                downloadFile(connection, downloadTo);
-            }
+            downloadContent(connection, downloadFrom, downloadTo);
+            cacheFileCompleted();
 
             resource.changeStatus(EnumSet.of(DOWNLOADING), EnumSet.of(DOWNLOADED));
-            synchronized (lock) {
-                lock.notifyAll(); // wake up wait's to check for completion
-            }
             resource.fireDownloadEvent(); // fire DOWNLOADED
         } catch (Exception ex) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
             resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(ERROR));
-            synchronized (lock) {
-                lock.notifyAll();
-            }
             resource.fireDownloadEvent(); // fire ERROR
         }
     }
 
+    private void downloadContent(CloseableConnection connection, URL downloadFrom, URL downloadTo) throws IOException {
+        String contentEncoding = connection.getContentEncoding();
+
+        LOG.debug("Downloading {} using {} (encoding : {})", downloadTo, downloadFrom, contentEncoding);
+
+        boolean packgz = "pack200-gzip".equals(contentEncoding)
+                || downloadFrom.getPath().endsWith(".pack.gz");
+        boolean gzip = "gzip".equals(contentEncoding);
+
+        // It's important to check packgz first. If a stream is both
+        // pack200 and gz encoded, then con.getContentEncoding() could
+        // return ".gz", so if we check gzip first, we would end up
+        // treating a pack200 file as a jar file.
+        if (packgz) {
+            downloadPackGzFile(connection, downloadFrom, downloadTo);
+        } else if (gzip) {
+            downloadGZipFile(connection, downloadFrom, downloadTo);
+        } else {
+            downloadFile(connection, downloadTo);
+        }
+    }
+
     private CloseableConnection getDownloadConnection(URL location) throws IOException {
         final Map<String, String> requestProperties = new HashMap<>();
         requestProperties.put(ACCEPT_ENCODING, PACK_200_OR_GZIP);
-        return ConnectionFactory.openConnection(location, HttpMethod.GET, requestProperties);
+        requestCount.incrementAndGet();
+        return ConnectionFactory.openConnection(location, HttpMethod.GET, withRange(requestProperties, location));
+    }
+
+    /**
+     * Asks for the rest of an interrupted download of the content, if there is one. The server sends
+     * the rest only if the content is still the same, see {@link #downloadFile}.
+     *
+     * @param requestProperties the request properties of the download
+     * @param location          the url the content is requested from
+     * @return the request properties, with Range and If-Range if the download can be resumed
+     */
+    private Map<String, String> withRange(final Map<String, String> requestProperties, final URL location) {
+        // compressed content is cached for its own url, the rest for the url of the resource
+        final URL cachedLocation = location.getPath().endsWith(".gz") ? location : resource.getLocation();
+        if (!CacheUtil.isCacheable(cachedLocation, resource.getDownloadVersion())) {
+            return requestProperties;
+        }
+        final CacheEntry entry = new CacheEntry(cachedLocation, resource.getDownloadVersion());
+        final long offset = entry.getPartialLength();
+        final String validator = entry.getPartialValidator();
+        if (offset <= 0 || validator == null || entry.getCacheFile().length() < offset) {
+            return requestProperties;
+        }
+        final Map<String, String> result = new HashMap<>(requestProperties);
+        result.put(RANGE, "bytes=" + offset + "-");
+        result.put(IF_RANGE, validator);
+        return result;
+    }
+
+    /**
+     * @return the length of the complete content, also if the response contains only the rest of it,
+     * or -1 if it is not known
+     */
+    private static long getContentLength(CloseableConnection connection) throws IOException {
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            return connection.getContentLength();
+        }
+        // bytes <first>-<last>/<complete length>
+        final String contentRange = connection.getHeaderField(CONTENT_RANGE);
+        final int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        try {
+            return slash < 0 ? -1 : Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Records the completely downloaded file of the resource in the blob store and in the cache size,
+     * and indexes the packages of a jar.
+     */
+    private void cacheFileCompleted() {
+        storeBlob();
+        final File localFile = resource.getLocalFile();
+        if (localFile != null) {
+            CacheEvictor.getInstance().added(localFile.length());
+            if (localFile.getName().endsWith(JAR_SUFFIX)) {
+                JarPackageIndex.store(resource.getLocation(), resource.getRequestVersion(), localFile);
+            }
+        }
+    }
+
+    /**
+     * Adds the downloaded file of the resource to the blob store and records its digest.
+     */
+    private void storeBlob() {
+        final File localFile = resource.getLocalFile();
+        if (localFile == null || !localFile.isFile()) {
+            return;
+        }
+        final CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getRequestVersion());
+        entry.lock();
+        try {
+            final CacheLRUWrapper lruHandler = CacheLRUWrapper.getInstance();
+            // the blob must be referenced before the cache is cleaned
+            synchronized (lruHandler) {
+                lruHandler.lock();
+                try {
+                    entry.setDigest(new CacheBlobStore(lruHandler.getCacheDir().getFile()).adopt(localFile));
+                    entry.store();
+                } finally {
+                    lruHandler.unlock();
+                }
+            }
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest the server published for the content, or null if
+     * there is none or it does not describe the content as it is stored in the cache
+     */
+    private static String getPublishedDigest(CloseableConnection connection) {
+        if (connection.getContentEncoding() != null || connection.getURL().getPath().endsWith(".gz")) {
+            return null;
+        }
+        return CacheBlobStore.parsePublishedDigest(connection.getHeaderField(REPR_DIGEST), connection.getHeaderField(DIGEST));
     }
 
     private void downloadPackGzFile(CloseableConnection connection, URL downloadFrom, URL downloadTo) throws IOException {
@@ -393,12 +729,18 @@ public class ResourceDownloader implements Runnable {
     private void downloadFile(CloseableConnection connection, URL downloadLocation) throws IOException {
         CacheEntry downloadEntry = new CacheEntry(downloadLocation, resource.getDownloadVersion());
         LOG.debug("Downloading file: {} into: {}", downloadLocation, downloadEntry.getCacheFile().getCanonicalPath());
+        final long contentLength = getContentLength(connection);
         if (!downloadEntry.isCurrent(connection.getLastModified())) {
+            final String validator = getRangeValidator(connection);
             try {
-                writeDownloadToFile(downloadLocation, new BufferedInputStream(connection.getInputStream()));
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                    writeDownloadToFile(downloadLocation, new BufferedInputStream(connection.getInputStream()), false);
+                } else if (!resumeDownload(connection, downloadLocation, downloadEntry)) {
+                    downloadFully(connection.getURL(), downloadLocation);
+                }
             } catch (IOException ex) {
                 String IH = "Invalid Http response";
-                if (ex.getMessage().equals(IH)) {
+                if (IH.equals(ex.getMessage())) {
                     LOG.error("'" + IH + "' message detected. Attempting direct socket", ex);
                     Object[] result = UrlUtils.loadUrlWithInvalidHeaderBytes(connection.getURL());
                     LOG.info("Header of: {} ({})", connection.getURL(), downloadLocation);
@@ -406,8 +748,9 @@ public class ResourceDownloader implements Runnable {
                     byte[] body = (byte[]) result[1];
                     LOG.info(head);
                     LOG.info("Body is: {} bytes long", body.length);
-                    writeDownloadToFile(downloadLocation, new ByteArrayInputStream(body));
+                    writeDownloadToFile(downloadLocation, new ByteArrayInputStream(body), false);
                 } else {
+                    rememberPartialDownload(downloadEntry, validator, contentLength);
                     throw ex;
                 }
             }
@@ -415,7 +758,81 @@ public class ResourceDownloader implements Runnable {
             resource.setTransferred(CacheUtil.getCacheFile(downloadLocation, resource.getDownloadVersion()).length());
         }
 
-        storeEntryFields(downloadEntry, connection.getContentLength(), connection.getLastModified());
+        storeEntryFields(downloadEntry, contentLength, connection.getLastModified());
+    }
+
+    /**
+     * Continues an interrupted download with the rest of the content the server sent for the Range
+     * and If-Range of the download request, see {@link #withRange}.
+     *
+     * @return true if the rest of the content was appended to the cache file, false if the response
+     * does not continue the cached part
+     */
+    private boolean resumeDownload(CloseableConnection connection, URL downloadLocation, CacheEntry entry) throws IOException {
+        final long offset = entry.getPartialLength();
+        final File partialFile = entry.getCacheFile();
+        final String contentRange = connection.getHeaderField(CONTENT_RANGE);
+        if (offset <= 0 || partialFile.length() < offset || contentRange == null || !contentRange.startsWith("bytes " + offset + "-")) {
+            LOG.debug("Partial content {} of {} does not continue the {} cached bytes", contentRange, downloadLocation, offset);
+            HttpUtils.consumeAndCloseConnectionSilently(connection);
+            return false;
+        }
+
+        LOG.info("Resuming download of {} at byte {}", downloadLocation, offset);
+        try (final RandomAccessFile file = new RandomAccessFile(partialFile, "rw")) {
+            file.setLength(offset);
+        }
+        resource.setTransferred(offset);
+        writeDownloadToFile(downloadLocation, new BufferedInputStream(connection.getInputStream()), true);
+        return true;
+    }
+
+    /**
+     * Downloads the complete content, after the server sent a part which could not be used.
+     */
+    private void downloadFully(URL url, URL downloadLocation) throws IOException {
+        final Map<String, String> requestProperties = new HashMap<>();
+        requestProperties.put(ACCEPT_ENCODING, PACK_200_OR_GZIP);
+        requestCount.incrementAndGet();
+        try (final CloseableConnection connection = ConnectionFactory.openConnection(url, HttpMethod.GET, requestProperties)) {
+            writeDownloadToFile(downloadLocation, new BufferedInputStream(connection.getInputStream()), false);
+        }
+    }
+
+    /**
+     * Keeps the bytes of an interrupted download for a later {@link #resumeDownload}.
+     */
+    private void rememberPartialDownload(CacheEntry entry, String validator, long contentLength) {
+        final long length = entry.getCacheFile().length();
+        if (validator == null || contentLength <= 0 || length <= 0 || length >= contentLength) {
+            return;
+        }
+        entry.lock();
+        try {
+            // the expected length marks the cache file as incomplete
+            entry.setRemoteContentLength(contentLength);
+            entry.setPartial(length, validator);
+            entry.store();
+            LOG.info("Kept {} of {} bytes of {} to resume the download later", length, contentLength, entry.getLocation());
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    /**
+     * @return the strong ETag or the Last-Modified date of the content, or null if there is none
+     */
+    private static String getRangeValidator(CloseableConnection connection) {
+        final String eTag = connection.getHeaderField(ETAG);
+        if (eTag != null && !eTag.startsWith("W/")) {
+            return eTag;
+        }
+        final long lastModified = connection.getLastModified();
+        return lastModified > 0 ? formatHttpDate(lastModified) : null;
+    }
+
+    private static String formatHttpDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
     }
 
     private void storeEntryFields(CacheEntry entry, long contentLength, long lastModified) {
@@ -423,6 +840,7 @@ public class ResourceDownloader implements Runnable {
         try {
             entry.setRemoteContentLength(contentLength);
             entry.setLastModified(lastModified);
+            entry.clearPartial();
             entry.store();
         } finally {
             entry.unlock();
@@ -440,11 +858,16 @@ public class ResourceDownloader implements Runnable {
         }
     }
 
-    private void writeDownloadToFile(URL downloadLocation, InputStream in) throws IOException {
+    private void writeDownloadToFile(URL downloadLocation, InputStream in, boolean append) throws IOException {
         byte[] buf = new byte[1024];
         int rlen;
-        try (final OutputStream out = CacheUtil.getOutputStream(downloadLocation, resource.getDownloadVersion())) {
+        try (final OutputStream out = CacheUtil.getOutputStream(downloadLocation, resource.getDownloadVersion(), append)) {
+            boolean first = true;
             while (-1 != (rlen = in.read(buf))) {
+                if (first) {
+                    LaunchTimeline.mark("download.firstByte", resource.getLocation());
+                    first = false;
+                }
                 resource.incrementTransferred(rlen);
                 out.write(buf, 0, rlen);
             }
@@ -462,8 +885,9 @@ public class ResourceDownloader implements Runnable {
                 .getCacheFile(compressedLocation, version)))) {
             InputStream inputStream = new BufferedInputStream(gzInputStream);
 
-            BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(CacheUtil
-                    .getCacheFile(uncompressedLocation, version)));
+            File uncompressedFile = CacheUtil.getCacheFile(uncompressedLocation, version);
+            CacheBlobStore.detach(uncompressedFile);
+            BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(uncompressedFile));
 
             while (-1 != (rlen = inputStream.read(buf))) {
                 outputStream.write(buf, 0, rlen);
@@ -481,8 +905,9 @@ public class ResourceDownloader implements Runnable {
                 .getCacheFile(compressedLocation, version)))) {
             InputStream inputStream = new BufferedInputStream(gzInputStream);
 
-            JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(CacheUtil
-                    .getCacheFile(uncompressedLocation, version)));
+            File uncompressedFile = CacheUtil.getCacheFile(uncompressedLocation, version);
+            CacheBlobStore.detach(uncompressedFile);
+            JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(uncompressedFile));
 
             Pack200.Unpacker unpacker = Pack200.newUnpacker();
             unpacker.unpack(inputStream, outputStream);
@@ -511,15 +936,23 @@ public class ResourceDownloader implements Runnable {
         private final long lastModified;
         private final long length;
 
+        /** hex encoded SHA-256 digest published by the server, may be null */
+        private final String digest;
+
         UrlRequestResult(int responseCode, URL redirectUrl, long lastModified, long length) {
+            this(responseCode, redirectUrl, lastModified, length, null);
+        }
+
+        UrlRequestResult(int responseCode, URL redirectUrl, long lastModified, long length, String digest) {
             this.responseCode = responseCode;
             this.redirectUrl = redirectUrl;
             this.lastModified = lastModified;
             this.length = length;
+            this.digest = digest;
         }
 
         UrlRequestResult withRedirectUrl(URL url) {
-            return new UrlRequestResult(responseCode, url, lastModified, length);
+            return new UrlRequestResult(responseCode, url, lastModified, length, digest);
         }
 
         URL getRedirectURL() {
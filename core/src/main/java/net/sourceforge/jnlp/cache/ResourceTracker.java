@@ -29,7 +29,13 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static net.sourceforge.jnlp.cache.Resource.Status.CONNECTED;
 import static net.sourceforge.jnlp.cache.Resource.Status.CONNECTING;
@@ -90,11 +96,8 @@ public class ResourceTracker {
     // defines
     //    ResourceTracker.Downloader (download threads)
 
-      /** notified on initialization or download of a resource */
-    private static final Object lock = new Object(); // used to lock static structures
-
-    /** the resources known about by this resource tracker */
-    private final List<Resource> resources = new ArrayList<>();
+    /** the resources known about by this resource tracker, by their key */
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
 
     /** download listeners for this tracker */
     private final List<DownloadListener> listeners = new ArrayList<>();
@@ -130,6 +133,22 @@ public class ResourceTracker {
      * @param updatePolicy whether to check for updates if already in cache
      */
     public void addResource(URL location, Version version, DownloadOptions options, UpdatePolicy updatePolicy) {
+        addResource(location, version, options, updatePolicy, Resource.Priority.NORMAL);
+    }
+
+    /**
+     * Add a resource identified by the specified location and
+     * version.  The tracker only downloads one version of a given
+     * resource per instance (ie cannot download both versions 1 and
+     * 2 of a resource in the same tracker).
+     *
+     * @param location the location of the resource
+     * @param version the resource version
+     * @param options options to control download
+     * @param updatePolicy whether to check for updates if already in cache
+     * @param priority priority of the download compared to other downloads
+     */
+    public void addResource(URL location, Version version, DownloadOptions options, UpdatePolicy updatePolicy, Resource.Priority priority) {
         if (location == null)
             throw new IllegalResourceDescriptorException("location==null");
         try {
@@ -138,12 +157,15 @@ public class ResourceTracker {
             LOG.error("Normalization of " + location.toString() + " have failed", ex);
         }
         Resource resource = Resource.getResource(location, version, updatePolicy);
+        if (resource.raisePriority(priority)) {
+            DownloadScheduler.getInstance().reprioritize(resource);
+        }
 
         synchronized (resources) {
-            if (resources.contains(resource))
+            if (resources.containsKey(resource.getKey()))
                 return;
             resource.addTracker(this);
-            resources.add(resource);
+            resources.put(resource.getKey(), resource);
         }
 
         if (options == null) {
@@ -178,7 +200,7 @@ public class ResourceTracker {
             Resource resource = getResource(location);
 
             if (resource != null) {
-                resources.remove(resource);
+                resources.remove(resource.getKey());
                 resource.removeTracker(this);
             }
 
@@ -206,13 +228,20 @@ public class ResourceTracker {
         }
 
         if (updatePolicy != UpdatePolicy.ALWAYS && updatePolicy != UpdatePolicy.FORCE) { // save loading entry props file
-            CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getDownloadVersion());
+            // the launch keeps the files it started with while they are checked for updates
+            File localFile = BackgroundUpdater.getLaunchFile(resource.getLocation());
+            if (localFile == null) {
+                CacheEntry entry = new CacheEntry(resource.getLocation(), resource.getDownloadVersion());
+                if (entry.isCached() && !updatePolicy.shouldUpdate(entry)) {
+                    localFile = CacheUtil.getCacheFile(resource.getLocation(), resource.getDownloadVersion());
+                }
+            }
 
-            if (entry.isCached() && !updatePolicy.shouldUpdate(entry)) {
+            if (localFile != null) {
                 LOG.info("not updating: {}", resource.getLocation());
 
                 synchronized (resource) {
-                    resource.setLocalFile(CacheUtil.getCacheFile(resource.getLocation(), resource.getDownloadVersion()));
+                    resource.setLocalFile(localFile);
                     resource.setSize(resource.getLocalFile().length());
                     resource.setTransferred(resource.getLocalFile().length());
                     resource.changeStatus(EnumSet.noneOf(Resource.Status.class), EnumSet.of(DOWNLOADED, CONNECTED, PROCESSING));
@@ -363,6 +392,21 @@ public class ResourceTracker {
         }
     }
 
+    /**
+     * Starts downloading a resource, ahead of prefetched resources, without
+     * waiting for it.
+     *
+     * @param location the resource location
+     * @return a future completed with the location as soon as the resource
+     * is downloaded or has an error, see {@link #getCacheFile(URL)}
+     * @throws IllegalResourceDescriptorException if the resource is not being tracked
+     */
+    public CompletableFuture<URL> whenDownloaded(final URL location) {
+        final Resource resource = getResource(location);
+        startWaitedFor(resource);
+        return resource.getCompletion().thenApply(r -> location);
+    }
+
     /**
      * Wait for a group of resources to be downloaded and made
      * available locally.
@@ -429,6 +473,20 @@ public class ResourceTracker {
         return resource.isSet(DOWNLOADED) || resource.isSet(ERROR);
     }
 
+    /**
+     * Returns whether a resource was downloaded or checked for updates
+     * in this session, or is cached and current under its update policy.
+     * Unlike {@link #checkResource(URL)} a resource with an error is not.
+     *
+     * @param location the resource location
+     * @return whether the cached resource is up to date
+     * @throws IllegalResourceDescriptorException if the resource is not being tracked
+     */
+    public boolean isUpToDate(URL location) {
+        Resource resource = getResource(location);
+        return resource.isSet(DOWNLOADED) && !resource.isSet(ERROR);
+    }
+
     /**
      * Starts loading the resource if it is not already being
      * downloaded or already cached.  Resources started downloading
@@ -490,14 +548,13 @@ public class ResourceTracker {
     }
 
     /**
-     * Start a new download thread.
-     * <p>
-     * Calls to this method should be synchronized on lock.
-     * </p>
+     * Hands the resource over to the {@link DownloadScheduler} which starts
+     * the download as soon as the connection limits allow it.
+     *
      * @param resource  resource to be download
      */
     protected void startDownloadThread(Resource resource) {
-        CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL.execute(new ResourceDownloader(resource, lock));
+        DownloadScheduler.getInstance().schedule(resource, new ResourceDownloader(resource));
     }
 
     static Resource selectByFilter(Collection<Resource> source, Filter<Resource> filter) {
@@ -557,11 +614,11 @@ public class ResourceTracker {
      * @throws IllegalResourceDescriptorException if the resource is not being tracked
      */
     private Resource getResource(URL location) {
+        final String key = Resource.keyOf(location);
         synchronized (resources) {
-            for (Resource resource : resources) {
-                if (UrlUtils.urlEquals(resource.getLocation(), location))
-                    return resource;
-            }
+            final Resource resource = resources.get(key);
+            if (resource != null)
+                return resource;
         }
 
         throw new IllegalResourceDescriptorException("Location does not specify a resource being tracked.");
@@ -577,44 +634,38 @@ public class ResourceTracker {
      * @throws InterruptedException if another thread interrupted the wait
      */
     private boolean wait(Resource[] resources, long timeout) throws InterruptedException {
-        long startTime = System.currentTimeMillis();
-
-        // start them downloading / connecting in background
+        // start them downloading / connecting in background,
+        // somebody is blocked on them so they go ahead of prefetched resources
         for (Resource resource : resources) {
-            startResource(resource);
+            startWaitedFor(resource);
         }
 
         // wait for completion
-        while (true) {
-            boolean finished = true;
-
-            synchronized (lock) {
-                // check for completion
-                for (Resource resource : resources) {
-                    //NetX Deadlocking may be solved by removing this
-                    //synch block.
-                    synchronized (resource) {
-                        if (!(resource.isSet(DOWNLOADED) || resource.isSet(ERROR))) {
-                            finished = false;
-                            break;
-                        }
-                    }
-                }
-                if (finished)
-                    return true;
-
-                // wait
-                long waitTime = 0;
-
-                if (timeout > 0) {
-                    waitTime = timeout - (System.currentTimeMillis() - startTime);
-                    if (waitTime <= 0)
-                        return false;
-                }
-
-                lock.wait(waitTime);
+        final CompletableFuture<?>[] completions = new CompletableFuture<?>[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            completions[i] = resources[i].getCompletion();
+        }
+        final CompletableFuture<Void> all = CompletableFuture.allOf(completions);
+        try {
+            if (timeout > 0) {
+                all.get(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                all.get();
             }
+            return true;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (ExecutionException ex) {
+            // completions are never completed exceptionally
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void startWaitedFor(Resource resource) {
+        if (resource.raisePriority(Resource.Priority.NORMAL)) {
+            DownloadScheduler.getInstance().reprioritize(resource);
         }
+        startResource(resource);
     }
 
     interface Filter<T> {
@@ -0,0 +1,277 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.http.HttpMethod;
+import net.sourceforge.jnlp.cache.ResourceDownloader.UrlRequestResult;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probes the candidate urls of a resource concurrently.
+ * <p>
+ * The candidates are started one after another with a small delay ("happy eyeballs"). A candidate
+ * is started immediately if all candidates started before it failed. A valid response wins if all
+ * candidates preferred to it failed. Otherwise the preferred candidates which are still pending get
+ * another delay to answer, after which the most preferred valid response wins. All other probes are
+ * cancelled and their results are ignored. The delay gives the preferred candidates a head start,
+ * while a blackholed candidate (e.g. https to a legacy host) no longer costs the full connect timeout.
+ * </p>
+ * <p>
+ * The scheme of the winning url is remembered per host, so candidates with this scheme are probed
+ * first for later resources of the same host. If they succeed, the other candidates are never started.
+ * </p>
+ * <p>
+ * Redirects and 511 responses need the sequential handling of {@link ResourceDownloader#findBestUrl(Resource)},
+ * the prober reports them instead of resolving them.
+ * </p>
+ */
+class UrlProber {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UrlProber.class);
+
+    static final long DEFAULT_STAGGER = 250;
+
+    private static final Map<String, String> preferredSchemes = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+    private final long staggerMillis;
+
+    UrlProber(final Executor executor, final long staggerMillis) {
+        this.executor = executor;
+        this.staggerMillis = staggerMillis;
+    }
+
+    /**
+     * @return true if concurrent probing is configured
+     */
+    static boolean isEnabled() {
+        return Boolean.valueOf(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_HTTP_PROBE_CONCURRENTLY));
+    }
+
+    /**
+     * @return a prober configured from the deployment configuration
+     */
+    static UrlProber create() {
+        long stagger = DEFAULT_STAGGER;
+        try {
+            stagger = Long.parseLong(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_HTTP_PROBE_STAGGER));
+        } catch (final NumberFormatException ex) {
+            LOG.debug("Using default stagger of {} ms", DEFAULT_STAGGER);
+        }
+        return new UrlProber(CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL, stagger);
+    }
+
+    /**
+     * Outcome of probing all candidates.
+     */
+    static class Result {
+        private final UrlRequestResult best;
+        private final boolean sequentialProbingRequired;
+
+        private Result(final UrlRequestResult best, final boolean sequentialProbingRequired) {
+            this.best = best;
+            this.sequentialProbingRequired = sequentialProbingRequired;
+        }
+
+        /**
+         * @return the response of the best url with its location set as redirect url, or null if all candidates failed
+         */
+        UrlRequestResult getBest() {
+            return best;
+        }
+
+        /**
+         * @return true if a candidate answered with a redirect or 511 before any candidate succeeded
+         */
+        boolean isSequentialProbingRequired() {
+            return sequentialProbingRequired;
+        }
+    }
+
+    /**
+     * Probes the candidates concurrently.
+     *
+     * @param resource          the resource to probe for, used to remember the winning scheme
+     * @param candidates        the urls in the order of preference
+     * @param requestProperties the request properties to send
+     * @return the outcome of the probing
+     * @throws InterruptedException if the calling thread was interrupted
+     */
+    Result probe(final Resource resource, final List<URL> candidates, final Map<String, String> requestProperties) throws InterruptedException {
+        final List<URL> ordered = orderByPreferredScheme(resource.getLocation(), candidates);
+        final CompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+        final List<Future<Outcome>> futures = new ArrayList<>();
+        final Outcome[] outcomes = new Outcome[ordered.size()];
+
+        try {
+            long nextStart = 0;
+            long answeredAt = 0;
+            while (true) {
+                // the answer with the highest preference decides, once the candidates preferred to it failed
+                final long now = System.currentTimeMillis();
+                boolean preferredPending = false;
+                int answered = -1;
+                for (int i = 0; i < futures.size(); i++) {
+                    final Outcome outcome = outcomes[i];
+                    if (outcome == null) {
+                        preferredPending = true;
+                    } else if (outcome.result != null || outcome.sequentialProbingRequired) {
+                        answered = i;
+                        break;
+                    }
+                }
+                if (answered >= 0) {
+                    if (answeredAt == 0) {
+                        answeredAt = now;
+                    }
+                    // a preferred candidate which does not answer within the stagger is not waited for any longer
+                    if (!preferredPending || now >= answeredAt + staggerMillis) {
+                        return decide(resource, ordered.get(answered), outcomes[answered]);
+                    }
+                } else if (!preferredPending && futures.size() == ordered.size()) {
+                    return new Result(null, false);
+                }
+
+                // candidates less preferred than an answer are not needed
+                if (answered < 0 && futures.size() < ordered.size() && (!preferredPending || now >= nextStart)) {
+                    final int index = futures.size();
+                    final URL url = ordered.get(index);
+                    futures.add(completion.submit(() -> probeUrl(index, url, requestProperties)));
+                    nextStart = now + staggerMillis;
+                    continue;
+                }
+
+                final Future<Outcome> done;
+                if (answered >= 0) {
+                    done = completion.poll(Math.max(1, answeredAt + staggerMillis - now), TimeUnit.MILLISECONDS);
+                } else if (futures.size() < ordered.size()) {
+                    done = completion.poll(Math.max(1, nextStart - now), TimeUnit.MILLISECONDS);
+                } else {
+                    done = completion.take();
+                }
+                if (done != null) {
+                    final Outcome outcome = getOutcome(done);
+                    outcomes[outcome.index] = outcome;
+                }
+            }
+        } finally {
+            for (final Future<Outcome> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Result decide(final Resource resource, final URL url, final Outcome outcome) {
+        if (outcome.sequentialProbingRequired) {
+            LOG.debug("{} needs sequential probing of its candidates", url);
+            return new Result(null, true);
+        }
+        LOG.debug("best url for {} is {} by concurrent probing", resource, url);
+        rememberScheme(resource.getLocation(), url.getProtocol());
+        return new Result(outcome.result, false);
+    }
+
+    private static Outcome getOutcome(final Future<Outcome> done) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (final ExecutionException ex) {
+            // probeUrl catches everything it expects, this is a bug
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Tries HEAD and then GET, unless the host could not be reached at all.
+     */
+    private Outcome probeUrl(final int index, final URL url, final Map<String, String> requestProperties) {
+        for (final HttpMethod requestMethod : new HttpMethod[]{HttpMethod.HEAD, HttpMethod.GET}) {
+            try {
+                final UrlRequestResult response = request(url, requestProperties, requestMethod);
+                if (response.getResponseCode() == 511 || response.shouldRedirect()) {
+                    return new Outcome(index, null, true);
+                }
+                if (!response.isInvalid()) {
+                    return new Outcome(index, response.getRedirectURL() == null ? response.withRedirectUrl(url) : response, false);
+                }
+                LOG.debug("For {} the server returned {} code for {} request", url, response.getResponseCode(), requestMethod);
+            } catch (final ConnectException | NoRouteToHostException | SocketTimeoutException | UnknownHostException ex) {
+                LOG.debug("Could not connect to {}: {}", url, ex.toString());
+                break;
+            } catch (final IOException ex) {
+                LOG.debug("While probing {} by {} got {}", url, requestMethod, ex.toString());
+            } catch (final RuntimeException ex) {
+                LOG.debug("While probing {} by {} got {}", url, requestMethod, ex.toString());
+                break;
+            }
+        }
+        return new Outcome(index, null, false);
+    }
+
+    /**
+     * Seam for testing
+     */
+    UrlRequestResult request(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
+        return ResourceDownloader.getUrlResponseCodeWithRedirectionResult(url, requestProperties, requestMethod);
+    }
+
+    static List<URL> orderByPreferredScheme(final URL location, final List<URL> candidates) {
+        final String scheme = preferredSchemes.get(hostKey(location));
+        if (scheme == null) {
+            return new ArrayList<>(candidates);
+        }
+        final List<URL> preferred = new ArrayList<>();
+        final List<URL> others = new ArrayList<>();
+        for (final URL candidate : candidates) {
+            if (scheme.equals(candidate.getProtocol())) {
+                preferred.add(candidate);
+            } else {
+                others.add(candidate);
+            }
+        }
+        preferred.addAll(others);
+        return preferred;
+    }
+
+    static void rememberScheme(final URL location, final String scheme) {
+        preferredSchemes.put(hostKey(location), scheme);
+    }
+
+    static void forgetSchemes() {
+        preferredSchemes.clear();
+    }
+
+    private static String hostKey(final URL url) {
+        return url.getHost() == null ? "" : url.getHost().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static class Outcome {
+        private final int index;
+        private final UrlRequestResult result;
+        private final boolean sequentialProbingRequired;
+
+        private Outcome(final int index, final UrlRequestResult result, final boolean sequentialProbingRequired) {
+            this.index = index;
+            this.result = result;
+            this.sequentialProbingRequired = sequentialProbingRequired;
+        }
+    }
+}
@@ -56,10 +56,25 @@ public interface ConfigurationConstants {
 
     String KEY_CACHE_MAX_SIZE = "deployment.cache.max.size";
 
+    /**
+     * Integer. Percentage of the maximum cache size to which the cache is reduced once it got too big
+     */
+    String KEY_CACHE_EVICTION_LOW_WATER = "deployment.cache.eviction.lowwater";
+
     String KEY_CACHE_ENABLED = "deployment.javapi.cache.enabled";
 
     String KEY_CACHE_COMPRESSION_ENABLED = "deployment.cache.jarcompression";
 
+    /**
+     * Integer. Maximum number of resources downloaded at the same time, values below 1 mean unlimited
+     */
+    String KEY_DOWNLOAD_MAX_CONNECTIONS = "deployment.download.max.connections";
+
+    /**
+     * Integer. Maximum number of resources downloaded at the same time from one host, values below 1 mean unlimited
+     */
+    String KEY_DOWNLOAD_MAX_CONNECTIONS_PER_HOST = "deployment.download.max.connections.per.host";
+
     String KEY_USER_LOG_DIR = "deployment.user.logdir";
 
     String KEY_USER_TMP_DIR = "deployment.user.tmp";
@@ -137,11 +152,32 @@ public interface ConfigurationConstants {
 
     String KEY_STRICT_JNLP_CLASSLOADER = "deployment.jnlpclassloader.strict";
 
+    /**
+     * Integer. Maximal number of extension JNLP files downloaded at the same time, 1 resolves them one after another
+     */
+    String KEY_EXTENSION_PARALLELISM = "deployment.jnlpclassloader.extensions.parallelism";
+
     /**
      * Boolean. Do not prefer https over http
      */
     String KEY_HTTPS_DONT_ENFORCE = "deployment.https.noenforce";
 
+    /**
+     * Boolean. Probe the candidate urls of a resource concurrently instead of one after another
+     */
+    String KEY_HTTP_PROBE_CONCURRENTLY = "deployment.download.probe.concurrently";
+
+    /**
+     * Integer. Delay in ms between the start of two concurrent probes of candidate urls
+     */
+    String KEY_HTTP_PROBE_STAGGER = "deployment.download.probe.stagger";
+
+    /**
+     * Boolean. Connect and download a resource with a single conditional GET request
+     * (If-Modified-Since / If-None-Match) instead of a HEAD request followed by a GET request
+     */
+    String KEY_HTTP_CONDITIONAL_GET = "deployment.download.conditional.get";
+
     /**
      * the proxy type. possible values are {@code JNLPProxySelector.PROXY_TYPE_*}
      */
@@ -232,6 +268,16 @@ public interface ConfigurationConstants {
 
     String KEY_UPDATE_TIMEOUT = "deployment.javaws.update.timeout";
 
+    /**
+     * Boolean. Keep a pre-initialized JVM ready for applications which need their own JVM
+     */
+    String KEY_WARM_VM_POOL = "deployment.javaws.warmvm.enabled";
+
+    /**
+     * Integer. Time in seconds a pre-initialized JVM waits for an application before it exits
+     */
+    String KEY_WARM_VM_IDLE = "deployment.javaws.warmvm.idle";
+
     String IGNORE_HEADLESS_CHECK = "deployment.headless.ignore";
 
     /*
@@ -243,11 +243,31 @@ public class Defaults {
 
                         String.valueOf(true)
                 },
+                {
+                        ConfigurationConstants.KEY_EXTENSION_PARALLELISM,
+                        ValidatorFactory.createRangedIntegerValidator(1, 64),
+                        String.valueOf(4)
+                },
                 {
                         ConfigurationConstants.KEY_HTTPS_DONT_ENFORCE,
                         ValidatorFactory.createBooleanValidator(),
                         String.valueOf(false)
                 },
+                {
+                        ConfigurationConstants.KEY_HTTP_PROBE_CONCURRENTLY,
+                        ValidatorFactory.createBooleanValidator(),
+                        String.valueOf(false)
+                },
+                {
+                        ConfigurationConstants.KEY_HTTP_PROBE_STAGGER,
+                        ValidatorFactory.createRangedIntegerValidator(0, 10000),
+                        String.valueOf(250)
+                },
+                {
+                        ConfigurationConstants.KEY_HTTP_CONDITIONAL_GET,
+                        ValidatorFactory.createBooleanValidator(),
+                        String.valueOf(false)
+                },
                 {
                         ConfigurationConstants.KEY_SECURITY_ITW_IGNORECERTISSUES,
                         ValidatorFactory.createBooleanValidator(),
@@ -335,11 +355,26 @@ public class Defaults {
                         ValidatorFactory.createRangedIntegerValidator(-1, Integer.MAX_VALUE),
                         "-1"
                 },
+                {
+                        ConfigurationConstants.KEY_CACHE_EVICTION_LOW_WATER,
+                        ValidatorFactory.createRangedIntegerValidator(0, 100),
+                        String.valueOf(90)
+                },
                 {
                         ConfigurationConstants.KEY_CACHE_COMPRESSION_ENABLED,
                         ValidatorFactory.createRangedIntegerValidator(0, 10),
                         String.valueOf(0)
                 },
+                {
+                        ConfigurationConstants.KEY_DOWNLOAD_MAX_CONNECTIONS,
+                        ValidatorFactory.createRangedIntegerValidator(0, 1000),
+                        String.valueOf(16)
+                },
+                {
+                        ConfigurationConstants.KEY_DOWNLOAD_MAX_CONNECTIONS_PER_HOST,
+                        ValidatorFactory.createRangedIntegerValidator(0, 1000),
+                        String.valueOf(6)
+                },
                 {
                         ConfigurationConstants.KEY_CACHE_ENABLED,
                         ValidatorFactory.createBooleanValidator(),
@@ -435,6 +470,16 @@ public class Defaults {
                         ValidatorFactory.createRangedIntegerValidator(0, 10000),
                         String.valueOf(500)
                 },
+                {
+                        ConfigurationConstants.KEY_WARM_VM_POOL,
+                        ValidatorFactory.createBooleanValidator(),
+                        String.valueOf(false)
+                },
+                {
+                        ConfigurationConstants.KEY_WARM_VM_IDLE,
+                        ValidatorFactory.createRangedIntegerValidator(1, 86400),
+                        String.valueOf(600)
+                },
                 {
                         ConfigurationConstants.IGNORE_HEADLESS_CHECK,
                         ValidatorFactory.createBooleanValidator(),
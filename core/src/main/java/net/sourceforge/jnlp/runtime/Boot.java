@@ -110,11 +110,24 @@ public final class Boot implements PrivilegedAction<Void> {
      * @param argsIn launching arguments
      */
     public static void main(String[] argsIn) throws UnevenParameterException {
+        optionParser = new CommandLineOptionsParser(argsIn, CommandLineOptionsDefinition.getJavaWsOptions());
+
+        if (optionParser.hasOption(CommandLineOptions.WARMVM)) {
+            final String[] launchArgs = WarmVmPool.getInstance().await(optionParser.getParam(CommandLineOptions.WARMVM));
+            if (launchArgs != null) {
+                main(launchArgs);
+            }
+            return;
+        }
+
+        LaunchTimeline.begin();
+        if (optionParser.hasOption(CommandLineOptions.TIMELINE) || optionParser.hasOption(CommandLineOptions.TIMELINETRACE)) {
+            LaunchTimeline.setOutput(getOutputFile(CommandLineOptions.TIMELINE), getOutputFile(CommandLineOptions.TIMELINETRACE));
+        }
+
         // setup Swing EDT tracing:
         SwingUtils.setup();
 
-        optionParser = new CommandLineOptionsParser(argsIn, CommandLineOptionsDefinition.getJavaWsOptions());
-
         if (optionParser.hasOption(CommandLineOptions.VERBOSE)) {
             JNLPRuntime.setDebug(true);
         }
@@ -218,6 +231,10 @@ public final class Boot implements PrivilegedAction<Void> {
 
     }
 
+    private static File getOutputFile(final CommandLineOptions option) {
+        return optionParser.hasOption(option) ? new File(optionParser.getParam(option)) : null;
+    }
+
     private static void handleMessage() {
         final TextsProvider helpMessagesProvider = new JavaWsTextsProvider(UTF_8, new PlainTextFormatter(), true, true);
 
@@ -0,0 +1,100 @@
+package net.sourceforge.jnlp.runtime;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.function.Supplier;
+
+/**
+ * A socket factory which does the SSL setup of the runtime only when the first socket is created,
+ * so applications which never connect with https do not load any key store for it.
+ * The default factory of the JVM is used if the setup failed. The setup runs with the permissions
+ * of ITW, whichever code creates the first socket.
+ */
+class DeferredSSLSocketFactory extends SSLSocketFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredSSLSocketFactory.class);
+
+    private final Supplier<SSLSocketFactory> setup;
+
+    /** the factory created by the setup, null until the first socket is created */
+    private SSLSocketFactory factory;
+
+    /**
+     * @param setup creates the factory, returns null if the setup failed
+     */
+    DeferredSSLSocketFactory(final Supplier<SSLSocketFactory> setup) {
+        this.setup = setup;
+    }
+
+    synchronized SSLSocketFactory getFactory() {
+        if (factory == null) {
+            SSLSocketFactory created = null;
+            try {
+                created = AccessController.doPrivileged(new PrivilegedAction<SSLSocketFactory>() {
+                    @Override
+                    public SSLSocketFactory run() {
+                        return setup.get();
+                    }
+                });
+            } catch (RuntimeException ex) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            }
+            factory = created != null ? created : (SSLSocketFactory) SSLSocketFactory.getDefault();
+        }
+        return factory;
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return getFactory().getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return getFactory().getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return getFactory().createSocket();
+    }
+
+    @Override
+    public Socket createSocket(final Socket socket, final String host, final int port, final boolean autoClose) throws IOException {
+        return getFactory().createSocket(socket, host, port, autoClose);
+    }
+
+    @Override
+    public Socket createSocket(final Socket socket, final InputStream consumed, final boolean autoClose) throws IOException {
+        return getFactory().createSocket(socket, consumed, autoClose);
+    }
+
+    @Override
+    public Socket createSocket(final String host, final int port) throws IOException {
+        return getFactory().createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+        return getFactory().createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(final InetAddress host, final int port) throws IOException {
+        return getFactory().createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) throws IOException {
+        return getFactory().createSocket(address, port, localAddress, localPort);
+    }
+}
@@ -24,9 +24,12 @@ import net.adoptopenjdk.icedteaweb.jnlp.element.application.AppletDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.application.ApplicationDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.PackageDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ResourcesDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.security.AppletPermissionLevel;
 import net.adoptopenjdk.icedteaweb.jnlp.element.security.SecurityDesc;
+import net.adoptopenjdk.icedteaweb.jnlp.element.update.UpdateCheck;
+import net.adoptopenjdk.icedteaweb.jnlp.element.update.UpdateDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.version.Version;
 import net.adoptopenjdk.icedteaweb.manifest.ManifestAttributesReader;
 import net.adoptopenjdk.icedteaweb.manifest.ManifestAttributesChecker;
@@ -38,9 +41,14 @@ import net.sourceforge.jnlp.LaunchException;
 import net.sourceforge.jnlp.NullJnlpFileException;
 import net.sourceforge.jnlp.ParserSettings;
 import net.sourceforge.jnlp.PluginBridge;
+import net.sourceforge.jnlp.cache.BackgroundUpdater;
+import net.sourceforge.jnlp.cache.CacheBlobStore;
 import net.sourceforge.jnlp.cache.CacheUtil;
+import net.sourceforge.jnlp.cache.CachedDaemonThreadPoolProvider;
 import net.sourceforge.jnlp.cache.IllegalResourceDescriptorException;
+import net.sourceforge.jnlp.cache.JarPackageIndex;
 import net.sourceforge.jnlp.cache.NativeLibraryStorage;
+import net.sourceforge.jnlp.cache.Resource;
 import net.sourceforge.jnlp.cache.ResourceTracker;
 import net.sourceforge.jnlp.cache.UpdatePolicy;
 import net.sourceforge.jnlp.config.ConfigurationConstants;
@@ -55,13 +63,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.SocketPermission;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.AccessControlContext;
 import java.security.AccessControlException;
 import java.security.AccessController;
@@ -86,9 +96,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
@@ -110,6 +127,11 @@ public class JNLPClassLoader extends URLClassLoader {
 
     private final static Logger LOG = LoggerFactory.getLogger(JNLPClassLoader.class);
 
+    static {
+        // classes are defined under a lock per class name, see findClass(String)
+        ClassLoader.registerAsParallelCapable();
+    }
+
     // todo: initializePermissions should get the permissions from
     // extension classes too so that main file classes can load
     // resources in an extension.
@@ -119,6 +141,12 @@ public class JNLPClassLoader extends URLClassLoader {
     final public static String TEMPLATE = "JNLP-INF/APPLICATION_TEMPLATE.JNLP";
     final public static String APPLICATION = "JNLP-INF/APPLICATION.JNLP";
 
+    /**
+     * File recording the digest of the jar the nested jars were extracted
+     * from, it is written when all of them are extracted
+     */
+    private static final String NESTED_JARS_DIGEST = ".sha-256";
+
     /**
      * Actions to specify how cache is to be managed *
      */
@@ -161,6 +189,24 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     private List<Permission> resourcePermissions;
 
+    /**
+     * the context for loading classes without all permissions, built lazily
+     * and dropped whenever the jars, their permissions or the codebase change
+     */
+    private volatile AccessControlContext classLoadingContext;
+
+    /**
+     * the permissions of each code source, built lazily and dropped together
+     * with {@link #classLoadingContext}
+     */
+    private final Map<CodeSource, PermissionCollection> permissionsCache = new ConcurrentHashMap<>();
+
+    /**
+     * counts the invalidations of the cached permissions, also the lock for them,
+     * so permissions built from outdated state are never cached
+     */
+    private final AtomicLong permissionsGeneration = new AtomicLong();
+
     /**
      * the app
      */
@@ -207,11 +253,11 @@ public class JNLPClassLoader extends URLClassLoader {
     private final ArrayList<Permission> runtimePermissions = new ArrayList<>();
 
     /**
-     * all jars not yet part of classloader or active Synchronized since this
+     * all jars not yet part of classloader or active. Concurrent since this
      * field may become shared data between multiple classloading threads. See
      * loadClass(String) and CodebaseClassLoader.findClassNonRecursive(String).
      */
-    private final List<JARDesc> available = Collections.synchronizedList(new ArrayList<JARDesc>());
+    private final List<JARDesc> available = new CopyOnWriteArrayList<>();
 
     /**
      * the jar cert verifier tool to verify our jars
@@ -221,28 +267,34 @@ public class JNLPClassLoader extends URLClassLoader {
     private SigningState signing = SigningState.NONE;
 
     /**
-     * ArrayList containing jar indexes for various jars available to this
-     * classloader Synchronized since this field may become shared data between
-     * multiple classloading threads/ See loadClass(String) and
+     * List containing jar indexes for various jars available to this
+     * classloader. Concurrent since this field may become shared data between
+     * multiple classloading threads. See loadClass(String) and
      * CodebaseClassLoader.findClassNonRecursive(String).
      */
-    private final List<JarIndexAccess> jarIndexes = Collections.synchronizedList(new ArrayList<JarIndexAccess>());
+    private final List<JarIndexAccess> jarIndexes = new CopyOnWriteArrayList<>();
 
     /**
-     * Set of classpath strings declared in the manifest.mf files Synchronized
+     * Package indexes of the up to date cached jars which are not yet active, see
+     * {@link #findAvailableJar(String, String)}.
+     */
+    private final Map<URL, JarPackageIndex> availableJarIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Set of classpath strings declared in the manifest.mf files. Concurrent
      * since this field may become shared data between multiple classloading
      * threads. See loadClass(String) and
      * CodebaseClassLoader.findClassNonRecursive(String).
      */
-    private final Set<String> classpaths = Collections.synchronizedSet(new HashSet<String>());
+    private final Set<String> classpaths = ConcurrentHashMap.newKeySet();
 
     /**
-     * File entries in the jar files available to this classloader Synchronized
-     * sinc this field may become shared data between multiple classloading
+     * File entries in the jar files available to this classloader. Concurrent
+     * since this field may become shared data between multiple classloading
      * threads. See loadClass(String) and
      * CodebaseClassLoader.findClassNonRecursive(String).
      */
-    private final Set<String> jarEntries = Collections.synchronizedSet(new TreeSet<String>());
+    private final Set<String> jarEntries = new ConcurrentSkipListSet<>();
 
     /**
      * Map of specific original (remote) CodeSource Urls to securitydesc
@@ -254,13 +306,24 @@ public class JNLPClassLoader extends URLClassLoader {
             = Collections.synchronizedMap(new HashMap<URL, SecurityDesc>());
 
     /*Set to prevent once tried-to-get resources to be tried again*/
-    private final Set<URL> alreadyTried = Collections.synchronizedSet(new HashSet<URL>());
+    private final Set<URL> alreadyTried = ConcurrentHashMap.newKeySet();
 
     /**
      * Loader for codebase (which is a path, rather than a file)
      */
     private CodeBaseClassLoader codeBaseLoader;
 
+    /**
+     * counts the jars and codebase urls added to this loader, see
+     * {@link #getActivationStamp()}
+     */
+    private final AtomicLong activations = new AtomicLong();
+
+    /**
+     * the classes and resources which were not found
+     */
+    private final NegativeLookupCache negativeLookupCache = new NegativeLookupCache();
+
     /**
      * True if the jar with the main class has been found
      *
@@ -388,6 +451,7 @@ public class JNLPClassLoader extends URLClassLoader {
     private void setSecurity() throws LaunchException {
         URL codebase = UrlUtils.guessCodeBase(file);
         this.security = securityDelegate.getClassLoaderSecurity(codebase);
+        invalidatePermissions();
     }
 
     /**
@@ -538,6 +602,18 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     public static JNLPClassLoader getInstance(URL location, String uniqueKey, Version version, ParserSettings settings, UpdatePolicy policy, String mainName, boolean enableCodeBase)
             throws IOException, ParseException, LaunchException {
+        return getInstance(location, uniqueKey, version, settings, policy, mainName, enableCodeBase, null);
+    }
+
+    /**
+     * Returns a JNLP classloader for the JNLP file at the specified location,
+     * using the file downloaded in advance if it is needed.
+     *
+     * @param prefetched the file downloaded in advance, or null to download it
+     * now
+     */
+    private static JNLPClassLoader getInstance(URL location, String uniqueKey, Version version, ParserSettings settings, UpdatePolicy policy, String mainName, boolean enableCodeBase, Future<JNLPFile> prefetched)
+            throws IOException, ParseException, LaunchException {
 
         JNLPClassLoader loader;
 
@@ -545,7 +621,9 @@ public class JNLPClassLoader extends URLClassLoader {
             loader = uniqueKeyToLoader.get(uniqueKey);
 
             if (loader == null || !location.equals(loader.getJNLPFile().getFileLocation())) {
-                JNLPFile jnlpFile = new JNLPFile(location, uniqueKey, version, settings, policy);
+                JNLPFile jnlpFile = prefetched == null
+                        ? new JNLPFile(location, uniqueKey, version, settings, policy)
+                        : getPrefetched(prefetched);
 
                 loader = getInstance(jnlpFile, policy, mainName, enableCodeBase);
             }
@@ -554,6 +632,30 @@ public class JNLPClassLoader extends URLClassLoader {
         return loader;
     }
 
+    private static JNLPFile getPrefetched(Future<JNLPFile> prefetched) throws IOException, ParseException {
+        try {
+            return prefetched.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
     /**
      * Load the extensions specified in the JNLP file.
      */
@@ -576,21 +678,155 @@ public class JNLPClassLoader extends URLClassLoader {
             }
         }
 
-        //if (ext != null) {
-        for (ExtensionDesc ext : extDescs) {
+        final String uniqueKey = this.getJNLPFile().getUniqueKey();
+        final List<Future<JNLPFile>> prefetched = prefetchExtensions(extDescs, uniqueKey);
+
+        // the loaders are created one after another in the order of the
+        // extensions, under the lock of the unique key held by this thread
+        for (int i = 0; i < extDescs.length; i++) {
+            final ExtensionDesc ext = extDescs[i];
+            final long start = System.nanoTime();
             try {
-                String uniqueKey = this.getJNLPFile().getUniqueKey();
-                JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy, mainClass, this.enableCodeBase);
+                JNLPClassLoader loader = getInstance(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy, mainClass, this.enableCodeBase, prefetched.get(i));
                 loaderList.add(loader);
             } catch (Exception ex) {
                 LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
             }
+            LOG.info("Extension {} initialized in {} ms", ext.getLocation(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
-        //}
 
         loaders = loaderList.toArray(new JNLPClassLoader[loaderList.size()]);
     }
 
+    /**
+     * Downloads and parses the extension JNLP files and downloads their eager
+     * jars in the background, at most
+     * {@link ConfigurationConstants#KEY_EXTENSION_PARALLELISM} at the same
+     * time. The class loaders are not created here, as creating them
+     * requires the lock of the unique key.
+     *
+     * @param extDescs the extensions
+     * @param uniqueKey the unique key shared by this loader and its extensions
+     * @return for each extension the file downloaded in the background, or
+     * null if it is not downloaded in advance
+     */
+    List<Future<JNLPFile>> prefetchExtensions(final ExtensionDesc[] extDescs, final String uniqueKey) {
+        final List<Future<JNLPFile>> prefetched = new ArrayList<>();
+        final List<Integer> pending = new ArrayList<>();
+        final JNLPClassLoader existing = uniqueKey == null ? null : uniqueKeyToLoader.get(uniqueKey);
+        for (int i = 0; i < extDescs.length; i++) {
+            if (existing != null && extDescs[i].getLocation().equals(existing.getJNLPFile().getFileLocation())) {
+                // the loader is reused, nothing to download
+                prefetched.add(null);
+            } else {
+                prefetched.add(new CompletableFuture<JNLPFile>());
+                pending.add(i);
+            }
+        }
+
+        final int parallelism = Math.min(getExtensionParallelism(), pending.size());
+        if (parallelism < 2) {
+            Collections.fill(prefetched, null);
+            return prefetched;
+        }
+
+        // each worker takes every n-th extension, so no more than n are downloaded at once
+        for (int worker = 0; worker < parallelism; worker++) {
+            final int first = worker;
+            CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int p = first; p < pending.size(); p += parallelism) {
+                        final int i = pending.get(p);
+                        prefetchExtension(extDescs[i], uniqueKey, (CompletableFuture<JNLPFile>) prefetched.get(i));
+                    }
+                }
+            });
+        }
+        return prefetched;
+    }
+
+    private void prefetchExtension(final ExtensionDesc ext, final String uniqueKey, final CompletableFuture<JNLPFile> result) {
+        final long start = System.nanoTime();
+        try {
+            final JNLPFile extFile = new JNLPFile(ext.getLocation(), uniqueKey, ext.getVersion(), file.getParserSettings(), updatePolicy);
+
+            // warm up the cache, the loader of the extension downloads the same jars
+            final ResourceTracker prefetchTracker = new ResourceTracker(false);
+            final List<URL> jars = new ArrayList<>();
+            for (JARDesc jar : extFile.getResources().getJARs()) {
+                if (jar.isEager() || jar.isMain()) {
+                    prefetchTracker.addResource(jar.getLocation(), jar.getVersion(), extFile.getDownloadOptions(),
+                            jar.isCacheable() ? JNLPRuntime.getDefaultUpdatePolicy() : UpdatePolicy.FORCE);
+                    jars.add(jar.getLocation());
+                }
+            }
+            prefetchTracker.waitForResources(jars.toArray(new URL[0]), 0);
+
+            LOG.info("Extension {} downloaded in {} ms", ext.getLocation(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.complete(extFile);
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private static int getExtensionParallelism() {
+        try {
+            return Integer.parseInt(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_EXTENSION_PARALLELISM));
+        } catch (NumberFormatException ex) {
+            return 1;
+        }
+    }
+
+    /**
+     * Starts the check for updates requested by the update element of the JNLP file. If all jars are
+     * cached, a {@code background} check runs while the application is launched from the cache, a
+     * {@code timeout} check is waited for at most {@link ConfigurationConstants#KEY_UPDATE_TIMEOUT} ms.
+     * A check which did not complete in time goes on, and this launch keeps using the cached files the
+     * check started with, see {@link BackgroundUpdater}. The updated jars are used on the next launch.
+     *
+     * @param jars the jars of this loader
+     * @return the update policy to add the cacheable jars with
+     */
+    private UpdatePolicy startUpdateCheck(final JARDesc[] jars) {
+        final UpdatePolicy defaultPolicy = JNLPRuntime.getDefaultUpdatePolicy();
+        final UpdateDesc update = file.getUpdate();
+        if (update == null || update.getCheck() == UpdateCheck.ALWAYS
+                // prompting needs to know about the update before the launch
+                || update.getPolicy() != net.adoptopenjdk.icedteaweb.jnlp.element.update.UpdatePolicy.ALWAYS
+                || defaultPolicy == UpdatePolicy.NEVER || defaultPolicy == UpdatePolicy.FORCE
+                || JNLPRuntime.isOfflineForced()
+                || !BackgroundUpdater.isCompletelyCached(Arrays.asList(jars))) {
+            return defaultPolicy;
+        }
+
+        final CompletableFuture<Boolean> check = BackgroundUpdater.start(Arrays.asList(jars), file.getDownloadOptions(), defaultPolicy);
+        if (update.getCheck() == UpdateCheck.TIMEOUT) {
+            try {
+                if (check.get(getUpdateTimeout(), TimeUnit.MILLISECONDS)) {
+                    // the jars are not used yet, so the complete update is used right away
+                    BackgroundUpdater.release(Arrays.asList(jars));
+                }
+            } catch (TimeoutException ex) {
+                LOG.info("Update check of {} did not complete in time, launching from the cache", file.getFileLocation());
+            } catch (ExecutionException ex) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // the cached jars are used as they are, the check does not change the files of this launch
+        return UpdatePolicy.NEVER;
+    }
+
+    private static long getUpdateTimeout() {
+        try {
+            return Long.parseLong(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_UPDATE_TIMEOUT));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
     /**
      * Make permission objects for the classpath.
      */
@@ -608,6 +844,7 @@ public class JNLPClassLoader extends URLClassLoader {
                 LOG.info("Permission added: {}", p.toString());
             }
         }
+        invalidatePermissions();
     }
 
     /**
@@ -690,6 +927,7 @@ public class JNLPClassLoader extends URLClassLoader {
             return;
         }
 
+        final UpdatePolicy updatePolicy = startUpdateCheck(jars);
         List<JARDesc> initialJars = new ArrayList<>();
 
         for (JARDesc jar : jars) {
@@ -701,7 +939,8 @@ public class JNLPClassLoader extends URLClassLoader {
             }
             tracker.addResource(jar.getLocation(),
                     jar.getVersion(), file.getDownloadOptions(),
-                    jar.isCacheable() ? JNLPRuntime.getDefaultUpdatePolicy() : UpdatePolicy.FORCE);
+                    jar.isCacheable() ? updatePolicy : UpdatePolicy.FORCE,
+                    jar.isMain() || jar.isEager() ? Resource.Priority.HIGH : Resource.Priority.LOW);
         }
 
         //If there are no eager jars, initialize the first jar
@@ -857,6 +1096,7 @@ public class JNLPClassLoader extends URLClassLoader {
             final SecurityDesc jarSecurity = securityDelegate.getCodebaseSecurityDesc(jarDesc, codebase);
             jarLocationSecurityMap.put(jarDesc.getLocation(), jarSecurity);
         }
+        invalidatePermissions();
 
         activateJars(initialJars);
     }
@@ -1113,10 +1353,37 @@ public class JNLPClassLoader extends URLClassLoader {
     }
 
     /**
-     * Returns the permissions for the CodeSource.
+     * Returns the permissions for the CodeSource. The permissions are computed
+     * once per code source and shared, so the returned collection is read-only.
      */
     @Override
     protected PermissionCollection getPermissions(CodeSource cs) {
+        if (cs == null) {
+            return createPermissions(cs);
+        }
+        PermissionCollection cached = permissionsCache.get(cs);
+        if (cached == null) {
+            final long generation = permissionsGeneration.get();
+            cached = createPermissions(cs);
+            cached.setReadOnly();
+            synchronized (permissionsGeneration) {
+                if (generation == permissionsGeneration.get()) {
+                    permissionsCache.put(cs, cached);
+                }
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * @return the number of changes to the security, the jars or the permissions
+     * granted at runtime, which all affect the permissions of code sources
+     */
+    long getPermissionsGeneration() {
+        return permissionsGeneration.get();
+    }
+
+    private PermissionCollection createPermissions(CodeSource cs) {
         try {
             Permissions result = new Permissions();
 
@@ -1185,6 +1452,7 @@ public class JNLPClassLoader extends URLClassLoader {
 
     protected void addPermission(Permission p) {
         runtimePermissions.add(p);
+        invalidatePermissions();
     }
 
     /**
@@ -1199,13 +1467,11 @@ public class JNLPClassLoader extends URLClassLoader {
             String part = jars.get(x).getPart();
 
             // "available" field can be affected by two different threads
-            // working in loadClass(String)
-            synchronized (available) {
-                for (JARDesc jar : available) {
-                    if (part != null && part.equals(jar.getPart())) {
-                        if (!jars.contains(jar)) {
-                            jars.add(jar);
-                        }
+            // working in loadClass(String), the iteration works on a snapshot
+            for (JARDesc jar : available) {
+                if (part != null && part.equals(jar.getPart())) {
+                    if (!jars.contains(jar)) {
+                        jars.add(jar);
                     }
                 }
             }
@@ -1246,6 +1512,10 @@ public class JNLPClassLoader extends URLClassLoader {
                             // thrown after a resource is fetched). This bug manifests itself
                             // particularly when using The FileManager applet from Webmin.
                             try (JarFile jarFile = new JarFile(localFile)) {
+                                final File nestedDir = new File(localFile + ".nested");
+                                // the digest of localFile, if the nested jars extracted from it are current
+                                String extractedDigest = null;
+                                String localDigest = null;
                                 for (JarEntry je : Collections.list(jarFile.entries())) {
 
                                     // another jar in my jar? it is more likely than you think
@@ -1254,25 +1524,31 @@ public class JNLPClassLoader extends URLClassLoader {
                                         // (inline loading with "jar:..!/..." path will not work
                                         // with standard classloader methods)
 
-                                        String extractedJarLocation = localFile + ".nested/" + je.getName();
-                                        File parentDir = new File(extractedJarLocation).getParentFile();
-                                        if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
-                                            throw new RuntimeException(R("RNestedJarExtration"));
-                                        }
-                                        FileOutputStream extractedJar = new FileOutputStream(extractedJarLocation);
-                                        InputStream is = jarFile.getInputStream(je);
-
-                                        byte[] bytes = new byte[1024];
-                                        int read = is.read(bytes);
-                                        int fileSize = read;
-                                        while (read > 0) {
-                                            extractedJar.write(bytes, 0, read);
-                                            read = is.read(bytes);
-                                            fileSize += read;
+                                        if (localDigest == null) {
+                                            localDigest = CacheBlobStore.digest(localFile);
+                                            extractedDigest = getNestedJarsDigest(nestedDir);
+                                            if (localDigest.equals(extractedDigest)) {
+                                                LOG.debug("Using nested jars of {} extracted on an earlier launch", localFile);
+                                            } else {
+                                                // extracted again, the digest is recorded when all are done
+                                                Files.deleteIfExists(new File(nestedDir, NESTED_JARS_DIGEST).toPath());
+                                            }
                                         }
 
-                                        is.close();
-                                        extractedJar.close();
+                                        String extractedJarLocation = localFile + ".nested/" + je.getName();
+                                        File extractedJarFile = new File(extractedJarLocation);
+                                        long fileSize;
+                                        if (localDigest.equals(extractedDigest) && extractedJarFile.isFile()) {
+                                            fileSize = extractedJarFile.length();
+                                        } else {
+                                            File parentDir = extractedJarFile.getParentFile();
+                                            if (!parentDir.isDirectory() && !parentDir.mkdirs()) {
+                                                throw new RuntimeException(R("RNestedJarExtration"));
+                                            }
+                                            try (InputStream is = jarFile.getInputStream(je)) {
+                                                fileSize = Files.copy(is, extractedJarFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                                            }
+                                        }
 
                                         // 0 byte file? skip
                                         if (fileSize <= 0) {
@@ -1298,6 +1574,7 @@ public class JNLPClassLoader extends URLClassLoader {
                                             addURL(fakeRemote);
 
                                             jarLocationSecurityMap.put(fakeRemote, jarSecurity);
+                                            invalidatePermissions();
 
                                         } catch (MalformedURLException mfue) {
                                             LOG.error("Unable to add extracted nested jar to classpath", mfue);
@@ -1306,6 +1583,9 @@ public class JNLPClassLoader extends URLClassLoader {
 
                                     jarEntries.add(je.getName());
                                 }
+                                if (localDigest != null && !localDigest.equals(extractedDigest)) {
+                                    Files.write(new File(nestedDir, NESTED_JARS_DIGEST).toPath(), localDigest.getBytes(StandardCharsets.US_ASCII));
+                                }
                             }
                         }
 
@@ -1349,7 +1629,26 @@ public class JNLPClassLoader extends URLClassLoader {
             }
         };
 
-        AccessController.doPrivileged(activate, acc);
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("activateJars", jars.size() + " jars")) {
+            AccessController.doPrivileged(activate, acc);
+        }
+    }
+
+    /**
+     * @param nestedDir the directory of the nested jars extracted from a jar
+     * @return the digest of the jar the nested jars were extracted from, or
+     * null if they were not extracted completely
+     */
+    private static String getNestedJarsDigest(File nestedDir) {
+        final File digestFile = new File(nestedDir, NESTED_JARS_DIGEST);
+        if (!digestFile.isFile()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(digestFile.toPath()), StandardCharsets.US_ASCII).trim();
+        } catch (IOException ex) {
+            return null;
+        }
     }
 
     /**
@@ -1454,19 +1753,22 @@ public class JNLPClassLoader extends URLClassLoader {
      * classloader instance when not needed is not in general a good idea
      * because it can and will lead to deadlock when multithreaded classloading
      * is in effect. The solution is to keep the fields thread safe on their
-     * own. This is accomplished by wrapping them in Collections.synchronized*
-     * to provide atomic add/remove operations, and synchronizing on them when
-     * iterating or performing multiple mutations. See bug report RH976833. On
+     * own. This is accomplished by using concurrent collections, which provide
+     * atomic add/remove operations and iterate over a consistent snapshot
+     * without locking. The only lock taken while loading a class is the lock
+     * of its name, which is held while this loader defines the class and never
+     * while another loader is consulted. See bug report RH976833. On
      * some systems this bug will manifest itself as deadlock on every webpage
      * with more than one Java applet, potentially also causing the browser
      * process to hang. More information in the mailing list archives:
      * http://mail.openjdk.java.net/pipermail/distro-pkg-dev/2013-September/024536.html
      *
      * Affected fields: available, classpaths, jarIndexes, jarEntries,
-     * jarLocationSecurityMap
+     * jarLocationSecurityMap (a synchronized map, since its values may be null)
      */
     @Override
     public Class<?> loadClass(String name) throws ClassNotFoundException {
+        final long stamp = getActivationStamp();
         Class<?> result = findLoadedClassAll(name);
 
         // try parent classloader
@@ -1486,6 +1788,9 @@ public class JNLPClassLoader extends URLClassLoader {
         // validPackage(name);
         // search this and the extension loaders
         if (result == null) {
+            if (negativeLookupCache.isMissingClass(name, stamp)) {
+                throw new ClassNotFoundException(name);
+            }
             try {
                 result = loadClassExt(name);
             } catch (ClassNotFoundException cnfe) {
@@ -1493,19 +1798,17 @@ public class JNLPClassLoader extends URLClassLoader {
 
                 // Look in 'Class-Path' as specified in the manifest file
                 try {
-                    // This field synchronized before iterating over it since it may
-                    // be shared data between threads
-                    synchronized (classpaths) {
-                        for (String classpath : classpaths) {
-                            JARDesc desc;
-                            try {
-                                URL jarUrl = new URL(file.getCodeBase(), classpath);
-                                desc = new JARDesc(jarUrl, null, null, false, true, false, true);
-                            } catch (MalformedURLException mfe) {
-                                throw new ClassNotFoundException(name, mfe);
-                            }
-                            addNewJar(desc);
+                    // This field is concurrent since it may be shared data
+                    // between threads
+                    for (String classpath : classpaths) {
+                        JARDesc desc;
+                        try {
+                            URL jarUrl = new URL(file.getCodeBase(), classpath);
+                            desc = new JARDesc(jarUrl, null, null, false, true, false, true);
+                        } catch (MalformedURLException mfe) {
+                            throw new ClassNotFoundException(name, mfe);
                         }
+                        addNewJar(desc);
                     }
 
                     result = loadClassExt(name);
@@ -1517,39 +1820,38 @@ public class JNLPClassLoader extends URLClassLoader {
                 // As a last resort, look in any available indexes
                 // Currently this loads jars directly from the site. We cannot cache it because this
                 // call is initiated from within the applet, which does not have disk read/write permissions
-                // This field synchronized before iterating over it since it may
-                // be shared data between threads
-                synchronized (jarIndexes) {
-                    for (JarIndexAccess index : jarIndexes) {
-                        // Non-generic code in sun.misc.JarIndex
-                        @SuppressWarnings("unchecked")
-                        LinkedList<String> jarList = index.get(name.replace('.', '/'));
-
-                        if (jarList != null) {
-                            for (String jarName : jarList) {
-                                JARDesc desc;
-                                try {
-                                    desc = new JARDesc(new URL(file.getCodeBase(), jarName),
-                                            null, null, false, true, false, true);
-                                } catch (MalformedURLException mfe) {
-                                    throw new ClassNotFoundException(name);
-                                }
-                                try {
-                                    addNewJar(desc);
-                                } catch (Exception e) {
-                                    LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
-                                }
+                // This field is concurrent since it may be shared data
+                // between threads
+                for (JarIndexAccess index : jarIndexes) {
+                    // Non-generic code in sun.misc.JarIndex
+                    @SuppressWarnings("unchecked")
+                    LinkedList<String> jarList = index.get(name.replace('.', '/'));
+
+                    if (jarList != null) {
+                        for (String jarName : jarList) {
+                            JARDesc desc;
+                            try {
+                                desc = new JARDesc(new URL(file.getCodeBase(), jarName),
+                                        null, null, false, true, false, true);
+                            } catch (MalformedURLException mfe) {
+                                throw new ClassNotFoundException(name);
+                            }
+                            try {
+                                addNewJar(desc);
+                            } catch (Exception e) {
+                                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
                             }
-
-                            // If it still fails, let it error out
-                            result = loadClassExt(name);
                         }
+
+                        // If it still fails, let it error out
+                        result = loadClassExt(name);
                     }
                 }
             }
         }
 
         if (result == null) {
+            negativeLookupCache.addMissingClass(name, stamp);
             throw new ClassNotFoundException(name);
         }
 
@@ -1593,6 +1895,7 @@ public class JNLPClassLoader extends URLClassLoader {
                         desc.getVersion());
 
                 resourcePermissions.add(p);
+                invalidatePermissions();
 
                 return null;
             }
@@ -1624,6 +1927,7 @@ public class JNLPClassLoader extends URLClassLoader {
                     final SecurityDesc security = securityDelegate.getJarPermissions(file.getCodeBase());
 
                     jarLocationSecurityMap.put(remoteURL, security);
+                    invalidatePermissions();
 
                     return null;
                 }
@@ -1643,6 +1947,12 @@ public class JNLPClassLoader extends URLClassLoader {
 
     /**
      * Find the class in this loader or any of its extension loaders.
+     * <p>
+     * This loader defines a class while holding the lock of the class name
+     * only, so threads loading different classes do not block each other. The
+     * lock is released before the extension loaders or the codebase loader
+     * are consulted, see loadClass(String).
+     * </p>
      */
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException {
@@ -1650,13 +1960,20 @@ public class JNLPClassLoader extends URLClassLoader {
             try {
                 if (loader == this) {
                     final String fName = name;
-                    return AccessController.doPrivileged(
-                            new PrivilegedExceptionAction<Class<?>>() {
-                        @Override
-                        public Class<?> run() throws ClassNotFoundException {
-                            return JNLPClassLoader.super.findClass(fName);
+                    synchronized (getClassLoadingLock(name)) {
+                        // another thread may have defined it meanwhile
+                        final Class<?> loaded = findLoadedClass(name);
+                        if (loaded != null) {
+                            return loaded;
                         }
-                    }, getAccessControlContextForClassLoading());
+                        return AccessController.doPrivileged(
+                                new PrivilegedExceptionAction<Class<?>>() {
+                            @Override
+                            public Class<?> run() throws ClassNotFoundException {
+                                return JNLPClassLoader.super.findClass(fName);
+                            }
+                        }, getAccessControlContextForClassLoading());
+                    }
                 } else {
                     return loader.findClass(name);
                 }
@@ -1696,7 +2013,7 @@ public class JNLPClassLoader extends URLClassLoader {
             JNLPClassLoader addedTo = null;
 
             try {
-                addedTo = addNextResource();
+                addedTo = addResourceContaining(name.replace('.', '/') + ".class", name);
             } catch (LaunchException e) {
 
                 /*
@@ -1726,10 +2043,15 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     @Override
     public URL findResource(String name) {
+        final long stamp = getActivationStamp();
+        if (negativeLookupCache.isMissingResource(name, stamp)) {
+            return null;
+        }
+
         URL result = null;
 
         try {
-            Enumeration<URL> e = findResources(name);
+            Enumeration<URL> e = findResourcesLoadingLazyJars(name);
             if (e.hasMoreElements()) {
                 result = e.nextElement();
             }
@@ -1742,6 +2064,9 @@ public class JNLPClassLoader extends URLClassLoader {
             result = codeBaseLoader.findResource(name);
         }
 
+        if (result == null) {
+            negativeLookupCache.addMissingResource(name, stamp);
+        }
         return result;
     }
 
@@ -1751,11 +2076,24 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     @Override
     public Enumeration<URL> findResources(String name) throws IOException {
+        final long stamp = getActivationStamp();
+        if (negativeLookupCache.isMissingResource(name, stamp)) {
+            return Collections.emptyEnumeration();
+        }
+
+        final Enumeration<URL> lresources = findResourcesLoadingLazyJars(name);
+        if (!lresources.hasMoreElements()) {
+            negativeLookupCache.addMissingResource(name, stamp);
+        }
+        return lresources;
+    }
+
+    private Enumeration<URL> findResourcesLoadingLazyJars(String name) throws IOException {
         Enumeration<URL> lresources = findResourcesBySearching(name);
 
         try {
-            // if not found, load all lazy resources; repeat search
-            while (!lresources.hasMoreElements() && addNextResource() != null) {
+            // if not found, load the lazy resources which can contain it; repeat search
+            while (!lresources.hasMoreElements() && addResourceContaining(name, null) != null) {
                 lresources = findResourcesBySearching(name);
             }
         } catch (LaunchException le) {
@@ -1866,9 +2204,13 @@ public class JNLPClassLoader extends URLClassLoader {
             return null;
         }
 
-        // add jar
+        // add jar, another thread may have taken the last one meanwhile
+        Iterator<JARDesc> next = available.iterator();
+        if (!next.hasNext()) {
+            return null;
+        }
         List<JARDesc> jars = new ArrayList<>();
-        jars.add(available.get(0));
+        jars.add(next.next());
 
         fillInPartJars(jars);
         checkForMain(jars);
@@ -1877,6 +2219,125 @@ public class JNLPClassLoader extends URLClassLoader {
         return this;
     }
 
+    /**
+     * Adds the next unused resource which can contain the given class or
+     * resource to the classloader, together with all those in the same part.
+     * Unlike {@link #addNextResource()}, jars which are known not to contain
+     * it are not downloaded or activated.
+     *
+     * @param entryName the name of the class file or resource in a jar
+     * @param className the name of the class, or null for a resource
+     * @return the classloader that resources were added to, or null if no
+     * unused resource can contain it
+     * @throws LaunchException Thrown if the signed JNLP file, within the main
+     * jar, fails to be verified or does not match
+     */
+    protected JNLPClassLoader addResourceContaining(String entryName, String className) throws LaunchException {
+        final JARDesc jar = findAvailableJar(entryName, className);
+        if (jar == null) {
+            for (int i = 1; i < loaders.length; i++) {
+                JNLPClassLoader result = loaders[i].addResourceContaining(entryName, className);
+
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+
+        List<JARDesc> jars = new ArrayList<>();
+        jars.add(jar);
+
+        fillInPartJars(jars);
+        checkForMain(jars);
+        activateJars(jars);
+
+        return this;
+    }
+
+    /**
+     * Looks for the unused jar owning a class or resource. The package
+     * elements of the JNLP file, the INDEX.LIST of the active jars and the
+     * package indexes of the cached jars are consulted in this order. The
+     * index of a cached jar is only trusted if the jar is up to date under
+     * its update policy, a newer jar on the server may contain more packages.
+     *
+     * @param entryName the name of the class file or resource in a jar
+     * @param className the name of the class, or null for a resource
+     * @return the owning jar, the first jar whose content is not known yet,
+     * or null if no unused jar can contain it
+     */
+    private JARDesc findAvailableJar(final String entryName, final String className) {
+        final List<JARDesc> candidates = new ArrayList<>(available);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        if (className != null) {
+            for (PackageDesc packageDesc : resources.getPackages(className)) {
+                for (JARDesc jar : candidates) {
+                    if (packageDesc.getPart() != null && packageDesc.getPart().equals(jar.getPart())) {
+                        return jar;
+                    }
+                }
+            }
+        }
+
+        for (JarIndexAccess index : jarIndexes) {
+            final List<String> jarNames = index.get(entryName);
+            if (jarNames == null) {
+                continue;
+            }
+            for (String jarName : jarNames) {
+                for (JARDesc jar : candidates) {
+                    if (jar.getLocation().getPath().endsWith("/" + jarName)) {
+                        return jar;
+                    }
+                }
+            }
+        }
+
+        JARDesc unknown = null;
+        for (JARDesc jar : candidates) {
+            final JarPackageIndex index = getAvailableJarIndex(jar);
+            if (index == null) {
+                if (unknown == null) {
+                    unknown = jar;
+                }
+            } else if (index.mayContain(entryName)) {
+                return jar;
+            }
+        }
+        if (unknown == null) {
+            LOG.debug("No lazy jar can contain {}", entryName);
+        }
+        return unknown;
+    }
+
+    /**
+     * @return the package index of the cached jar, or null if it is not cached
+     * or not up to date yet
+     */
+    private JarPackageIndex getAvailableJarIndex(final JARDesc jar) {
+        final JarPackageIndex known = availableJarIndexes.get(jar.getLocation());
+        if (known != null) {
+            return known;
+        }
+        if (!tracker.isUpToDate(jar.getLocation())) {
+            return null;
+        }
+        final JarPackageIndex index = AccessController.doPrivileged(new PrivilegedAction<JarPackageIndex>() {
+            @Override
+            public JarPackageIndex run() {
+                return JarPackageIndex.get(jar.getLocation(), jar.getVersion());
+            }
+        });
+        if (index != null) {
+            availableJarIndexes.put(jar.getLocation(), index);
+        }
+        return index;
+    }
+
     // this part compatibility with previous classloader
     /**
      * @return title if available. Substitutions if not.
@@ -1950,19 +2411,16 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     protected SecurityDesc getCodeSourceSecurity(URL source) {
         SecurityDesc sec = jarLocationSecurityMap.get(source);
-        synchronized (alreadyTried) {
-            if (sec == null && !alreadyTried.contains(source)) {
-                alreadyTried.add(source);
-                //try to load the jar which is requesting the permissions, but was NOT downloaded by standard way
-                LOG.info("Application is trying to get permissions for {}, which was not added by standard way. Trying to download and verify!", source.toString());
-                try {
-                    JARDesc des = new JARDesc(source, null, null, false, false, false, false);
-                    addNewJar(des);
-                    sec = jarLocationSecurityMap.get(source);
-                } catch (Throwable t) {
-                    LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, t);
-                    sec = null;
-                }
+        if (sec == null && alreadyTried.add(source)) {
+            //try to load the jar which is requesting the permissions, but was NOT downloaded by standard way
+            LOG.info("Application is trying to get permissions for {}, which was not added by standard way. Trying to download and verify!", source.toString());
+            try {
+                JARDesc des = new JARDesc(source, null, null, false, false, false, false);
+                addNewJar(des);
+                sec = jarLocationSecurityMap.get(source);
+            } catch (Throwable t) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, t);
+                sec = null;
             }
         }
         if (sec == null) {
@@ -2004,6 +2462,7 @@ public class JNLPClassLoader extends URLClassLoader {
                 jarLocationSecurityMap.put(key, extLoader.jarLocationSecurityMap.get(key));
             }
         }
+        invalidatePermissions();
     }
 
     /**
@@ -2029,6 +2488,41 @@ public class JNLPClassLoader extends URLClassLoader {
         } else {
             codeBaseLoader.addURL(u);
         }
+        activations.incrementAndGet();
+        invalidatePermissions();
+    }
+
+    /**
+     * Adds a jar to the class path, which outdates all remembered misses.
+     */
+    @Override
+    protected void addURL(URL url) {
+        super.addURL(url);
+        activations.incrementAndGet();
+    }
+
+    /**
+     * Returns a number which grows whenever a jar or codebase url is added to
+     * this loader or one of its extension loaders. A class or resource not
+     * found is missing as long as the stamp does not change.
+     *
+     * @return the activation stamp of this loader and its extension loaders
+     */
+    long getActivationStamp() {
+        long stamp = activations.get();
+        if (loaders != null) {
+            for (int i = 1; i < loaders.length; i++) {
+                stamp += loaders[i].getActivationStamp();
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * @return the cache of the classes and resources which were not found
+     */
+    public NegativeLookupCache getNegativeLookupCache() {
+        return negativeLookupCache;
     }
 
 
@@ -2186,6 +2680,9 @@ public class JNLPClassLoader extends URLClassLoader {
      *
      * Given protected access since CodeBaseClassloader uses this function too.
      *
+     * The restricted context is built once and reused for every class, until
+     * {@link #invalidatePermissions()} is called.
+     *
      * @return The appropriate AccessControlContext for loading classes for this
      * instance
      */
@@ -2199,6 +2696,33 @@ public class JNLPClassLoader extends URLClassLoader {
             // continue below
         }
 
+        AccessControlContext cached = classLoadingContext;
+        if (cached == null) {
+            final long generation = permissionsGeneration.get();
+            cached = createAccessControlContextForClassLoading();
+            synchronized (permissionsGeneration) {
+                if (generation == permissionsGeneration.get()) {
+                    classLoadingContext = cached;
+                }
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Drops the cached permissions and context for loading classes. Must be
+     * called whenever the security, the cached jar permissions, the jar
+     * locations, the codebase urls or the runtime permissions change.
+     */
+    private void invalidatePermissions() {
+        synchronized (permissionsGeneration) {
+            permissionsGeneration.incrementAndGet();
+            classLoadingContext = null;
+            permissionsCache.clear();
+        }
+    }
+
+    private AccessControlContext createAccessControlContextForClassLoading() {
         // Since this is for class-loading, technically any class from one jar
         // should be able to access a class from another, therefore making the
         // original context code source irrelevant
@@ -2459,6 +2983,11 @@ public class JNLPClassLoader extends URLClassLoader {
      */
     public static class CodeBaseClassLoader extends URLClassLoader {
 
+        static {
+            // classes are defined under a lock per class name, see findClassNonRecursive(String)
+            ClassLoader.registerAsParallelCapable();
+        }
+
         JNLPClassLoader parentJNLPClassLoader;
 
         /**
@@ -2485,21 +3014,28 @@ public class JNLPClassLoader extends URLClassLoader {
                 throw new ClassNotFoundException(name);
             }
 
-            try {
-                return AccessController.doPrivileged(
-                        new PrivilegedExceptionAction<Class<?>>() {
-                    public Class<?> run() throws ClassNotFoundException {
-                        Class<?> c = CodeBaseClassLoader.super.findClass(name);
-                        parentJNLPClassLoader.checkPartialSigningWithUser();
-                        return c;
-                    }
-                }, parentJNLPClassLoader.getAccessControlContextForClassLoading());
-            } catch (PrivilegedActionException pae) {
-                notFoundResources.put(name, super.getURLs());
-                throw new ClassNotFoundException("Could not find class " + name, pae);
-            } catch (NullJnlpFileException njf) {
-                notFoundResources.put(name, super.getURLs());
-                throw new ClassNotFoundException("Could not find class " + name, njf);
+            synchronized (getClassLoadingLock(name)) {
+                // another thread may have defined it meanwhile
+                final Class<?> loaded = findLoadedClass(name);
+                if (loaded != null) {
+                    return loaded;
+                }
+                try {
+                    return AccessController.doPrivileged(
+                            new PrivilegedExceptionAction<Class<?>>() {
+                        public Class<?> run() throws ClassNotFoundException {
+                            Class<?> c = CodeBaseClassLoader.super.findClass(name);
+                            parentJNLPClassLoader.checkPartialSigningWithUser();
+                            return c;
+                        }
+                    }, parentJNLPClassLoader.getAccessControlContextForClassLoading());
+                } catch (PrivilegedActionException pae) {
+                    notFoundResources.put(name, super.getURLs());
+                    throw new ClassNotFoundException("Could not find class " + name, pae);
+                } catch (NullJnlpFileException njf) {
+                    notFoundResources.put(name, super.getURLs());
+                    throw new ClassNotFoundException("Could not find class " + name, njf);
+                }
             }
         }
 
@@ -36,6 +36,9 @@ import java.security.Policy;
 import java.security.ProtectionDomain;
 import java.security.URIParameter;
 import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static net.adoptopenjdk.icedteaweb.JvmPropertyConstants.JAVA_HOME;
 
@@ -70,6 +73,36 @@ public class JNLPPolicy extends Policy {
     /** the user-level policy for jnlps */
     private Policy userJnlpPolicy = null;
 
+    /** the read-only permissions of application code sources */
+    private final Map<CodeSource, CachedPermissions> permissionsCache = new ConcurrentHashMap<>();
+
+    /** counts the refreshes of the policy, which outdate the cached permissions */
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * Permissions of a code source, valid as long as the class loader and the
+     * policy did not change since they were computed.
+     */
+    private static class CachedPermissions {
+        private final JNLPClassLoader classLoader;
+        private final long classLoaderGeneration;
+        private final long policyGeneration;
+        private final PermissionCollection permissions;
+
+        private CachedPermissions(JNLPClassLoader classLoader, long classLoaderGeneration, long policyGeneration, PermissionCollection permissions) {
+            this.classLoader = classLoader;
+            this.classLoaderGeneration = classLoaderGeneration;
+            this.policyGeneration = policyGeneration;
+            this.permissions = permissions;
+        }
+
+        private boolean isValid(JNLPClassLoader currentClassLoader, long currentPolicyGeneration) {
+            return classLoader == currentClassLoader
+                    && classLoaderGeneration == currentClassLoader.getPermissionsGeneration()
+                    && policyGeneration == currentPolicyGeneration;
+        }
+    }
+
     protected JNLPPolicy() {
         shellSource = JNLPPolicy.class.getProtectionDomain().getCodeSource();
         systemSource = Policy.class.getProtectionDomain().getCodeSource();
@@ -87,6 +120,17 @@ public class JNLPPolicy extends Policy {
      * for the source.
      */
     public PermissionCollection getPermissions(CodeSource source) {
+        final PermissionCollection permissions = getSharedPermissions(source);
+        if (permissions.isReadOnly()) {
+            return copyOf(permissions);
+        }
+        return permissions;
+    }
+
+    /**
+     * Returns the permissions for the source, which may be shared and read-only.
+     */
+    private PermissionCollection getSharedPermissions(CodeSource source) {
         if (source.equals(systemSource) || source.equals(shellSource))
             return getAllPermissions();
 
@@ -100,7 +144,14 @@ public class JNLPPolicy extends Policy {
             if (JNLPRuntime.getApplication().getClassLoader() instanceof JNLPClassLoader) {
                 JNLPClassLoader cl = (JNLPClassLoader) JNLPRuntime.getApplication().getClassLoader();
 
-                PermissionCollection clPermissions = cl.getPermissions(source);
+                final long policyGeneration = refreshes.get();
+                final CachedPermissions cached = permissionsCache.get(source);
+                if (cached != null && cached.isValid(cl, policyGeneration)) {
+                    return cached.permissions;
+                }
+                final long classLoaderGeneration = cl.getPermissionsGeneration();
+
+                PermissionCollection clPermissions = copyOf(cl.getPermissions(source));
 
                 Enumeration<Permission> e;
                 CodeSource appletCS = new CodeSource(JNLPRuntime.getApplication().getJNLPFile().getSourceLocation(), (java.security.cert.Certificate[]) null);
@@ -133,6 +184,8 @@ public class JNLPPolicy extends Policy {
                     }
                 }
 
+                clPermissions.setReadOnly();
+                permissionsCache.put(source, new CachedPermissions(cl, classLoaderGeneration, policyGeneration, clPermissions));
                 return clPermissions;
             }
         }
@@ -148,6 +201,20 @@ public class JNLPPolicy extends Policy {
         if (userJnlpPolicy != null) {
             userJnlpPolicy.refresh();
         }
+        refreshes.incrementAndGet();
+        permissionsCache.clear();
+    }
+
+    /**
+     * Return a mutable copy of the permissions.
+     */
+    private static Permissions copyOf(PermissionCollection permissions) {
+        Permissions result = new Permissions();
+        Enumeration<Permission> e = permissions.elements();
+        while (e.hasMoreElements()) {
+            result.add(e.nextElement());
+        }
+        return result;
     }
 
     /**
@@ -217,7 +284,7 @@ public class JNLPPolicy extends Policy {
 
     public boolean implies(ProtectionDomain domain, Permission permission) {
         //Include the permissions that may be added during runtime.
-        PermissionCollection pc = getPermissions(domain.getCodeSource());
+        PermissionCollection pc = getSharedPermissions(domain.getCodeSource());
         return super.implies(domain, permission) || pc.implies(permission);
     }
 }
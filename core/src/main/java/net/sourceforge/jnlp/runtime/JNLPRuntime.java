@@ -29,6 +29,7 @@ import net.sourceforge.jnlp.LaunchHandler;
 import net.sourceforge.jnlp.Launcher;
 import net.sourceforge.jnlp.browser.BrowserAwareProxySelector;
 import net.sourceforge.jnlp.cache.CacheUtil;
+import net.sourceforge.jnlp.cache.CachedDaemonThreadPoolProvider;
 import net.sourceforge.jnlp.cache.UpdatePolicy;
 import net.sourceforge.jnlp.config.ConfigurationConstants;
 import net.sourceforge.jnlp.config.DeploymentConfiguration;
@@ -58,9 +59,9 @@ import java.awt.EventQueue;
 import java.awt.GraphicsEnvironment;
 import java.awt.HeadlessException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.Authenticator;
@@ -75,8 +76,15 @@ import java.security.KeyStore;
 import java.security.Policy;
 import java.security.Security;
 import java.text.DateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static net.adoptopenjdk.icedteaweb.JvmPropertyConstants.AWT_HEADLESS;
 import static net.adoptopenjdk.icedteaweb.JvmPropertyConstants.FILE_SEPARATOR;
@@ -123,6 +131,9 @@ public class JNLPRuntime {
     /** handles all security message to show appropriate security dialogs */
     private static SecurityDialogMessageHandler securityDialogMessageHandler;
 
+    /** time in ms each phase of the initialization took */
+    private static final Map<String, Long> initializationTimes = new ConcurrentHashMap<>();
+
     /** a default launch handler */
     private static LaunchHandler handler = null;
 
@@ -225,26 +236,42 @@ public class JNLPRuntime {
      */
     public static void initialize(boolean isApplication) throws IllegalStateException {
         checkInitialized();
+        final long start = System.nanoTime();
+
+        runPhase("configuration", () -> {
+            /* exit if there is a fatal exception loading the configuration */
+            if (getConfiguration().getLoadingException() != null) {
+                if (getConfiguration().getLoadingException() instanceof ConfigurationException){
+                    // ConfigurationException is thrown only if deployment.config's field
+                    // deployment.system.config.mandatory is true, and the destination
+                    //where deployment.system.config points is not readable
+                    throw new RuntimeException(getConfiguration().getLoadingException());
+                }
+                LOG.warn(R("RConfigurationError")+": "+getConfiguration().getLoadingException().getMessage());
+            }
+        });
 
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (final Exception e) {
-            LOG.error("Unable to set system look and feel", e);
-        }
+        // the following phases only need the configuration, they run while the main thread prepares the rest
+        final CompletableFuture<JNLPPolicy> policyFuture = startPhase("policy", JNLPPolicy::new);
+        // the SSL setup with its key stores is done by the first https connection
+        HttpsURLConnection.setDefaultSSLSocketFactory(new DeferredSSLSocketFactory(timed("ssl", JNLPRuntime::createSSLSocketFactory)));
+        final CompletableFuture<BrowserAwareProxySelector> proxyFuture = startPhase("proxy", () -> {
+            BrowserAwareProxySelector proxySelector = new BrowserAwareProxySelector(getConfiguration());
+            proxySelector.initialize();
+            return proxySelector;
+        });
 
-        if (JavaConsole.canShowOnStartup(isApplication)) {
-            JavaConsole.getConsole().showConsoleLater();
-        }
-        /* exit if there is a fatal exception loading the configuration */
-        if (getConfiguration().getLoadingException() != null) {
-            if (getConfiguration().getLoadingException() instanceof ConfigurationException){
-                // ConfigurationException is thrown only if deployment.config's field
-                // deployment.system.config.mandatory is true, and the destination
-                //where deployment.system.config points is not readable
-                throw new RuntimeException(getConfiguration().getLoadingException());
+        runPhase("look and feel", () -> {
+            try {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            } catch (final Exception e) {
+                LOG.error("Unable to set system look and feel", e);
             }
-            LOG.warn(R("RConfigurationError")+": "+getConfiguration().getLoadingException().getMessage());
-        }
+
+            if (JavaConsole.canShowOnStartup(isApplication)) {
+                JavaConsole.getConsole().showConsoleLater();
+            }
+        });
 
         isWebstartApplication = isApplication;
 
@@ -253,52 +280,38 @@ public class JNLPRuntime {
         System.setProperty("javawebstart.version", "javaws-" +
                 System.getProperty(JAVA_VERSION));
 
-        if (!isHeadless() && indicator == null)
-            indicator = new DefaultDownloadIndicator();
+        runPhase("indicator", () -> {
+            if (!isHeadless() && indicator == null)
+                indicator = new DefaultDownloadIndicator();
 
-        if (handler == null) {
-            if (isHeadless()) {
-                handler = new DefaultLaunchHandler(OutputController.getLogger());
-            } else {
-                handler = new GuiLaunchHandler(OutputController.getLogger());
+            if (handler == null) {
+                if (isHeadless()) {
+                    handler = new DefaultLaunchHandler(OutputController.getLogger());
+                } else {
+                    handler = new GuiLaunchHandler(OutputController.getLogger());
+                }
             }
-        }
+        });
 
         ServiceManager.setServiceManagerStub(new XServiceManagerStub()); // ignored if we're running under Web Start
 
-        policy = new JNLPPolicy();
-        security = new JNLPSecurityManager(); // side effect: create JWindow
+        policy = awaitPhase(policyFuture);
+        runPhase("security manager", () -> {
+            security = new JNLPSecurityManager(); // side effect: create JWindow
 
-        doMainAppContextHacks();
+            doMainAppContextHacks();
 
-        if (securityEnabled) {
-            Policy.setPolicy(policy); // do first b/c our SM blocks setPolicy
-            System.setSecurityManager(security);
-        }
-
-        securityDialogMessageHandler = startSecurityThreads();
-
-        // wire in custom authenticator for SSL connections
-        try {
-            SSLSocketFactory sslSocketFactory;
-            SSLContext context = SSLContext.getInstance("SSL");
-            KeyStore ks = KeyStores.getKeyStore(KeyStores.Level.USER, KeyStores.Type.CLIENT_CERTS).getKs();
-            KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
-            SecurityUtil.initKeyManagerFactory(kmf, ks);
-            TrustManager[] trust = new TrustManager[] { getSSLSocketTrustManager() };
-            context.init(kmf.getKeyManagers(), trust, null);
-            sslSocketFactory = context.getSocketFactory();
+            if (securityEnabled) {
+                Policy.setPolicy(policy); // do first b/c our SM blocks setPolicy
+                System.setSecurityManager(security);
+            }
 
-            HttpsURLConnection.setDefaultSSLSocketFactory(sslSocketFactory);
-        } catch (Exception e) {
-            LOG.error("Unable to set SSLSocketfactory (may _prevent_ access to sites that should be trusted)! Continuing anyway...", e);
-        }
+            securityDialogMessageHandler = startSecurityThreads();
+        });
 
         // plug in a custom authenticator and proxy selector
         Authenticator.setDefault(new JNLPAuthenticator());
-        BrowserAwareProxySelector proxySelector = new BrowserAwareProxySelector(getConfiguration());
-        proxySelector.initialize();
-        ProxySelector.setDefault(proxySelector);
+        ProxySelector.setDefault(awaitPhase(proxyFuture));
 
         // Restrict access to netx classes
         Security.setProperty("package.access", 
@@ -308,6 +321,83 @@ public class JNLPRuntime {
 
         initialized = true;
 
+        final long end = System.nanoTime();
+        LaunchTimeline.record("initialize", start, end);
+        LOG.info("JNLPRuntime initialized in {} ms, phases in ms: {}", TimeUnit.NANOSECONDS.toMillis(end - start), initializationTimes);
+    }
+
+    /**
+     * @return the time in ms each phase of {@link #initialize(boolean)} took so far, phases
+     * running in the background are added when they complete
+     */
+    public static Map<String, Long> getInitializationTimes() {
+        return Collections.unmodifiableMap(initializationTimes);
+    }
+
+    private static void runPhase(final String phase, final Runnable task) {
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            phaseCompleted(phase, start);
+        }
+    }
+
+    private static <T> CompletableFuture<T> startPhase(final String phase, final Supplier<T> task) {
+        return CompletableFuture.supplyAsync(timed(phase, task), CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL);
+    }
+
+    private static <T> Supplier<T> timed(final String phase, final Supplier<T> task) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                return task.get();
+            } finally {
+                phaseCompleted(phase, start);
+            }
+        };
+    }
+
+    private static void phaseCompleted(final String phase, final long start) {
+        final long end = System.nanoTime();
+        LaunchTimeline.record("initialize." + phase, start, end);
+        final long time = TimeUnit.NANOSECONDS.toMillis(end - start);
+        initializationTimes.put(phase, time);
+        LOG.debug("Initialization phase {} took {} ms", phase, time);
+    }
+
+    private static <T> T awaitPhase(final CompletableFuture<T> phase) {
+        try {
+            return phase.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Wires in the custom authenticator for SSL connections.
+     *
+     * @return the socket factory, or null if the default one has to be used
+     */
+    private static SSLSocketFactory createSSLSocketFactory() {
+        try {
+            SSLContext context = SSLContext.getInstance("SSL");
+            KeyStore ks = KeyStores.getKeyStore(KeyStores.Level.USER, KeyStores.Type.CLIENT_CERTS).getKs();
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance("SunX509");
+            SecurityUtil.initKeyManagerFactory(kmf, ks);
+            TrustManager[] trust = new TrustManager[] { getSSLSocketTrustManager() };
+            context.init(kmf.getKeyManagers(), trust, null);
+            return context.getSocketFactory();
+        } catch (Exception e) {
+            LOG.error("Unable to set SSLSocketfactory (may _prevent_ access to sites that should be trusted)! Continuing anyway...", e);
+            return null;
+        }
     }
 
     public static void reloadPolicy() {
@@ -808,8 +898,9 @@ public class JNLPRuntime {
                 }
             }
 
-            FileInputStream is = new FileInputStream(netxRunningFile);
-            FileChannel channel = is.getChannel();
+            // writable, so runAsOnlyInstance can lock exclusively without a second channel, closing
+            // another channel of the file would release the locks of this process
+            FileChannel channel = new RandomAccessFile(netxRunningFile, "rw").getChannel();
             fileLock = channel.lock(0, 1, true);
             if (!fileLock.isShared()){ // We know shared locks aren't offered on this system.
                 FileLock temp = null;
@@ -840,7 +931,7 @@ public class JNLPRuntime {
      * Indicate that netx is stopped by releasing the shared lock on
      * {@link ConfigurationConstants#KEY_USER_NETX_RUNNING_FILE}.
      */
-    private static void markNetxStopped() {
+    private synchronized static void markNetxStopped() {
         if (fileLock == null) {
             return;
         }
@@ -854,6 +945,89 @@ public class JNLPRuntime {
         }
     }
 
+    /**
+     * Runs a task which must not run while other instances of javaws use the cache, like deleting
+     * cache entries another instance may still use. Instances starting meanwhile wait until the
+     * task is done.
+     * <p>
+     * Every instance holds a shared lock on the first byte of
+     * {@link ConfigurationConstants#KEY_USER_NETX_RUNNING_FILE}. This instance releases its own
+     * and tries to lock that byte exclusively. Meanwhile it holds an exclusive lock on the second
+     * byte, so the cache is not cleared and no other instance does the same at the same time.
+     * </p>
+     *
+     * @param task the task
+     * @return true if the task was run, false if other instances are running
+     */
+    public synchronized static boolean runAsOnlyInstance(final Runnable task) {
+        if (fileLock == null) {
+            // this JVM is not marked as running
+            return runIfUnlocked(task);
+        }
+        if (!fileLock.isShared()) {
+            // without shared locks the other instances can not be told apart from this one
+            return false;
+        }
+        final FileChannel channel = fileLock.channel();
+        FileLock testing = null;
+        FileLock exclusive = null;
+        try {
+            testing = channel.tryLock(1, 1, false);
+            if (testing == null) {
+                return false;
+            }
+            fileLock.release();
+            exclusive = channel.tryLock(0, 1, false);
+            if (exclusive == null) {
+                LOG.debug("Other instances of javaws are running");
+                return false;
+            }
+            task.run();
+            return true;
+        } catch (IOException e) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
+            return false;
+        } finally {
+            try {
+                if (exclusive != null) {
+                    exclusive.release();
+                }
+                if (!fileLock.isValid()) {
+                    fileLock = channel.lock(0, 1, true);
+                }
+                if (testing != null) {
+                    testing.release();
+                }
+            } catch (IOException e) {
+                LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
+            }
+        }
+    }
+
+    private static boolean runIfUnlocked(final Runnable task) {
+        final File netxRunningFile = PathsAndFiles.MAIN_LOCK.getFile();
+        if (!netxRunningFile.isFile()) {
+            task.run();
+            return true;
+        }
+        try (final FileChannel channel = new RandomAccessFile(netxRunningFile, "rw").getChannel()) {
+            final FileLock lock = channel.tryLock();
+            if (lock == null) {
+                LOG.debug("Other instances of javaws are running");
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
+            return false;
+        }
+    }
+
     public static void setHtml(boolean html) {
         JNLPRuntime.html = html;
     }
@@ -0,0 +1,366 @@
+package net.sourceforge.jnlp.runtime;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.commandline.CommandLineOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Records how long the phases of a launch take, from {@link Boot#main(String[])} to the invocation
+ * of the main method of the application.
+ * <p>
+ * Recording is always on and cheap, a phase is a name, an optional detail like the location of a
+ * jar, the thread and two {@link System#nanoTime()} values. The timeline is written only if asked
+ * for by {@link CommandLineOptions#TIMELINE} as JSON, or by {@link CommandLineOptions#TIMELINETRACE}
+ * as Chrome trace events, which chrome://tracing and Perfetto display. It is written when the main
+ * method is invoked and again when the JVM exits, so a failed launch has a timeline too.
+ * </p>
+ * <p>
+ * A launch which needs a JVM of its own passes the options on with {@code -newvm} added to the
+ * file names. Both files carry wall clock times, so their traces line up when merged.
+ * </p>
+ */
+public final class LaunchTimeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LaunchTimeline.class);
+
+    /** at most this many events are kept, so an application loading jars for days does not grow it */
+    private static final int MAX_EVENTS = 10000;
+
+    private static final String NEW_VM_SUFFIX = "-newvm";
+
+    private static final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger eventCount = new AtomicInteger();
+
+    private static volatile long originNanos = System.nanoTime();
+    private static volatile long originMillis = System.currentTimeMillis();
+
+    private static File jsonFile;
+    private static File traceFile;
+    private static boolean shutdownHookAdded;
+
+    private LaunchTimeline() {
+    }
+
+    /**
+     * A phase which is recorded when it is closed.
+     */
+    public static final class Phase implements AutoCloseable {
+        private final String name;
+        private final Object detail;
+        private final long start = System.nanoTime();
+
+        private Phase(final String name, final Object detail) {
+            this.name = name;
+            this.detail = detail;
+        }
+
+        @Override
+        public void close() {
+            record(name, detail, start, System.nanoTime(), false);
+        }
+    }
+
+    static final class Event {
+        final String name;
+        final String detail;
+        final String thread;
+        final long threadId;
+        final long start;
+        final long end;
+        final boolean instant;
+
+        private Event(final String name, final String detail, final long start, final long end, final boolean instant) {
+            this.name = name;
+            this.detail = detail;
+            this.thread = Thread.currentThread().getName();
+            this.threadId = Thread.currentThread().getId();
+            this.start = start;
+            this.end = end;
+            this.instant = instant;
+        }
+    }
+
+    /**
+     * Starts the timeline of a launch, events recorded before are dropped. In a warm JVM, see
+     * {@link WarmVmPool}, the launch starts when it is handed over.
+     */
+    public static void begin() {
+        events.clear();
+        eventCount.set(0);
+        originNanos = System.nanoTime();
+        originMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @param name the name of the phase
+     * @return the phase, which is recorded when closed
+     */
+    public static Phase start(final String name) {
+        return new Phase(name, null);
+    }
+
+    /**
+     * @param name   the name of the phase
+     * @param detail what the phase works on, like the location of a jar
+     * @return the phase, which is recorded when closed
+     */
+    public static Phase start(final String name, final Object detail) {
+        return new Phase(name, detail);
+    }
+
+    /**
+     * Records a point in time, like the first byte of a download.
+     *
+     * @param name   the name of the event
+     * @param detail what the event is about
+     */
+    public static void mark(final String name, final Object detail) {
+        final long now = System.nanoTime();
+        record(name, detail, now, now, true);
+    }
+
+    /**
+     * Records a phase which was timed by the caller.
+     *
+     * @param name  the name of the phase
+     * @param start the {@link System#nanoTime()} the phase started at
+     * @param end   the {@link System#nanoTime()} the phase ended at
+     */
+    static void record(final String name, final long start, final long end) {
+        record(name, null, start, end, false);
+    }
+
+    private static void record(final String name, final Object detail, final long start, final long end, final boolean instant) {
+        if (eventCount.incrementAndGet() > MAX_EVENTS) {
+            return;
+        }
+        events.add(new Event(name, detail == null ? null : detail.toString(), start, end, instant));
+    }
+
+    static List<Event> getEvents() {
+        final List<Event> result = new ArrayList<>(events);
+        result.sort(Comparator.comparingLong(e -> e.start));
+        return result;
+    }
+
+    /**
+     * Sets where the timeline is written to, and writes it when the JVM exits.
+     *
+     * @param json  the file for the JSON timeline, or null
+     * @param trace the file for the Chrome trace events, or null
+     */
+    public static synchronized void setOutput(final File json, final File trace) {
+        jsonFile = json;
+        traceFile = trace;
+        if (!shutdownHookAdded && (json != null || trace != null)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(LaunchTimeline::write, "launch-timeline"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    /**
+     * Writes the timeline recorded so far to the files set by {@link #setOutput(File, File)}, if any.
+     */
+    public static synchronized void write() {
+        if (jsonFile == null && traceFile == null) {
+            return;
+        }
+        final List<Event> recorded = getEvents();
+        try {
+            if (jsonFile != null) {
+                Files.write(jsonFile.toPath(), toJson(recorded).getBytes(UTF_8));
+            }
+            if (traceFile != null) {
+                Files.write(traceFile.toPath(), toTrace(recorded).getBytes(UTF_8));
+            }
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        }
+    }
+
+    /**
+     * @param args the javaws arguments of this JVM
+     * @return the arguments for a JVM the launch is passed on to, writing the timeline to files of its own
+     */
+    public static List<String> getNewVmArguments(final List<String> args) {
+        final List<String> result = new ArrayList<>(args);
+        for (int i = 0; i < result.size() - 1; i++) {
+            final String arg = result.get(i);
+            if (CommandLineOptions.TIMELINE.getOption().equals(arg) || CommandLineOptions.TIMELINETRACE.getOption().equals(arg)) {
+                result.set(i + 1, getNewVmFileName(result.get(i + 1)));
+            }
+        }
+        return result;
+    }
+
+    static String getNewVmFileName(final String file) {
+        final int separator = Math.max(file.lastIndexOf('/'), file.lastIndexOf(File.separatorChar));
+        final int dot = file.lastIndexOf('.');
+        if (dot <= separator + 1) {
+            return file + NEW_VM_SUFFIX;
+        }
+        return file.substring(0, dot) + NEW_VM_SUFFIX + file.substring(dot);
+    }
+
+    /**
+     * The JSON timeline: the wall clock time of the start in ms and the events, with their start
+     * relative to it and their duration in µs. A point in time has no duration.
+     */
+    static String toJson(final List<Event> recorded) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"origin\": ").append(originMillis).append(",\n");
+        sb.append("  \"unit\": \"us\",\n");
+        sb.append("  \"events\": [");
+        String separator = "\n";
+        for (final Event event : recorded) {
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("name", event.name);
+            if (event.detail != null) {
+                fields.put("detail", event.detail);
+            }
+            fields.put("thread", event.thread);
+            fields.put("start", toMicros(event.start - originNanos));
+            if (!event.instant) {
+                fields.put("duration", toMicros(event.end - event.start));
+            }
+            sb.append(separator).append("    ");
+            appendObject(sb, fields);
+            separator = ",\n";
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * The trace event format of Chrome, with the wall clock time of the events in µs.
+     */
+    static String toTrace(final List<Event> recorded) {
+        final long pid = getPid();
+        final long originMicros = TimeUnit.MILLISECONDS.toMicros(originMillis);
+        final Map<Long, String> threads = new LinkedHashMap<>();
+        final StringBuilder sb = new StringBuilder();
+        sb.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+        String separator = "\n";
+        for (final Event event : recorded) {
+            threads.putIfAbsent(event.threadId, event.thread);
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("name", event.name);
+            fields.put("cat", "launch");
+            fields.put("ph", event.instant ? "i" : "X");
+            fields.put("ts", originMicros + toMicros(event.start - originNanos));
+            if (event.instant) {
+                fields.put("s", "t");
+            } else {
+                fields.put("dur", toMicros(event.end - event.start));
+            }
+            fields.put("pid", pid);
+            fields.put("tid", event.threadId);
+            if (event.detail != null) {
+                final Map<String, Object> args = new LinkedHashMap<>();
+                args.put("detail", event.detail);
+                fields.put("args", args);
+            }
+            sb.append(separator);
+            appendObject(sb, fields);
+            separator = ",\n";
+        }
+        for (final Map.Entry<Long, String> thread : threads.entrySet()) {
+            final Map<String, Object> args = new LinkedHashMap<>();
+            args.put("name", thread.getValue());
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("name", "thread_name");
+            fields.put("ph", "M");
+            fields.put("pid", pid);
+            fields.put("tid", thread.getKey());
+            fields.put("args", args);
+            sb.append(separator);
+            appendObject(sb, fields);
+            separator = ",\n";
+        }
+        sb.append("\n]}\n");
+        return sb.toString();
+    }
+
+    private static long toMicros(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long getPid() {
+        // the name of the runtime is pid@host
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Long.parseLong(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException ex) {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendObject(final StringBuilder sb, final Map<String, Object> fields) {
+        sb.append('{');
+        String separator = "";
+        for (final Map.Entry<String, Object> field : fields.entrySet()) {
+            sb.append(separator);
+            appendString(sb, field.getKey());
+            sb.append(": ");
+            final Object value = field.getValue();
+            if (value instanceof Map) {
+                appendObject(sb, (Map<String, Object>) value);
+            } else if (value instanceof Number) {
+                sb.append(value);
+            } else {
+                appendString(sb, String.valueOf(value));
+            }
+            separator = ", ";
+        }
+        sb.append('}');
+    }
+
+    private static void appendString(final StringBuilder sb, final String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,120 @@
+package net.sourceforge.jnlp.runtime;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the classes and resources which a {@link JNLPClassLoader} did not find, so repeated
+ * lookups neither activate lazy jars nor ask the codebase again.
+ * <p>
+ * Every miss is recorded together with the activation stamp of the class loader hierarchy at the
+ * time the search started, see {@link JNLPClassLoader#getActivationStamp()}. As soon as a jar or
+ * codebase url is added anywhere in the hierarchy the stamp changes and all misses are forgotten.
+ * The number of remembered misses is bounded, the least recently used ones are dropped first.
+ * </p>
+ */
+public class NegativeLookupCache {
+
+    /** maximal number of remembered misses */
+    static final int MAX_ENTRIES = 4096;
+
+    private static final String CLASS_PREFIX = "class:";
+    private static final String RESOURCE_PREFIX = "resource:";
+
+    private final Map<String, Boolean> misses = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /** the activation stamp the remembered misses are valid for */
+    private long stamp = -1;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * @param name  name of the class
+     * @param stamp the current activation stamp
+     * @return true if the class is known to be missing
+     */
+    boolean isMissingClass(final String name, final long stamp) {
+        return isMissing(CLASS_PREFIX + name, stamp);
+    }
+
+    /**
+     * @param name  name of the resource
+     * @param stamp the current activation stamp
+     * @return true if the resource is known to be missing
+     */
+    boolean isMissingResource(final String name, final long stamp) {
+        return isMissing(RESOURCE_PREFIX + name, stamp);
+    }
+
+    /**
+     * @param name  name of the class which was not found
+     * @param stamp the activation stamp from before the search
+     */
+    void addMissingClass(final String name, final long stamp) {
+        addMissing(CLASS_PREFIX + name, stamp);
+    }
+
+    /**
+     * @param name  name of the resource which was not found
+     * @param stamp the activation stamp from before the search
+     */
+    void addMissingResource(final String name, final long stamp) {
+        addMissing(RESOURCE_PREFIX + name, stamp);
+    }
+
+    private boolean isMissing(final String key, final long currentStamp) {
+        lookups.incrementAndGet();
+        synchronized (misses) {
+            if (currentStamp != stamp) {
+                misses.clear();
+                stamp = currentStamp;
+                return false;
+            }
+            if (misses.get(key) == null) {
+                return false;
+            }
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    private void addMissing(final String key, final long searchStamp) {
+        synchronized (misses) {
+            if (searchStamp != stamp) {
+                // something was activated meanwhile, the search may be outdated
+                return;
+            }
+            misses.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return the number of remembered misses
+     */
+    public int size() {
+        synchronized (misses) {
+            return misses.size();
+        }
+    }
+
+    /**
+     * @return how often a lookup was answered from this cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return how often a lookup had to search the class loaders
+     */
+    public long getMisses() {
+        return lookups.get() - hits.get();
+    }
+}
@@ -0,0 +1,435 @@
+package net.sourceforge.jnlp.runtime;
+
+import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
+import net.adoptopenjdk.icedteaweb.commandline.CommandLineOptions;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.util.FileUtils;
+import net.sourceforge.jnlp.util.logging.OutputController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Pre-initialized JVMs for applications which need a JVM of their own, see
+ * {@link net.sourceforge.jnlp.JNLPFile#needsNewVM()}.
+ * <p>
+ * A warm JVM is started by javaws with {@link CommandLineOptions#WARMVM} and the JVM arguments of an
+ * application. It loads the configuration, the TLS setup and the classes needed by every launch,
+ * then waits on a loopback socket. The next launch needing the same JVM arguments hands its javaws
+ * arguments over instead of starting a new JVM, and a new warm JVM is started for the launch after.
+ * </p>
+ * <p>
+ * The warm JVMs are registered by the fingerprint of their JVM arguments in a directory only the
+ * user can access. A registration holds the port and a random token, which a launch has to send
+ * back. A launch claims a registration by deleting it, so a warm JVM is used only once. A warm JVM
+ * which is not claimed within {@link ConfigurationConstants#KEY_WARM_VM_IDLE} seconds exits.
+ * </p>
+ * <p>
+ * The output of the application is sent back over the connection and printed by the launch, so it
+ * ends up on the console of the user as if the application was started by the launch. Input is not
+ * passed on. Output written before the hand over and native output go to a log file of the warm JVM,
+ * which is removed when it exits.
+ * </p>
+ */
+public class WarmVmPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmVmPool.class);
+
+    private static final String WARM_VM_DIR = "warmvm";
+    private static final String REGISTRATION_SUFFIX = ".vm";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SPLASH_ENV = "ICEDTEA_WEB_SPLASH";
+    private static final String LOG_ENV = "ICEDTEA_WEB_WARMVM_LOG";
+    private static final int OUT = 1;
+    private static final int ERR = 2;
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+
+    /** keeps the connection to the launch open as long as this JVM runs */
+    private static Socket launch;
+
+    private final File directory;
+
+    WarmVmPool(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the pool of the current user
+     */
+    public static WarmVmPool getInstance() {
+        return new WarmVmPool(new File(PathsAndFiles.LOCKS_DIR.getFile(), WARM_VM_DIR));
+    }
+
+    /**
+     * @return true if applications needing their own JVM are launched in warm JVMs
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_WARM_VM_POOL));
+    }
+
+    /**
+     * @param javaws the javaws binary starting the JVMs
+     * @param vmArgs the arguments of the JVM
+     * @return the key of the JVMs which can run an application with these arguments
+     */
+    public static String fingerprint(final String javaws, final List<String> vmArgs) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(javaws.getBytes(UTF_8));
+            for (final String arg : vmArgs) {
+                digest.update((byte) 0);
+                digest.update(arg.getBytes(UTF_8));
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private File getRegistration(final String fingerprint) {
+        return new File(directory, fingerprint + REGISTRATION_SUFFIX);
+    }
+
+    /**
+     * Hands a launch over to a warm JVM.
+     *
+     * @param fingerprint the fingerprint of the JVM arguments of the application
+     * @param javawsArgs  the arguments the warm JVM runs javaws with
+     * @return the connection to the warm JVM, closed when it exits, or null if there is no warm JVM
+     */
+    public Socket handOver(final String fingerprint, final List<String> javawsArgs) {
+        final File registration = getRegistration(fingerprint);
+        final String[] portAndToken;
+        try {
+            portAndToken = new String(Files.readAllBytes(registration.toPath()), UTF_8).trim().split(" ");
+        } catch (IOException ex) {
+            return null;
+        }
+        if (!registration.delete() || portAndToken.length != 2) {
+            // claimed by another launch
+            return null;
+        }
+
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(portAndToken[0])), HANDSHAKE_TIMEOUT);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeUTF(portAndToken[1]);
+            out.writeInt(javawsArgs.size());
+            for (final String arg : javawsArgs) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            if (!new DataInputStream(socket.getInputStream()).readBoolean()) {
+                throw new IOException("Launch refused");
+            }
+            socket.setSoTimeout(0);
+            LOG.info("Launch handed over to warm JVM on port {}", portAndToken[0]);
+            return socket;
+        } catch (IOException | NumberFormatException ex) {
+            // the warm JVM exited meanwhile
+            LOG.debug("Warm JVM {} is not available: {}", fingerprint, ex.toString());
+            close(socket);
+            return null;
+        }
+    }
+
+    /**
+     * Prints the output of the application until the warm JVM running the launch exits.
+     *
+     * @param socket the connection returned by {@link #handOver(String, List)}
+     */
+    public static void waitForExit(final Socket socket) {
+        try (final InputStream in = socket.getInputStream()) {
+            copyOutput(in, System.out, System.err);
+        } catch (IOException ex) {
+            LOG.debug("Connection to warm JVM closed: {}", ex.toString());
+        } finally {
+            close(socket);
+        }
+    }
+
+    /**
+     * Copies the output sent by {@link ChannelOutputStream}s until the end of the input.
+     */
+    static void copyOutput(final InputStream input, final OutputStream out, final OutputStream err) throws IOException {
+        final DataInputStream in = new DataInputStream(input);
+        while (true) {
+            final int channel = in.read();
+            if (channel < 0) {
+                return;
+            }
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            final OutputStream target = channel == ERR ? err : out;
+            target.write(data);
+            target.flush();
+        }
+    }
+
+    /**
+     * Starts a warm JVM for the next launch, unless one is already registered.
+     *
+     * @param javaws      the javaws binary
+     * @param vmArgs      the arguments of the JVM
+     * @param fingerprint the fingerprint of the arguments
+     */
+    public void refill(final String javaws, final List<String> vmArgs, final String fingerprint) {
+        if (getRegistration(fingerprint).exists()) {
+            return;
+        }
+        final List<String> command = new ArrayList<>();
+        command.add(javaws);
+        for (final String arg : vmArgs) {
+            command.add("-J" + arg);
+        }
+        command.add(CommandLineOptions.WARMVM.getOption());
+        command.add(fingerprint);
+        try {
+            createDirectory();
+            // a log of its own, the JVM which was handed over the last launch may still write to its log
+            final File log = File.createTempFile(fingerprint, LOG_SUFFIX, directory);
+            final ProcessBuilder pb = new ProcessBuilder(command);
+            pb.environment().put(SPLASH_ENV, Boolean.FALSE.toString());
+            pb.environment().put(LOG_ENV, log.getAbsolutePath());
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(log);
+            pb.start();
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        }
+    }
+
+    /**
+     * Prepares this JVM and waits for a launch.
+     *
+     * @param fingerprint the fingerprint of the arguments this JVM was started with
+     * @return the javaws arguments of the launch, or null if no launch came in time
+     */
+    public String[] await(final String fingerprint) {
+        long idle;
+        try {
+            idle = TimeUnit.SECONDS.toMillis(Long.parseLong(JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_WARM_VM_IDLE)));
+        } catch (NumberFormatException ex) {
+            idle = TimeUnit.MINUTES.toMillis(10);
+        }
+        final String log = System.getenv(LOG_ENV);
+        if (log != null) {
+            new File(log).deleteOnExit();
+        }
+        warmUp();
+        try {
+            final String[] args = await(fingerprint, idle);
+            if (args != null) {
+                redirectOutput(launch);
+            }
+            return args;
+        } catch (IOException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+            return null;
+        }
+    }
+
+    String[] await(final String fingerprint, final long idle) throws IOException {
+        final byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder token = new StringBuilder();
+        for (final byte b : random) {
+            token.append(String.format("%02x", b));
+        }
+
+        try (final ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final String registered = server.getLocalPort() + " " + token;
+            if (!register(fingerprint, registered)) {
+                LOG.debug("Warm JVM {} is already registered", fingerprint);
+                return null;
+            }
+            server.setSoTimeout((int) Math.min(idle, Integer.MAX_VALUE));
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketTimeoutException ex) {
+                    unregister(fingerprint, registered);
+                    LOG.debug("Warm JVM {} was not used in time", fingerprint);
+                    return null;
+                }
+                final String[] args = readLaunch(socket, token.toString());
+                if (args != null) {
+                    unregister(fingerprint, registered);
+                    launch = socket;
+                    return args;
+                }
+                close(socket);
+            }
+        }
+    }
+
+    /**
+     * Sends the output of this JVM to the launch.
+     */
+    private static void redirectOutput(final Socket socket) throws IOException {
+        final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        final PrintStream stdout = new PrintStream(new ChannelOutputStream(out, OUT), true);
+        final PrintStream stderr = new PrintStream(new ChannelOutputStream(out, ERR), true);
+        System.setOut(stdout);
+        System.setErr(stderr);
+        OutputController.getLogger().setOut(stdout);
+        OutputController.getLogger().setErr(stderr);
+    }
+
+    /**
+     * Writes to one channel of the connection to the launch, each write is sent as the channel,
+     * the length and the bytes.
+     */
+    static class ChannelOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final int channel;
+        private boolean closed;
+
+        ChannelOutputStream(final DataOutputStream out, final int channel) {
+            this.out = out;
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    out.write(channel);
+                    out.writeInt(len);
+                    out.write(b, off, len);
+                    out.flush();
+                } catch (IOException ex) {
+                    // the launch is gone, the application keeps running without output
+                    closed = true;
+                }
+            }
+        }
+    }
+
+    private static String[] readLaunch(final Socket socket, final String token) {
+        try {
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+            final DataInputStream in = new DataInputStream(socket.getInputStream());
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            if (!token.equals(in.readUTF())) {
+                out.writeBoolean(false);
+                return null;
+            }
+            final String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+            out.writeBoolean(true);
+            out.flush();
+            return args;
+        } catch (IOException ex) {
+            LOG.debug("Invalid launch: {}", ex.toString());
+            return null;
+        }
+    }
+
+    private boolean register(final String fingerprint, final String registered) throws IOException {
+        createDirectory();
+        final File temp = File.createTempFile(fingerprint + REGISTRATION_SUFFIX, null, directory);
+        try {
+            Files.write(temp.toPath(), registered.getBytes(UTF_8));
+            Files.move(temp.toPath(), getRegistration(fingerprint).toPath());
+            return true;
+        } catch (FileAlreadyExistsException ex) {
+            return false;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private void unregister(final String fingerprint, final String registered) {
+        final File registration = getRegistration(fingerprint);
+        try {
+            // a launch may have claimed it and another warm JVM registered meanwhile
+            if (registered.equals(new String(Files.readAllBytes(registration.toPath()), UTF_8))) {
+                Files.deleteIfExists(registration.toPath());
+            }
+        } catch (IOException ex) {
+            LOG.debug("Registration {} already removed: {}", registration, ex.toString());
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (!directory.isDirectory()) {
+            FileUtils.createParentDir(directory);
+            FileUtils.createRestrictedDirectory(directory);
+        }
+    }
+
+    /**
+     * Does the work every launch does before the application is known.
+     */
+    private static void warmUp() {
+        JNLPRuntime.getConfiguration();
+        try {
+            SSLContext.getDefault();
+            final ClassLoader loader = WarmVmPool.class.getClassLoader();
+            for (final String name : new String[]{
+                    "net.sourceforge.jnlp.JNLPFile",
+                    "net.sourceforge.jnlp.Parser",
+                    "net.sourceforge.jnlp.Launcher",
+                    "net.sourceforge.jnlp.cache.ResourceTracker",
+                    "net.sourceforge.jnlp.runtime.JNLPClassLoader",
+                    "net.sourceforge.jnlp.tools.JarCertVerifier"}) {
+                Class.forName(name, false, loader);
+            }
+        } catch (NoSuchAlgorithmException | ClassNotFoundException ex) {
+            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, ex);
+        }
+    }
+
+    private static void close(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            LOG.debug("Could not close {}: {}", socket, ex.toString());
+        }
+    }
+}
@@ -57,6 +57,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@code KeyStores} class allows easily accessing the various KeyStores
@@ -103,6 +104,28 @@ public final class KeyStores {
 
     private static final String KEYSTORE_TYPE = "JKS";
 
+    /**
+     * A key store loaded from a file, valid as long as the file has the same modification time and length.
+     */
+    private static class CachedKeyStore {
+        private final KeyStore ks;
+        private final long lastModified;
+        private final long length;
+
+        private CachedKeyStore(KeyStore ks, long lastModified, long length) {
+            this.ks = ks;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private boolean isValid(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+
+    /** the key stores read by the trust checks, by path */
+    private static final Map<String, CachedKeyStore> cachedKeyStores = new ConcurrentHashMap<>();
+
     /**
      * Returns a KeyStore corresponding to the appropriate level level (user or
      * system) and type.
@@ -151,6 +174,42 @@ public final class KeyStores {
         return new KeyStoreWithPath(ks, location);
     }
 
+    /**
+     * Returns the key store of the given level and type as loaded before, unless its file changed
+     * meanwhile. Reading and decrypting a key store is expensive, while trust checks need the same
+     * key stores again and again.
+     *
+     * @param level whether the KeyStore desired is a user-level or system-level
+     * KeyStore
+     * @param type the type of KeyStore desired
+     * @return the shared key store, which must not be modified, or null if it could not be loaded
+     */
+    private static KeyStore getCachedKeyStore(Level level, Type type) {
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkPermission(new AllPermission());
+        }
+
+        final File file = getKeyStoreLocation(level, type).getFile();
+        final CachedKeyStore cached = cachedKeyStores.get(file.getPath());
+        if (cached != null && cached.isValid(file)) {
+            return cached.ks;
+        }
+        // taken before loading, so a change while loading is noticed by the next call
+        long lastModified = file.lastModified();
+        long length = file.length();
+        final KeyStore ks = getKeyStore(level, type).getKs();
+        if (lastModified == 0L) {
+            // a missing key store is created empty while loading
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+        if (ks != null) {
+            cachedKeyStores.put(file.getPath(), new CachedKeyStore(ks, lastModified, length));
+        }
+        return ks;
+    }
+
     public static String getPathToKeystore(int k) {
         String s = keystoresPaths.get(k);
         if (s == null) {
@@ -161,29 +220,30 @@ public final class KeyStores {
 
     /**
      * Returns an array of KeyStore that contain certificates that are trusted.
-     * The KeyStores contain certificates from different sources.
+     * The KeyStores contain certificates from different sources. They are
+     * shared and must not be modified.
      *
      * @return an array of KeyStore containing trusted Certificates
      */
     public static final KeyStore[] getCertKeyStores() {
         List<KeyStore> result = new ArrayList<>(10);
         /* System-level JSSE certificates */
-        KeyStore ks = getKeyStore(Level.SYSTEM, Type.JSSE_CERTS).getKs();
+        KeyStore ks = getCachedKeyStore(Level.SYSTEM, Type.JSSE_CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* System-level certificates */
-        ks = getKeyStore(Level.SYSTEM, Type.CERTS).getKs();
+        ks = getCachedKeyStore(Level.SYSTEM, Type.CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* User-level JSSE certificates */
-        ks = getKeyStore(Level.USER, Type.JSSE_CERTS).getKs();
+        ks = getCachedKeyStore(Level.USER, Type.JSSE_CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* User-level certificates */
-        ks = getKeyStore(Level.USER, Type.CERTS).getKs();
+        ks = getCachedKeyStore(Level.USER, Type.CERTS);
         if (ks != null) {
             result.add(ks);
         }
@@ -193,28 +253,29 @@ public final class KeyStores {
 
     /**
      * Returns an array of KeyStore that contain trusted CA certificates.
+     * They are shared and must not be modified.
      *
      * @return an array of KeyStore containing trusted CA certificates
      */
     public static final KeyStore[] getCAKeyStores() {
         List<KeyStore> result = new ArrayList<>(10);
         /* System-level JSSE CA certificates */
-        KeyStore ks = getKeyStore(Level.SYSTEM, Type.JSSE_CA_CERTS).getKs();
+        KeyStore ks = getCachedKeyStore(Level.SYSTEM, Type.JSSE_CA_CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* System-level CA certificates */
-        ks = getKeyStore(Level.SYSTEM, Type.CA_CERTS).getKs();
+        ks = getCachedKeyStore(Level.SYSTEM, Type.CA_CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* User-level JSSE CA certificates */
-        ks = getKeyStore(Level.USER, Type.JSSE_CA_CERTS).getKs();
+        ks = getCachedKeyStore(Level.USER, Type.JSSE_CA_CERTS);
         if (ks != null) {
             result.add(ks);
         }
         /* User-level CA certificates */
-        ks = getKeyStore(Level.USER, Type.CA_CERTS).getKs();
+        ks = getCachedKeyStore(Level.USER, Type.CA_CERTS);
         if (ks != null) {
             result.add(ks);
         }
@@ -223,7 +284,8 @@ public final class KeyStores {
     }
 
     /**
-     * Returns KeyStores containing trusted client certificates
+     * Returns KeyStores containing trusted client certificates. They are
+     * shared and must not be modified.
      *
      * @return an array of KeyStore objects that can be used to check client
      * authentication certificates
@@ -231,12 +293,12 @@ public final class KeyStores {
     public static KeyStore[] getClientKeyStores() {
         List<KeyStore> result = new ArrayList<>();
 
-        KeyStore ks = getKeyStore(Level.SYSTEM, Type.CLIENT_CERTS).getKs();
+        KeyStore ks = getCachedKeyStore(Level.SYSTEM, Type.CLIENT_CERTS);
         if (ks != null) {
             result.add(ks);
         }
 
-        ks = getKeyStore(Level.USER, Type.CLIENT_CERTS).getKs();
+        ks = getCachedKeyStore(Level.USER, Type.CLIENT_CERTS);
         if (ks != null) {
             result.add(ks);
         }
@@ -61,8 +61,10 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * This class implements an X509 Trust Manager. The certificates it trusts are
@@ -86,38 +88,89 @@ final public class VariableX509TrustManager {
 
     private final List<Certificate> temporarilyUntrusted = new ArrayList<>();
 
-    private final List<X509TrustManager> certTrustManagers = new ArrayList<>();
+    /** the trust managers of the cert key stores, loaded on first use */
+    private volatile TrustManagers certTrustManagers;
 
-    private final List<X509TrustManager> clientTrustManagers = new ArrayList<>();
+    /** the trust managers of the client key stores, loaded on first use */
+    private volatile TrustManagers clientTrustManagers;
 
+    /** the trust managers of the CA key stores, loaded on first use */
+    private volatile TrustManagers caTrustManagers;
 
-    private final List<X509TrustManager> caTrustManagers = new ArrayList<>();
+    /**
+     * Trust managers of a set of key stores, valid as long as {@link KeyStores} returns the same key stores.
+     */
+    private static class TrustManagers {
+        private final KeyStore[] keyStores;
+        private final List<X509TrustManager> managers;
+
+        private TrustManagers(final KeyStore[] keyStores, final List<X509TrustManager> managers) {
+            this.keyStores = keyStores;
+            this.managers = managers;
+        }
+    }
 
     public static void main(String[] args) {
         new VariableX509TrustManager();
     }
 
     /**
-     * Constructor initializes the system, user and custom stores
+     * Constructor. The system, user and custom stores are loaded on the first check which needs them,
+     * and loaded again when they changed.
      */
     public VariableX509TrustManager() {
-        try {
-            loadManagers(Arrays.asList(KeyStores.getCertKeyStores()), certTrustManagers);
-        } catch (Exception e) {
-            LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
-        }
+    }
 
+    private List<X509TrustManager> getCertTrustManagers() {
+        final TrustManagers current = update(certTrustManagers, KeyStores::getCertKeyStores);
+        certTrustManagers = current;
+        return current.managers;
+    }
+
+    List<X509TrustManager> getCaTrustManagers() {
+        final TrustManagers current = update(caTrustManagers, KeyStores::getCAKeyStores);
+        caTrustManagers = current;
+        return current.managers;
+    }
+
+    private List<X509TrustManager> getClientTrustManagers() {
+        final TrustManagers current = update(clientTrustManagers, KeyStores::getClientKeyStores);
+        clientTrustManagers = current;
+        return current.managers;
+    }
+
+    /**
+     * Loads the trust managers again if the key stores changed. This happens during the handshake of
+     * whichever code connects, so the key stores are loaded with the permissions of ITW.
+     */
+    private TrustManagers update(final TrustManagers current, final Supplier<KeyStore[]> keyStores) {
+        return AccessController.doPrivileged(new PrivilegedAction<TrustManagers>() {
+            @Override
+            public TrustManagers run() {
+                return loadIfChanged(current, keyStores);
+            }
+        });
+    }
+
+    private TrustManagers loadIfChanged(final TrustManagers current, final Supplier<KeyStore[]> keyStores) {
+        final KeyStore[] stores;
         try {
-            loadManagers(Arrays.asList(KeyStores.getCAKeyStores()), caTrustManagers);
+            stores = keyStores.get();
         } catch (Exception e) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
+            return current != null ? current : new TrustManagers(new KeyStore[0], Collections.emptyList());
         }
-
+        // the key stores are cached, the same instances mean that no file changed
+        if (current != null && Arrays.equals(current.keyStores, stores)) {
+            return current;
+        }
+        final List<X509TrustManager> managers = new ArrayList<>();
         try {
-            loadManagers(Arrays.asList(KeyStores.getClientKeyStores()), clientTrustManagers);
+            loadManagers(Arrays.asList(stores), managers);
         } catch (Exception e) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
         }
+        return new TrustManagers(stores, managers);
     }
 
     private void loadManagers(final List<KeyStore> keyStores, final List<X509TrustManager> managers) {
@@ -155,7 +208,7 @@ final public class VariableX509TrustManager {
 
         boolean trusted = false;
         ValidatorException savedException = null;
-        for (X509TrustManager clientTrustManager : clientTrustManagers) {
+        for (X509TrustManager clientTrustManager : getClientTrustManagers()) {
             try {
                 clientTrustManager.checkClientTrusted(chain, authType);
                 trusted = true;
@@ -258,7 +311,7 @@ final public class VariableX509TrustManager {
         // first try CA TrustManagers
         boolean trusted = false;
         ValidatorException savedException = null;
-        for (X509TrustManager caTrustManager : caTrustManagers) {
+        for (X509TrustManager caTrustManager : getCaTrustManagers()) {
             try {
                 if (socket == null && engine == null) {
                     caTrustManager.checkServerTrusted(chain, authType);
@@ -287,7 +340,7 @@ final public class VariableX509TrustManager {
             return;
         }
 
-        for (X509TrustManager certTrustManager : certTrustManagers) {
+        for (X509TrustManager certTrustManager : getCertTrustManagers()) {
             try {
                 certTrustManager.checkServerTrusted(chain, authType);
                 trusted = true;
@@ -317,7 +370,7 @@ final public class VariableX509TrustManager {
     private boolean isExplicitlyTrusted(X509Certificate[] chain, String authType) {
         boolean explicitlyTrusted = false;
 
-        for (X509TrustManager certTrustManager : certTrustManagers) {
+        for (X509TrustManager certTrustManager : getCertTrustManagers()) {
             try {
                 certTrustManager.checkServerTrusted(chain, authType);
                 explicitlyTrusted = true;
@@ -338,7 +391,7 @@ final public class VariableX509TrustManager {
     protected X509Certificate[] getAcceptedIssuers() {
         List<X509Certificate> issuers = new ArrayList<>();
 
-        for (X509TrustManager caTrustManager : caTrustManagers) {
+        for (X509TrustManager caTrustManager : getCaTrustManagers()) {
             issuers.addAll(Arrays.asList(caTrustManager.getAcceptedIssuers()));
         }
 
@@ -37,16 +37,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.jar.JarEntry;
 import net.adoptopenjdk.icedteaweb.IcedTeaWebConstants;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.LaunchException;
+import net.sourceforge.jnlp.cache.CachedDaemonThreadPoolProvider;
+import net.sourceforge.jnlp.cache.JarSignatures;
 import net.sourceforge.jnlp.cache.ResourceTracker;
 import net.sourceforge.jnlp.runtime.JNLPClassLoader.SecurityDelegate;
+import net.sourceforge.jnlp.runtime.LaunchTimeline;
 import net.sourceforge.jnlp.security.AppVerifier;
 import net.sourceforge.jnlp.security.CertVerifier;
 import net.sourceforge.jnlp.security.CertificateUtils;
@@ -76,6 +85,10 @@ public class JarCertVerifier implements CertVerifier {
 
     private static final long SIX_MONTHS = 180 * 24 * 60 * 60 * 1000L; // milliseconds
 
+    /** Reads the downloaded jars, one per processor at the same time */
+    private static final ExecutorService VERIFIER_POOL = CachedDaemonThreadPoolProvider.newFixedDaemonThreadPool(
+            Runtime.getRuntime().availableProcessors());
+
     static enum VerifyResult {
         UNSIGNED, SIGNED_OK, SIGNED_NOT_OK
     }
@@ -209,11 +222,18 @@ public class JarCertVerifier implements CertVerifier {
      */
     public void add(List<JARDesc> jars, ResourceTracker tracker)
             throws Exception {
-        verifyJars(jars, tracker);
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("verify")) {
+            verifyJars(jars, tracker);
+        }
     }
 
     /**
      * Verify the jars provided and update the state of this instance to match the new information.
+     * <p>
+     * Each jar is read on {@link #VERIFIER_POOL} as soon as it is downloaded, so reading one jar
+     * overlaps with the download of the others. The outcomes are merged into this instance in the
+     * order of the jars.
+     * </p>
      * 
      * @param jars
      *            List of new jars to be verified.
@@ -222,40 +242,48 @@ public class JarCertVerifier implements CertVerifier {
      * @throws Exception
      *             Caused by issues with obtaining the jars' entries or interacting with the tracker.
      */
-    private void verifyJars(List<JARDesc> jars, ResourceTracker tracker)
+    private void verifyJars(List<JARDesc> jars, final ResourceTracker tracker)
             throws Exception {
 
-        for (JARDesc jar : jars) {
+        final Set<String> known = new HashSet<>(verifiedJars);
+        known.addAll(unverifiedJars);
 
-            try {
-
-                File jarFile = tracker.getCacheFile(jar.getLocation());
+        final List<CompletableFuture<SignedJar>> signedJars = new ArrayList<>();
+        for (final JARDesc jar : jars) {
+            signedJars.add(tracker.whenDownloaded(jar.getLocation()).thenApplyAsync(location -> {
+                final File jarFile = tracker.getCacheFile(location);
 
                 // some sort of resource download/cache error. Nothing to add
                 // in that case ... but don't fail here
-                if (jarFile == null) {
-                    continue;
+                if (jarFile == null || known.contains(jarFile.getAbsolutePath())) {
+                    return new SignedJar(jarFile, null);
                 }
-
-                String localFile = jarFile.getAbsolutePath();
-                if (verifiedJars.contains(localFile)
-                        || unverifiedJars.contains(localFile)) {
-                    continue;
+                try (final LaunchTimeline.Phase phase = LaunchTimeline.start("verify.jar", location)) {
+                    return new SignedJar(jarFile, getJarSignatures(jar, jarFile));
                 }
+            }, VERIFIER_POOL));
+        }
 
-                VerifyResult result = verifyJar(localFile);
+        for (CompletableFuture<SignedJar> signedJar : signedJars) {
+            final SignedJar verified = getSignedJar(signedJar);
+            if (verified.signatures == null) {
+                continue;
+            }
 
-                if (result == VerifyResult.UNSIGNED) {
-                    unverifiedJars.add(localFile);
-                } else if (result == VerifyResult.SIGNED_NOT_OK) {
-                    verifiedJars.add(localFile);
-                } else if (result == VerifyResult.SIGNED_OK) {
-                    verifiedJars.add(localFile);
-                }
-            } catch (Exception e) {
-                // We may catch exceptions from using verifyJar()
-                // or from checkTrustedCerts
-                throw e;
+            String localFile = verified.jarFile.getAbsolutePath();
+            if (verifiedJars.contains(localFile)
+                    || unverifiedJars.contains(localFile)) {
+                continue;
+            }
+
+            VerifyResult result = verifyJarSignatures(localFile, verified.signatures);
+
+            if (result == VerifyResult.UNSIGNED) {
+                unverifiedJars.add(localFile);
+            } else if (result == VerifyResult.SIGNED_NOT_OK) {
+                verifiedJars.add(localFile);
+            } else if (result == VerifyResult.SIGNED_OK) {
+                verifiedJars.add(localFile);
             }
         }
 
@@ -264,15 +292,74 @@ public class JarCertVerifier implements CertVerifier {
     }
 
     /**
-     * Checks through all the jar entries of jarName for signers, storing all the common ones in the certs hash map.
+     * A downloaded jar and its signatures, or null signatures if the jar was
+     * verified already.
+     */
+    private static class SignedJar {
+        private final File jarFile;
+        private final JarSignatures signatures;
+
+        private SignedJar(File jarFile, JarSignatures signatures) {
+            this.jarFile = jarFile;
+            this.signatures = signatures;
+        }
+    }
+
+    private static SignedJar getSignedJar(CompletableFuture<SignedJar> signedJar) throws Exception {
+        try {
+            return signedJar.get();
+        } catch (ExecutionException ex) {
+            // We may catch exceptions from reading the jar
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the signatures of a jar, or uses the signatures read on an
+     * earlier launch if the cached jar was not modified since.
+     *
+     * @param jar
+     *            The jar to verify.
+     * @param jarFile
+     *            The local copy of the jar.
+     * @return The signatures of the jar.
+     * @throws CompletionException
+     *             Will be thrown if there are any problems with the jar.
+     */
+    private static JarSignatures getJarSignatures(JARDesc jar, File jarFile) {
+        final String jarName = jarFile.getAbsolutePath();
+        final String fingerprint = JarSignatures.fingerprint(jar.getLocation(), jar.getVersion(), jarFile);
+        JarSignatures signatures = JarSignatures.get(jar.getLocation(), jar.getVersion(), fingerprint);
+        if (signatures != null) {
+            LOG.debug("Using the signatures of {} read on an earlier launch", jarName);
+            return signatures;
+        }
+        try {
+            signatures = readJarSignatures(jarName);
+        } catch (Exception ex) {
+            throw new CompletionException(ex);
+        }
+        JarSignatures.store(jar.getLocation(), jar.getVersion(), jarFile, fingerprint, signatures);
+        return signatures;
+    }
+
+    /**
+     * Checks through all the jar entries of jarName for signers.
      * 
      * @param jarName
      *            The absolute path to the jar file.
-     * @return The return of {@link JarCertVerifier#verifyJarEntryCerts} using the entries found in the jar located at jarName.
+     * @return The return of {@link JarCertVerifier#countJarSignatures} using the entries found in the jar located at jarName.
      * @throws Exception
      *             Will be thrown if there are any problems with the jar.
      */
-    private VerifyResult verifyJar(String jarName) throws Exception {
+    private static JarSignatures readJarSignatures(String jarName) throws Exception {
         try (JarFile jarFile = new JarFile(jarName, true)) {
             Vector<JarEntry> entriesVec = new Vector<JarEntry>();
             byte[] buffer = new byte[8192];
@@ -294,8 +381,7 @@ public class JarCertVerifier implements CertVerifier {
                     }
                 }
             }
-            return verifyJarEntryCerts(jarName, jarFile.getManifest() != null,
-                    entriesVec);
+            return countJarSignatures(jarFile.getManifest() != null, entriesVec);
 
         } catch (Exception e) {
             LOG.error(IcedTeaWebConstants.DEFAULT_ERROR_MESSAGE, e);
@@ -312,18 +398,29 @@ public class JarCertVerifier implements CertVerifier {
      *            Whether or not the associated jar has a manifest.
      * @param entries
      *            The list of entries in the associated jar.
-     * @return If there is at least one signable entry that is not signed by a common signer, return UNSIGNED. Otherwise every signable entry is signed by at least one common signer. If the signer has no issues, return SIGNED_OK. If there are any signing issues, return SIGNED_NOT_OK.
+     * @return The return of {@link JarCertVerifier#verifyJarSignatures} using the signers of the entries.
      * @throws Exception
      *             Will be thrown if there are issues with entries.
      */
     VerifyResult verifyJarEntryCerts(String jarName, boolean jarHasManifest,
             Vector<JarEntry> entries) throws Exception {
+        return verifyJarSignatures(jarName, countJarSignatures(jarHasManifest, entries));
+    }
+
+    /**
+     * Counts the signable entries and the entries signed by each signer.
+     *
+     * @param jarHasManifest
+     *            Whether or not the associated jar has a manifest.
+     * @param entries
+     *            The list of entries in the associated jar.
+     * @return The signatures of the jar.
+     */
+    static JarSignatures countJarSignatures(boolean jarHasManifest, Vector<JarEntry> entries) {
         // Contains number of entries the cert with this CertPath has signed.
         Map<CertPath, Integer> jarSignCount = new HashMap<>();
         int numSignableEntriesInJar = 0;
 
-        // Record current time just before checking the jar begins.
-        long now = System.currentTimeMillis();
         if (jarHasManifest) {
 
             for (JarEntry je : entries) {
@@ -355,6 +452,24 @@ public class JarCertVerifier implements CertVerifier {
             // no manifests can't sneak in
             numSignableEntriesInJar++;
         }
+        return new JarSignatures(numSignableEntriesInJar, jarSignCount);
+    }
+
+    /**
+     * Checks the signers of a jar, storing all the common ones in the certs hash map.
+     *
+     * @param jarName
+     *            The absolute path to the jar file.
+     * @param signatures
+     *            The signatures of the jar.
+     * @return If there is at least one signable entry that is not signed by a common signer, return UNSIGNED. Otherwise every signable entry is signed by at least one common signer. If the signer has no issues, return SIGNED_OK. If there are any signing issues, return SIGNED_NOT_OK.
+     */
+    VerifyResult verifyJarSignatures(String jarName, JarSignatures signatures) {
+        Map<CertPath, Integer> jarSignCount = signatures.getSigners();
+        int numSignableEntriesInJar = signatures.getSignableEntries();
+
+        // Record current time just before checking the jar begins.
+        long now = System.currentTimeMillis();
 
         jarSignableEntries.put(jarName, numSignableEntriesInJar);
 
@@ -0,0 +1,127 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
+import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
+import net.adoptopenjdk.icedteaweb.testing.ServerLauncher;
+import net.sourceforge.jnlp.DownloadOptions;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FilePermission;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class BackgroundUpdaterTest {
+
+    private static ServerLauncher server;
+    private static File serverDir;
+    private static String cacheDir;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        serverDir = Files.createTempDirectory("itw-background").toFile();
+        serverDir.deleteOnExit();
+        server = ServerAccess.getIndependentInstance(serverDir.getAbsolutePath(), ServerAccess.findFreePort());
+        server.setSupportLastModified(true);
+
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-background-cache").toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server.stop();
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    private static List<JARDesc> cache(final String fileName, final String content) throws Exception {
+        final Path file = new File(serverDir, fileName).toPath();
+        Files.write(file, content.getBytes(UTF_8));
+        file.toFile().setLastModified(System.currentTimeMillis() - 60000);
+        final URL url = server.getUrl(fileName);
+
+        final Resource resource = Resource.createUnshared(url, null, UpdatePolicy.ALWAYS);
+        resource.changeStatus(EnumSet.allOf(Resource.Status.class), EnumSet.of(Resource.Status.PRECONNECT, Resource.Status.PREDOWNLOAD));
+        new ResourceDownloader(resource).run();
+        Assert.assertTrue(resource.isSet(Resource.Status.DOWNLOADED));
+        return Collections.singletonList(new JARDesc(url, null, null, false, true, false, true));
+    }
+
+    private static String cachedContent(final JARDesc jar) throws Exception {
+        return new String(Files.readAllBytes(CacheUtil.getCacheFile(jar.getLocation(), null).toPath()), UTF_8);
+    }
+
+    @Test
+    public void testUpdateIsStagedInTheCache() throws Exception {
+        final List<JARDesc> jars = cache("background-a.jar", "first");
+        Assert.assertTrue(BackgroundUpdater.isCompletelyCached(jars));
+        final File launched = CacheUtil.getCacheFile(jars.get(0).getLocation(), null);
+
+        final File file = new File(serverDir, "background-a.jar");
+        Files.write(file.toPath(), "second".getBytes(UTF_8));
+        file.setLastModified(System.currentTimeMillis());
+        Assert.assertTrue(BackgroundUpdater.start(jars, new DownloadOptions(false, false), UpdatePolicy.ALWAYS).get(10, TimeUnit.SECONDS));
+
+        Assert.assertTrue(BackgroundUpdater.isCompletelyCached(jars));
+        Assert.assertEquals("second", cachedContent(jars.get(0)));
+        // the file of the running application is kept
+        Assert.assertEquals("first", new String(Files.readAllBytes(launched.toPath()), UTF_8));
+    }
+
+    @Test
+    public void testFailedUpdateIsCheckedOnNextLaunch() throws Exception {
+        final List<JARDesc> jars = cache("background-b.jar", "first");
+        Assert.assertTrue(new File(serverDir, "background-b.jar").delete());
+
+        Assert.assertFalse(BackgroundUpdater.start(jars, new DownloadOptions(false, false), UpdatePolicy.ALWAYS).get(10, TimeUnit.SECONDS));
+
+        Assert.assertTrue(new CacheEntry(jars.get(0).getLocation(), null).isUpdatePending());
+        Assert.assertFalse(BackgroundUpdater.isCompletelyCached(jars));
+        Assert.assertEquals("first", cachedContent(jars.get(0)));
+    }
+
+    @Test
+    public void testLaunchKeepsTheFilesTheCheckStartedWith() throws Exception {
+        final List<JARDesc> jars = cache("background-d.jar", "first");
+        final URL location = jars.get(0).getLocation();
+        final File launched = CacheUtil.getCacheFile(location, null);
+
+        final File file = new File(serverDir, "background-d.jar");
+        Files.write(file.toPath(), "second".getBytes(UTF_8));
+        file.setLastModified(System.currentTimeMillis());
+        Assert.assertTrue(BackgroundUpdater.start(jars, new DownloadOptions(false, false), UpdatePolicy.ALWAYS).get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("second", cachedContent(jars.get(0)));
+
+        // like a lazy jar which is resolved after the update
+        final ResourceTracker tracker = new ResourceTracker(false);
+        tracker.addResource(location, null, null, UpdatePolicy.NEVER);
+        Assert.assertEquals(launched, tracker.getCacheFile(location));
+        Assert.assertEquals(new FilePermission(launched.getPath(), "read"), CacheUtil.getReadPermission(location, null));
+
+        BackgroundUpdater.release(jars);
+        Assert.assertNull(BackgroundUpdater.getLaunchFile(location));
+    }
+
+    @Test
+    public void testRecentlyCheckedJarsAreSkipped() throws Exception {
+        final List<JARDesc> jars = cache("background-c.jar", "first");
+
+        BackgroundUpdater.start(jars, new DownloadOptions(false, false), UpdatePolicy.NEVER).get(10, TimeUnit.SECONDS);
+
+        Assert.assertFalse(new CacheEntry(jars.get(0).getLocation(), null).isUpdatePending());
+        Assert.assertFalse(BackgroundUpdater.isCompletelyCached(
+                Collections.singletonList(new JARDesc(server.getUrl("background-missing.jar"), null, null, false, true, false, true))));
+    }
+}
@@ -0,0 +1,99 @@
+package net.sourceforge.jnlp.cache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class CacheBlobStoreTest {
+
+    // sha-256 of "abc"
+    private static final String ABC_DIGEST = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    private static final String ABC_BASE64 = "ungWv48Bz+pBQUDeXa4iI7ADYaOWF3qctBD/YfIAFa0=";
+
+    private File cacheDir;
+    private CacheBlobStore store;
+
+    @Before
+    public void setup() throws Exception {
+        cacheDir = Files.createTempDirectory("itw-blobs").toFile();
+        cacheDir.deleteOnExit();
+        store = new CacheBlobStore(cacheDir);
+    }
+
+    private File write(final String name, final String content) throws Exception {
+        final File file = new File(cacheDir, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+        return file;
+    }
+
+    private static String read(final File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), UTF_8);
+    }
+
+    @Test
+    public void testIdenticalFilesShareOneBlob() throws Exception {
+        final File first = write("0/0/a.jar", "abc");
+        final File second = write("1/0/b.jar", "abc");
+
+        Assert.assertEquals(ABC_DIGEST, store.adopt(first));
+        Assert.assertEquals(ABC_DIGEST, store.adopt(second));
+
+        Assert.assertTrue(Files.isSameFile(first.toPath(), second.toPath()));
+        Assert.assertTrue(Files.isSameFile(first.toPath(), store.getBlob(ABC_DIGEST).toPath()));
+        Assert.assertEquals(1, new File(cacheDir, CacheBlobStore.BLOB_DIR).list().length);
+        Assert.assertEquals("abc", read(second));
+    }
+
+    @Test
+    public void testLinkToStoredBlob() throws Exception {
+        store.adopt(write("0/0/a.jar", "abc"));
+        final File target = new File(cacheDir, "2/0/c.jar");
+
+        Assert.assertFalse(store.linkTo(null, target));
+        Assert.assertFalse(store.linkTo("00", target));
+        Assert.assertTrue(store.linkTo(ABC_DIGEST, target));
+        Assert.assertEquals("abc", read(target));
+    }
+
+    @Test
+    public void testUnreferencedBlobsAreRemoved() throws Exception {
+        store.adopt(write("0/0/a.jar", "abc"));
+        final String other = store.adopt(write("1/0/b.jar", "def"));
+
+        Assert.assertEquals(1, store.removeUnreferenced(Collections.singleton(ABC_DIGEST)));
+        Assert.assertTrue(store.contains(ABC_DIGEST));
+        Assert.assertFalse(store.contains(other));
+    }
+
+    @Test
+    public void testDetachedFileDoesNotChangeBlob() throws Exception {
+        final File file = write("0/0/a.jar", "abc");
+        store.adopt(file);
+
+        CacheBlobStore.detach(file);
+        Files.write(file.toPath(), "xyz".getBytes(UTF_8));
+
+        Assert.assertEquals("abc", read(store.getBlob(ABC_DIGEST)));
+        Assert.assertEquals("xyz", read(file));
+    }
+
+    @Test
+    public void testParsePublishedDigest() {
+        Assert.assertEquals(ABC_DIGEST, CacheBlobStore.parsePublishedDigest("sha-256=:" + ABC_BASE64 + ":", null));
+        Assert.assertEquals(ABC_DIGEST, CacheBlobStore.parsePublishedDigest("sha-512=:AAAA:, sha-256=:" + ABC_BASE64 + ":", null));
+        Assert.assertEquals(ABC_DIGEST, CacheBlobStore.parsePublishedDigest(null, "SHA-256=" + ABC_BASE64));
+        Assert.assertEquals(ABC_DIGEST, CacheBlobStore.parsePublishedDigest("sha-256=:!!:", "SHA-256=" + ABC_BASE64));
+
+        Assert.assertNull(CacheBlobStore.parsePublishedDigest(null, null));
+        Assert.assertNull(CacheBlobStore.parsePublishedDigest("sha-256=" + ABC_BASE64, null));
+        Assert.assertNull(CacheBlobStore.parsePublishedDigest(null, "MD5=" + ABC_BASE64));
+        Assert.assertNull(CacheBlobStore.parsePublishedDigest(null, "SHA-256=AAAA"));
+    }
+}
@@ -0,0 +1,152 @@
+package net.sourceforge.jnlp.cache;
+
+import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class CacheEvictorTest {
+
+    private static final long SESSION_START = 1_000_000L;
+    private static final int ENTRY_SIZE = 100;
+
+    private static class DummyInfrastructureFileDescriptor extends InfrastructureFileDescriptor {
+        private final File backend;
+
+        private DummyInfrastructureFileDescriptor(final File backend) {
+            super();
+            this.backend = backend;
+        }
+
+        @Override
+        public File getFile() {
+            return backend;
+        }
+
+        @Override
+        public String getFullPath() {
+            return backend.getAbsolutePath();
+        }
+    }
+
+    private File cacheDir;
+    private CacheLRUWrapper lruHandler;
+    private CacheEvictor evictor;
+
+    @Before
+    public void setup() throws Exception {
+        cacheDir = Files.createTempDirectory("itw-evictor").toFile();
+        cacheDir.deleteOnExit();
+        lruHandler = new CacheLRUWrapper(
+                new DummyInfrastructureFileDescriptor(new File(cacheDir, "recently_used")),
+                new DummyInfrastructureFileDescriptor(cacheDir));
+        evictor = new CacheEvictor(lruHandler, Runnable::run, SESSION_START, CacheEvictorTest::runAlone);
+
+        // ten entries used before this session, the lowest id is the least recently used
+        lruHandler.lock();
+        try {
+            for (int id = 0; id < 10; id++) {
+                addEntry(id, id);
+            }
+            // and one used in this session
+            addEntry(10, SESSION_START + 1);
+            lruHandler.store();
+        } finally {
+            lruHandler.unlock();
+        }
+    }
+
+    private void addEntry(final int id, final long lastUsed) throws Exception {
+        final File file = new File(getFolder(id), "http" + File.separator + "example.com" + File.separator + "a" + id + ".jar");
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[ENTRY_SIZE]);
+        lruHandler.addEntry(lastUsed + "," + id, file.getAbsolutePath());
+    }
+
+    private static boolean runAlone(final Runnable task) {
+        task.run();
+        return true;
+    }
+
+    private File getFolder(final int id) {
+        return new File(cacheDir, String.valueOf(id));
+    }
+
+    @Test
+    public void testMeasure() {
+        evictor.measure();
+        Assert.assertEquals(11 * ENTRY_SIZE, evictor.getCacheSize());
+
+        evictor.added(ENTRY_SIZE);
+        Assert.assertEquals(12 * ENTRY_SIZE, evictor.getCacheSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAreEvictedToLowWater() {
+        evictor.measure();
+
+        Assert.assertEquals(0, evictor.evict(11 * ENTRY_SIZE, 0));
+        Assert.assertEquals(6, evictor.evict(8 * ENTRY_SIZE, 5 * ENTRY_SIZE));
+
+        for (int id = 0; id < 6; id++) {
+            Assert.assertFalse(getFolder(id).exists());
+        }
+        for (int id = 6; id < 11; id++) {
+            Assert.assertTrue(getFolder(id).exists());
+        }
+        Assert.assertEquals(5, lruHandler.getLRUSortedEntries().size());
+        Assert.assertEquals(5 * ENTRY_SIZE, evictor.getCacheSize());
+        Assert.assertEquals(1, evictor.getEvictionRuns());
+        Assert.assertEquals(6, evictor.getEvictedEntries());
+        Assert.assertEquals(6 * ENTRY_SIZE, evictor.getEvictedBytes());
+    }
+
+    @Test
+    public void testEntriesUsedInThisSessionAreKept() {
+        evictor.measure();
+
+        Assert.assertEquals(10, evictor.evict(0, 0));
+
+        Assert.assertTrue(getFolder(10).exists());
+        Assert.assertEquals(1, lruHandler.getLRUSortedEntries().size());
+        Assert.assertEquals(ENTRY_SIZE, evictor.getCacheSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntries() {
+        Assert.assertEquals("0,0", lruHandler.getLeastRecentlyUsedEntries(3).get(0).getKey());
+        Assert.assertEquals("2,2", lruHandler.getLeastRecentlyUsedEntries(3).get(2).getKey());
+        Assert.assertEquals(11, lruHandler.getLeastRecentlyUsedEntries(100).size());
+    }
+
+    @Test
+    public void testNothingIsEvictedWhileOtherInstancesRun() {
+        final CacheEvictor shared = new CacheEvictor(lruHandler, Runnable::run, SESSION_START, task -> false);
+        shared.measure();
+
+        Assert.assertEquals(0, shared.evict(0, 0));
+
+        for (int id = 0; id < 11; id++) {
+            Assert.assertTrue(getFolder(id).exists());
+        }
+        Assert.assertEquals(11, lruHandler.getLRUSortedEntries().size());
+        Assert.assertEquals(11 * ENTRY_SIZE, shared.getCacheSize());
+    }
+
+    @Test
+    public void testRecordedContentLengthIsFreed() throws Exception {
+        final File info = new File(lruHandler.getLeastRecentlyUsedEntries(1).get(0).getValue() + CacheDirectory.INFO_SUFFIX);
+        Files.write(info.toPath(), (CacheEntry.KEY_CONTENT_LENGTH + "=40\n").getBytes(StandardCharsets.ISO_8859_1));
+        evictor.measure();
+        Assert.assertEquals(10 * ENTRY_SIZE + 40, evictor.getCacheSize());
+
+        Assert.assertEquals(1, evictor.evict(10 * ENTRY_SIZE, 10 * ENTRY_SIZE));
+
+        Assert.assertEquals(40, evictor.getEvictedBytes());
+        Assert.assertEquals(10 * ENTRY_SIZE, evictor.getCacheSize());
+    }
+}
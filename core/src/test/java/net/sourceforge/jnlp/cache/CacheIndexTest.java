@@ -0,0 +1,74 @@
+package net.sourceforge.jnlp.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map.Entry;
+
+public class CacheIndexTest {
+
+    private static final String CACHE_DIR = File.separator + "cache";
+
+    private static String path(final int folder, final String file) {
+        return CACHE_DIR + File.separator + folder + File.separator + "http" + File.separator + "example.com" + File.separator + file;
+    }
+
+    private static String relativePath(final String file) {
+        return File.separator + "http" + File.separator + "example.com" + File.separator + file;
+    }
+
+    @Test
+    public void testMostRecentEntryWins() {
+        final CacheIndex index = new CacheIndex(CACHE_DIR);
+        index.add("100,0", path(0, "a.jar"));
+        index.add("300,2", path(2, "a.jar"));
+        index.add("200,1", path(1, "b.jar"));
+
+        final Entry<String, String> a = index.getMostRecentEntry(relativePath("a.jar"));
+        Assert.assertEquals("300,2", a.getKey());
+        Assert.assertEquals(path(2, "a.jar"), a.getValue());
+        Assert.assertEquals("200,1", index.getMostRecentEntry(relativePath("b.jar")).getKey());
+        Assert.assertNull(index.getMostRecentEntry(relativePath("c.jar")));
+    }
+
+    @Test
+    public void testRemoveFallsBackToOlderEntry() {
+        final CacheIndex index = new CacheIndex(CACHE_DIR);
+        index.add("100,0", path(0, "a.jar"));
+        index.add("300,2", path(2, "a.jar"));
+
+        index.remove("300,2");
+        Assert.assertEquals("100,0", index.getMostRecentEntry(relativePath("a.jar")).getKey());
+        index.remove("100,0");
+        Assert.assertNull(index.getMostRecentEntry(relativePath("a.jar")));
+        Assert.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testLRUSortedEntries() {
+        final CacheIndex index = new CacheIndex(CACHE_DIR);
+        index.add("100,0", path(0, "a.jar"));
+        index.add("300,2", path(2, "c.jar"));
+        index.add("200,1", path(1, "b.jar"));
+
+        final List<Entry<String, String>> sorted = index.getLRUSortedEntries();
+        Assert.assertEquals(3, sorted.size());
+        Assert.assertEquals("300,2", sorted.get(0).getKey());
+        Assert.assertEquals("200,1", sorted.get(1).getKey());
+        Assert.assertEquals("100,0", sorted.get(2).getKey());
+        Assert.assertEquals(2, index.getHighestFolderId());
+    }
+
+    @Test
+    public void testInvalidEntriesAreCountedButNotIndexed() {
+        final CacheIndex index = new CacheIndex(CACHE_DIR);
+        index.add("key", "value");
+        index.add("100,0", File.separator + "elsewhere" + File.separator + "a.jar");
+
+        Assert.assertEquals(2, index.size());
+        Assert.assertTrue(index.getLRUSortedEntries().isEmpty());
+        Assert.assertEquals(-1, index.getHighestFolderId());
+    }
+}
@@ -40,6 +40,7 @@ package net.sourceforge.jnlp.cache;
 import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
 import net.adoptopenjdk.icedteaweb.testing.util.CacheTestUtils;
 import net.sourceforge.jnlp.config.InfrastructureFileDescriptor;
+import net.sourceforge.jnlp.config.PathsAndFiles;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -47,10 +48,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.net.URL;
+import java.nio.file.Files;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static net.adoptopenjdk.icedteaweb.JvmPropertyConstants.JAVA_IO_TMPDIR;
 import static net.sourceforge.jnlp.config.ConfigurationConstants.CACHE_INDEX_FILE_NAME;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -150,6 +156,107 @@ public class CacheLRUWrapperTest {
         }
     }
 
+    @Test
+    public void testJournaledAccessesAreReplayed() throws InterruptedException {
+        final File cacheIndexFile = clw.getRecentlyUsedFile().getFile();
+        cacheIndexFile.delete();
+        try {
+            clw.lock();
+            try {
+                clearCacheIndexFile();
+                for (int i = 0; i < noEntriesCacheFile; i++) {
+                    final String path = tmpCache.getAbsolutePath() + File.separatorChar + i + File.separatorChar + "http" + File.separatorChar + "test" + i + ".jar";
+                    clw.addEntry(i + "," + i, path);
+                }
+                clw.store();
+            } finally {
+                clw.unlock();
+            }
+
+            // simulates concurrent launches hitting the cache, each hit either rewrites the whole file or appends to the journal
+            // the timing depends on the machine, so it is only reported
+            final long legacy = timeConcurrentHits(true);
+            final long journaled = timeConcurrentHits(false);
+            ServerAccess.logErrorReprint("Concurrent cache hits with store() = " + legacy / 1000 + "µs, with journal = " + journaled / 1000 + "µs");
+
+            // a fresh reader must see the journaled accesses
+            final CacheLRUWrapper reader = new CacheLRUWrapper(
+                    new DummyInfrastructureFileDescriptor(tmpIndexFile),
+                    new DummyInfrastructureFileDescriptor(tmpCache));
+            reader.lock();
+            try {
+                reader.load();
+                assertTrue(reader.getLRUSortedEntries().equals(clw.getLRUSortedEntries()));
+            } finally {
+                reader.unlock();
+            }
+        } finally {
+            cacheIndexFile.delete();
+            new File(cacheIndexFile.getPath() + CacheLRUJournal.JOURNAL_SUFFIX).delete();
+        }
+    }
+
+    @Test
+    public void testCacheHitIsJournaled() throws Exception {
+        final String cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-lru-journal").toString());
+        try {
+            final URL location = new URL("http://example.com/journal/a.jar");
+            final File cached = CacheUtil.getCacheFile(location, null);
+            final File recentlyUsed = CacheLRUWrapper.getInstance().getRecentlyUsedFile().getFile();
+            final File journal = new File(recentlyUsed.getPath() + CacheLRUJournal.JOURNAL_SUFFIX);
+            final byte[] stored = Files.readAllBytes(recentlyUsed.toPath());
+            final long journaled = journal.length();
+
+            assertEquals(cached, CacheUtil.getCacheFile(location, null));
+
+            assertTrue("the hit must be appended to the journal", journal.length() > journaled);
+            assertArrayEquals("the hit must not rewrite recently_used", stored, Files.readAllBytes(recentlyUsed.toPath()));
+        } finally {
+            CacheUtil.clearCache();
+            PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+        }
+    }
+
+    private long timeConcurrentHits(final boolean storeOnHit) throws InterruptedException {
+        final int noThreads = 8;
+        final int noHits = 50;
+        final AtomicInteger hits = new AtomicInteger();
+        final Thread[] threads = new Thread[noThreads];
+        for (int i = 0; i < noThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < noHits; j++) {
+                    synchronized (clw) {
+                        clw.lock();
+                        try {
+                            clw.load();
+                            // always touch the least recently used entry
+                            final String key = clw.getLRUSortedEntries().get(noEntriesCacheFile - 1).getKey();
+                            if (clw.updateEntry(key)) {
+                                hits.incrementAndGet();
+                            }
+                            if (storeOnHit) {
+                                clw.store();
+                            }
+                        } finally {
+                            clw.unlock();
+                        }
+                    }
+                }
+            });
+        }
+        final long start = System.nanoTime();
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        final long duration = System.nanoTime() - start;
+        assertTrue("all hits must update an entry", hits.get() == noThreads * noHits);
+        return duration;
+    }
+
     private void fillCacheIndexFile(int noEntries) {
 
         // fill cache index file
@@ -0,0 +1,117 @@
+package net.sourceforge.jnlp.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+public class DownloadSchedulerTest {
+
+    /**
+     * Executor which only collects the tasks, so the test decides when a download finishes.
+     */
+    private static class ManualExecutor implements Executor {
+        private final List<Runnable> started = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(final Runnable command) {
+            started.add(command);
+        }
+
+        synchronized Runnable take(final int index) {
+            return started.remove(index);
+        }
+
+        synchronized int size() {
+            return started.size();
+        }
+    }
+
+    private static Resource resource(final String url) throws Exception {
+        return Resource.getResource(new URL(url), null, UpdatePolicy.ALWAYS);
+    }
+
+    private static Runnable record(final List<String> log, final String name) {
+        return () -> log.add(name);
+    }
+
+    @Test
+    public void testPerHostLimit() throws Exception {
+        final ManualExecutor executor = new ManualExecutor();
+        final DownloadScheduler scheduler = new DownloadScheduler(10, 2, executor);
+        final List<String> log = new ArrayList<>();
+
+        scheduler.schedule(resource("http://one.example.com/perhost/a.jar"), record(log, "a"));
+        scheduler.schedule(resource("http://one.example.com/perhost/b.jar"), record(log, "b"));
+        scheduler.schedule(resource("http://one.example.com/perhost/c.jar"), record(log, "c"));
+        scheduler.schedule(resource("http://two.example.com/perhost/d.jar"), record(log, "d"));
+
+        Assert.assertEquals(3, scheduler.getActiveDownloads());
+        Assert.assertEquals(2, scheduler.getActiveDownloads(new URL("http://one.example.com/")));
+        Assert.assertEquals(1, scheduler.getQueueDepth());
+
+        executor.take(0).run();
+        Assert.assertEquals(3, scheduler.getActiveDownloads());
+        Assert.assertEquals(0, scheduler.getQueueDepth());
+        while (executor.size() > 0) {
+            executor.take(0).run();
+        }
+        Assert.assertEquals(0, scheduler.getActiveDownloads());
+        Assert.assertEquals(4, scheduler.getStartedDownloads());
+        Assert.assertEquals(4, log.size());
+    }
+
+    @Test
+    public void testGlobalLimitAndPriorities() throws Exception {
+        final ManualExecutor executor = new ManualExecutor();
+        final DownloadScheduler scheduler = new DownloadScheduler(1, 0, executor);
+        final List<String> log = new ArrayList<>();
+
+        final Resource lazy = resource("http://example.com/priorities/lazy.jar");
+        lazy.raisePriority(Resource.Priority.LOW);
+        final Resource icon = resource("http://example.com/priorities/icon.png");
+        icon.raisePriority(Resource.Priority.LOW);
+        final Resource main = resource("http://example.com/priorities/main.jar");
+        main.raisePriority(Resource.Priority.HIGH);
+
+        scheduler.schedule(resource("http://example.com/priorities/first.jar"), record(log, "first"));
+        scheduler.schedule(lazy, record(log, "lazy"));
+        scheduler.schedule(icon, record(log, "icon"));
+        scheduler.schedule(main, record(log, "main"));
+        Assert.assertEquals(1, scheduler.getActiveDownloads());
+        Assert.assertEquals(3, scheduler.getQueueDepth());
+
+        // somebody waits for the icon now
+        Assert.assertTrue(icon.raisePriority(Resource.Priority.NORMAL));
+        scheduler.reprioritize(icon);
+
+        while (executor.size() > 0) {
+            executor.take(0).run();
+        }
+        Assert.assertArrayEquals(new String[]{"first", "main", "icon", "lazy"}, log.toArray());
+    }
+
+    @Test
+    public void testPriorityIsNeverLowered() throws Exception {
+        final Resource r = resource("http://example.com/lowered/a.jar");
+        Assert.assertTrue(r.raisePriority(Resource.Priority.HIGH));
+        Assert.assertFalse(r.raisePriority(Resource.Priority.LOW));
+        Assert.assertEquals(Resource.Priority.HIGH, r.getPriority());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailingDownloadReleasesSlot() throws Exception {
+        final DownloadScheduler scheduler = new DownloadScheduler(1, 1, CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        scheduler.schedule(resource("http://example.com/failing/a.jar"), () -> {
+            throw new RuntimeException("expected");
+        });
+        scheduler.schedule(resource("http://example.com/failing/b.jar"), done::countDown);
+        done.await();
+    }
+}
@@ -0,0 +1,85 @@
+package net.sourceforge.jnlp.cache;
+
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class JarPackageIndexTest {
+
+    private static String cacheDir;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-package-index").toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    private static void writeJar(final File jar, final String... entries) throws Exception {
+        jar.getParentFile().mkdirs();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (final String entry : entries) {
+                out.putNextEntry(new JarEntry(entry));
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void testIndexContainsPackagesOfEntries() throws Exception {
+        final File jar = File.createTempFile("itw", ".jar");
+        jar.deleteOnExit();
+        writeJar(jar, "com/example/", "com/example/Main.class", "com/example/ui/icon.png", "Root.class");
+
+        final JarPackageIndex index = JarPackageIndex.read(jar);
+
+        Assert.assertTrue(index.mayContain("com/example/Other.class"));
+        Assert.assertTrue(index.mayContain("com/example/ui/other.png"));
+        Assert.assertTrue(index.mayContain("Another.class"));
+        Assert.assertFalse(index.mayContain("com/Main.class"));
+        Assert.assertFalse(index.mayContain("org/example/Main.class"));
+
+        final JarPackageIndex parsed = JarPackageIndex.parse(index.toString());
+        Assert.assertEquals(index.toString(), parsed.toString());
+        Assert.assertTrue(parsed.mayContain("Another.class"));
+        Assert.assertFalse(parsed.mayContain("org/example/Main.class"));
+    }
+
+    @Test
+    public void testJarWithNestedJarsMayContainAnything() throws Exception {
+        final File jar = File.createTempFile("itw", ".jar");
+        jar.deleteOnExit();
+        writeJar(jar, "com/example/Main.class", "lib/nested.jar");
+
+        final JarPackageIndex index = JarPackageIndex.parse(JarPackageIndex.read(jar).toString());
+
+        Assert.assertTrue(index.mayContain("org/example/Main.class"));
+    }
+
+    @Test
+    public void testIndexOfCachedJarIsStored() throws Exception {
+        final URL location = new URL("http://example.com/package-index/a.jar");
+        Assert.assertNull(JarPackageIndex.get(new URL("file:///package-index/a.jar"), null));
+        Assert.assertNull(JarPackageIndex.get(location, null));
+
+        writeJar(CacheUtil.getCacheFile(location, null), "com/example/Main.class");
+
+        final JarPackageIndex index = JarPackageIndex.get(location, null);
+        Assert.assertTrue(index.mayContain("com/example/Main.class"));
+        Assert.assertEquals("com/example", new CacheEntry(location, null).getPackages());
+    }
+}
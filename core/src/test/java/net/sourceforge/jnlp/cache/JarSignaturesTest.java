@@ -0,0 +1,102 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.testing.tools.CodeSignerCreator;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.cert.CertPath;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class JarSignaturesTest {
+
+    private static String cacheDir;
+    private static CertPath alpha;
+    private static CertPath beta;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-signatures").toString());
+        alpha = CodeSignerCreator.getOneCodeSigner("CN=Alpha Signer, O=IcedTea", new Date(), 365).getSignerCertPath();
+        beta = CodeSignerCreator.getOneCodeSigner("CN=Beta Signer, O=IcedTea", new Date(), 365).getSignerCertPath();
+    }
+
+    @AfterClass
+    public static void teardown() {
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    private static JarSignatures createSignatures() {
+        final Map<CertPath, Integer> signers = new LinkedHashMap<>();
+        signers.put(alpha, 5);
+        signers.put(beta, 3);
+        return new JarSignatures(5, signers);
+    }
+
+    @Test
+    public void testStoredFormCanBeParsed() throws Exception {
+        final JarSignatures signatures = createSignatures();
+
+        final JarSignatures parsed = JarSignatures.parse(signatures.toString());
+
+        Assert.assertEquals(5, parsed.getSignableEntries());
+        Assert.assertEquals(signatures.getSigners(), parsed.getSigners());
+        Assert.assertEquals(signatures.toString(), parsed.toString());
+        Assert.assertEquals(0, JarSignatures.parse(new JarSignatures(0, new LinkedHashMap<>()).toString()).getSigners().size());
+    }
+
+    @Test
+    public void testSignaturesAreUsedWhileTheJarIsUnchanged() throws Exception {
+        final URL location = new URL("http://example.com/signatures/a.jar");
+        final File jar = CacheUtil.getCacheFile(location, null);
+        jar.getParentFile().mkdirs();
+        Files.write(jar.toPath(), new byte[]{1, 2, 3});
+
+        final String fingerprint = JarSignatures.fingerprint(location, null, jar);
+        Assert.assertNotNull(fingerprint);
+        Assert.assertNull(JarSignatures.get(location, null, fingerprint));
+
+        JarSignatures.store(location, null, jar, fingerprint, createSignatures());
+        final JarSignatures stored = JarSignatures.get(location, null, JarSignatures.fingerprint(location, null, jar));
+        Assert.assertNotNull(stored);
+        Assert.assertEquals(createSignatures().getSigners(), stored.getSigners());
+
+        // same size and modification time, different content
+        final long lastModified = jar.lastModified();
+        Files.write(jar.toPath(), new byte[]{1, 2, 4});
+        jar.setLastModified(lastModified);
+        Assert.assertNull(JarSignatures.get(location, null, JarSignatures.fingerprint(location, null, jar)));
+    }
+
+    @Test
+    public void testSignaturesOfModifiedJarAreNotStored() throws Exception {
+        final URL location = new URL("http://example.com/signatures/b.jar");
+        final File jar = CacheUtil.getCacheFile(location, null);
+        jar.getParentFile().mkdirs();
+        Files.write(jar.toPath(), new byte[]{1, 2, 3});
+        final String fingerprint = JarSignatures.fingerprint(location, null, jar);
+
+        Files.write(jar.toPath(), new byte[]{1, 2, 3, 4});
+        JarSignatures.store(location, null, jar, fingerprint, createSignatures());
+
+        Assert.assertNull(JarSignatures.get(location, null, fingerprint));
+    }
+
+    @Test
+    public void testOnlyCachedJarsHaveFingerprint() throws Exception {
+        final File jar = File.createTempFile("itw", ".jar");
+        jar.deleteOnExit();
+
+        Assert.assertNull(JarSignatures.fingerprint(jar.toURI().toURL(), null, jar));
+        Assert.assertNull(JarSignatures.fingerprint(new URL("http://example.com/signatures/c.jar"), null, jar));
+    }
+}
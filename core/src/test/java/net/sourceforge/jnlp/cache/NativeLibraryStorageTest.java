@@ -39,11 +39,16 @@ package net.sourceforge.jnlp.cache;
 
 import net.adoptopenjdk.icedteaweb.jnlp.version.Version;
 import net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils.assertNoFileLeak;
@@ -53,6 +58,20 @@ import static org.junit.Assert.assertTrue;
 
 public class NativeLibraryStorageTest {
 
+    private static String cacheDir;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-natives").toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
     /**************************************************************************
      *                          Test helpers                                    *
      **************************************************************************/
@@ -168,4 +187,41 @@ public class NativeLibraryStorageTest {
         storage.cleanupTemporaryFolder();
         assertFalse(searchDirectory.exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNativeLibrariesAreStoredOnce() throws Exception {
+        final File tempDirectory = FileTestUtils.createTempDirectory();
+        final File library = new File(tempDirectory, "stored.so");
+        FileTestUtils.createFileWithContents(library, "first");
+        final File jarLocation = new File(tempDirectory, "stored.jar");
+        FileTestUtils.createJarWithContents(jarLocation, library);
+        final URL jarUrl = jarLocation.toURI().toURL();
+
+        final NativeLibraryStorage first = nativeLibraryStorageWithCache(jarUrl);
+        first.addSearchJar(jarUrl);
+        final File stored = first.findLibrary("stored.so");
+        assertTrue(stored != null);
+        final File store = NativeLibraryStorage.getStore(PathsAndFiles.CACHE_DIR.getFile());
+        assertEquals(store, stored.getParentFile().getParentFile());
+
+        /* the stored file is used as is by the next launch */
+        FileTestUtils.createFileWithContents(stored, "already stored");
+        final NativeLibraryStorage second = nativeLibraryStorageWithCache(jarUrl);
+        second.addSearchJar(jarUrl);
+        assertEquals(stored, second.findLibrary("stored.so"));
+        assertEquals("already stored", new String(Files.readAllBytes(stored.toPath()), "UTF-8"));
+
+        /* a modified jar is copied again */
+        FileTestUtils.createFileWithContents(library, "second");
+        FileTestUtils.createJarWithContents(jarLocation, library);
+        final NativeLibraryStorage third = nativeLibraryStorageWithCache(jarUrl);
+        third.addSearchJar(jarUrl);
+        final File modified = third.findLibrary("stored.so");
+        assertFalse(stored.equals(modified));
+        assertEquals("second", new String(Files.readAllBytes(modified.toPath()), "UTF-8"));
+
+        assertTrue(NativeLibraryStorage.removeUnreferenced(PathsAndFiles.CACHE_DIR.getFile(), Collections.singleton(modified.getParentFile().getName())) > 0);
+        assertFalse(stored.exists());
+        assertTrue(modified.exists());
+    }
+}
@@ -0,0 +1,115 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.http.HttpMethod;
+import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
+import net.adoptopenjdk.icedteaweb.testing.ServerLauncher;
+import net.adoptopenjdk.icedteaweb.testing.TinyHttpdImpl;
+import net.sourceforge.jnlp.config.ConfigurationConstants;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import net.sourceforge.jnlp.runtime.JNLPRuntime;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class ResourceDownloaderConditionalGetTest {
+
+    private static ServerLauncher server;
+    private static File serverDir;
+    private static final Map<String, Map<String, Integer>> requests = new ConcurrentHashMap<>();
+
+    private static String cacheDir;
+    private static String conditionalGet;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        serverDir = Files.createTempDirectory("itw-conditional").toFile();
+        serverDir.deleteOnExit();
+        server = ServerAccess.getIndependentInstance(serverDir.getAbsolutePath(), ServerAccess.findFreePort());
+        server.setSupportLastModified(true);
+        server.setRequestsCounter(requests);
+
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-conditional-cache").toString());
+        conditionalGet = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_HTTP_CONDITIONAL_GET);
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_HTTP_CONDITIONAL_GET, Boolean.TRUE.toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server.stop();
+        JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_HTTP_CONDITIONAL_GET, conditionalGet);
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    private static int requestCount(final String fileName, final HttpMethod method) throws Exception {
+        final Map<String, Integer> record = requests.get(TinyHttpdImpl.urlToFilePath("/" + fileName));
+        if (record == null || record.get(method.name()) == null) {
+            return 0;
+        }
+        return record.get(method.name());
+    }
+
+    private static void download(final Resource resource) {
+        resource.changeStatus(EnumSet.allOf(Resource.Status.class), EnumSet.of(Resource.Status.PRECONNECT, Resource.Status.PREDOWNLOAD));
+        new ResourceDownloader(resource).run();
+        Assert.assertTrue(resource.isSet(Resource.Status.DOWNLOADED));
+        Assert.assertFalse(resource.isSet(Resource.Status.ERROR));
+    }
+
+    private static String content(final Resource resource) throws Exception {
+        return new String(Files.readAllBytes(resource.getLocalFile().toPath()), UTF_8);
+    }
+
+    @Test
+    public void testSingleRequestPerLaunch() throws Exception {
+        final String fileName = "conditional-resource.txt";
+        final Path file = new File(serverDir, fileName).toPath();
+        Files.write(file, "first".getBytes(UTF_8));
+        file.toFile().setLastModified(System.currentTimeMillis() - 60000);
+        final URL url = server.getUrl(fileName);
+        final Resource resource = Resource.getResource(url, null, UpdatePolicy.ALWAYS);
+
+        // cold: a single GET streams into the cache
+        download(resource);
+        Assert.assertEquals("first", content(resource));
+        Assert.assertEquals(1, requestCount(fileName, HttpMethod.GET));
+        Assert.assertEquals(0, requestCount(fileName, HttpMethod.HEAD));
+
+        // warm: a single GET answered with 304
+        final long notModified = ResourceDownloader.getNotModifiedCount();
+        download(resource);
+        Assert.assertEquals("first", content(resource));
+        Assert.assertEquals(2, requestCount(fileName, HttpMethod.GET));
+        Assert.assertEquals(0, requestCount(fileName, HttpMethod.HEAD));
+        Assert.assertEquals(notModified + 1, ResourceDownloader.getNotModifiedCount());
+
+        // changed on the server: a single GET with the new content
+        Files.write(file, "second".getBytes(UTF_8));
+        file.toFile().setLastModified(System.currentTimeMillis());
+        download(resource);
+        Assert.assertEquals("second", content(resource));
+        Assert.assertEquals(3, requestCount(fileName, HttpMethod.GET));
+        Assert.assertEquals(0, requestCount(fileName, HttpMethod.HEAD));
+        Assert.assertEquals(notModified + 1, ResourceDownloader.getNotModifiedCount());
+    }
+
+    @Test
+    public void testMissingResourceIsAnError() throws Exception {
+        final Resource resource = Resource.getResource(server.getUrl("conditional-missing.txt"), null, UpdatePolicy.ALWAYS);
+        resource.changeStatus(EnumSet.allOf(Resource.Status.class), EnumSet.of(Resource.Status.PRECONNECT, Resource.Status.PREDOWNLOAD));
+        new ResourceDownloader(resource).run();
+        Assert.assertTrue(resource.isSet(Resource.Status.ERROR));
+    }
+}
@@ -0,0 +1,112 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.testing.ServerAccess;
+import net.adoptopenjdk.icedteaweb.testing.ServerLauncher;
+import net.adoptopenjdk.icedteaweb.testing.TinyHttpdImpl;
+import net.sourceforge.jnlp.config.PathsAndFiles;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.EnumSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class ResourceDownloaderResumeTest {
+
+    private static ServerLauncher server;
+    private static File serverDir;
+    private static String cacheDir;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        serverDir = Files.createTempDirectory("itw-resume").toFile();
+        serverDir.deleteOnExit();
+        server = ServerAccess.getIndependentInstance(serverDir.getAbsolutePath(), ServerAccess.findFreePort());
+        server.setSupportLastModified(true);
+
+        cacheDir = PathsAndFiles.CACHE_DIR.getFullPath();
+        PathsAndFiles.CACHE_DIR.setValue(Files.createTempDirectory("itw-resume-cache").toString());
+    }
+
+    @AfterClass
+    public static void teardown() {
+        server.stop();
+        CacheUtil.clearCache();
+        PathsAndFiles.CACHE_DIR.setValue(cacheDir);
+    }
+
+    /**
+     * Puts the first bytes of an interrupted download into the cache, as the downloader leaves it.
+     */
+    private static void interruptedDownload(final URL url, final String partialContent, final long fullLength, final String validator) throws Exception {
+        final CacheEntry entry = new CacheEntry(url, null);
+        entry.lock();
+        try {
+            Files.write(CacheUtil.getCacheFile(url, null).toPath(), partialContent.getBytes(UTF_8));
+            entry.setRemoteContentLength(fullLength);
+            entry.setPartial(partialContent.length(), validator);
+            entry.store();
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    private static String download(final URL url) throws Exception {
+        final Resource resource = Resource.getResource(url, null, UpdatePolicy.ALWAYS);
+        resource.changeStatus(EnumSet.allOf(Resource.Status.class), EnumSet.of(Resource.Status.PRECONNECT));
+        new ResourceDownloader(resource).run();
+        Assert.assertTrue(resource.isSet(Resource.Status.DOWNLOADED));
+        return new String(Files.readAllBytes(resource.getLocalFile().toPath()), UTF_8);
+    }
+
+    @Test
+    public void testInterruptedDownloadIsResumed() throws Exception {
+        final File file = new File(serverDir, "resume.txt");
+        Files.write(file.toPath(), "abcdefghij".getBytes(UTF_8));
+        final URL url = server.getUrl("resume.txt");
+
+        // the first five bytes were downloaded before, marked differently to see they are kept
+        interruptedDownload(url, "ABCDE", file.length(), TinyHttpdImpl.eTag(file));
+
+        Assert.assertEquals("ABCDEfghij", download(url));
+        final CacheEntry entry = new CacheEntry(url, null);
+        Assert.assertEquals(0, entry.getPartialLength());
+        Assert.assertNull(entry.getPartialValidator());
+        Assert.assertTrue(entry.isCached());
+    }
+
+    @Test
+    public void testResumeNeedsNoExtraRequest() throws Exception {
+        final File fresh = new File(serverDir, "resume-fresh.txt");
+        Files.write(fresh.toPath(), "0123456789".getBytes(UTF_8));
+        final File resumed = new File(serverDir, "resume-requests.txt");
+        Files.write(resumed.toPath(), "0123456789".getBytes(UTF_8));
+        final URL resumedUrl = server.getUrl("resume-requests.txt");
+        interruptedDownload(resumedUrl, "01234", resumed.length(), TinyHttpdImpl.eTag(resumed));
+
+        long before = ResourceDownloader.getRequestCount();
+        Assert.assertEquals("0123456789", download(server.getUrl("resume-fresh.txt")));
+        final long full = ResourceDownloader.getRequestCount() - before;
+
+        before = ResourceDownloader.getRequestCount();
+        Assert.assertEquals("0123456789", download(resumedUrl));
+        Assert.assertEquals(full, ResourceDownloader.getRequestCount() - before);
+        Assert.assertEquals(10, new CacheEntry(resumedUrl, null).getRemoteContentLength());
+    }
+
+    @Test
+    public void testChangedContentIsDownloadedFully() throws Exception {
+        final File file = new File(serverDir, "resume-changed.txt");
+        Files.write(file.toPath(), "klmnopqrst".getBytes(UTF_8));
+        final URL url = server.getUrl("resume-changed.txt");
+
+        interruptedDownload(url, "KLMNO", file.length(), "\"outdated\"");
+
+        Assert.assertEquals("klmnopqrst", download(url));
+    }
+}
@@ -199,7 +199,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
             File versionedFileForServerWithoutHeader = new File(fileForServerWithoutHeader.getParentFile(), fileForServerWithoutHeader.getName() + "-2.0");
             versionedFileForServerWithoutHeader.createNewFile();
 
-            ResourceDownloader resourceDownloader = new ResourceDownloader(null, null);
+            ResourceDownloader resourceDownloader = new ResourceDownloader(null);
             Resource r1 = Resource.getResource(testServer.getUrl(fileForServerWithHeader.getName()), null, UpdatePolicy.NEVER);
             Resource r2 = Resource.getResource(testServerWithBrokenHead.getUrl(fileForServerWithoutHeader.getName()), null, UpdatePolicy.NEVER);
             Resource r3 = Resource.getResource(testServer.getUrl(versionedFileForServerWithHeader.getName()), new Version("1.0"), UpdatePolicy.NEVER);
@@ -321,7 +321,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
         String expected = "testDownloadResource";
         Resource resource = setupResource("download-resource", expected);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resourceDownloader.run();
@@ -341,7 +341,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
 
         Resource resource = Resource.getResource(downloadServer.getUrl("download-packgz.jar"), null, UpdatePolicy.NEVER);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resource.setDownloadOptions(new DownloadOptions(true, false));
@@ -366,7 +366,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
         URL url = downloadServer.getUrl("download-version.jar");
         Resource resource = Resource.getResource(url, new Version("1.0"), UpdatePolicy.NEVER);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resource.setDownloadOptions(new DownloadOptions(false, true));
@@ -387,7 +387,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
 
         Resource resource = Resource.getResource(downloadServer.getUrl("download-packgz.jar"), new Version("1.0"), UpdatePolicy.NEVER);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resource.setDownloadOptions(new DownloadOptions(true, true));
@@ -417,7 +417,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
 
         Resource resource = Resource.getResource(url, null, UpdatePolicy.NEVER);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resourceDownloader.run();
@@ -429,7 +429,7 @@ public class ResourceDownloaderTest extends NoStdOutErrTest {
     public void testDownloadNotExistingResourceFails() throws IOException {
         Resource resource = Resource.getResource(new URL(downloadServer.getUrl() + "/notexistingfile"), null, UpdatePolicy.NEVER);
 
-        ResourceDownloader resourceDownloader = new ResourceDownloader(resource, new Object());
+        ResourceDownloader resourceDownloader = new ResourceDownloader(resource);
 
         resource.setStatusFlag(Resource.Status.PRECONNECT);
         resourceDownloader.run();
@@ -45,11 +45,13 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static net.sourceforge.jnlp.cache.Resource.Status.CONNECTED;
 import static net.sourceforge.jnlp.cache.Resource.Status.CONNECTING;
 import static net.sourceforge.jnlp.cache.Resource.Status.DOWNLOADED;
 import static net.sourceforge.jnlp.cache.Resource.Status.DOWNLOADING;
+import static net.sourceforge.jnlp.cache.Resource.Status.ERROR;
 import static net.sourceforge.jnlp.cache.Resource.Status.PRECONNECT;
 import static net.sourceforge.jnlp.cache.Resource.Status.PREDOWNLOAD;
 import static org.junit.Assert.assertEquals;
@@ -175,6 +177,25 @@ public class ResourceTest {
         assertFalse("Resource should not have had PRECONNECT set", hasFlag(res, PRECONNECT));
     }
 
+    @Test
+    public void testCompletion() throws Exception {
+        Resource res = createResource("Completion");
+        res.resetStatus();
+        CompletableFuture<Resource> completion = res.getCompletion();
+        changeStatus(res, EnumSet.noneOf(Resource.Status.class), EnumSet.of(PRECONNECT, DOWNLOADING));
+        assertFalse("Completion should not be done while downloading", completion.isDone());
+
+        changeStatus(res, EnumSet.of(PRECONNECT, DOWNLOADING), EnumSet.of(DOWNLOADED));
+        assertTrue("Completion should be done when downloaded", completion.isDone());
+        assertEquals(res, completion.get());
+
+        res.resetStatus();
+        assertTrue("Completion of a finished download should stay done", completion.isDone());
+        assertFalse("Completion of the next download should not be done", res.getCompletion().isDone());
+        res.setStatusFlag(ERROR);
+        assertTrue("Completion should be done on error", res.getCompletion().isDone());
+    }
+
     private static Resource createResource(String testName) throws MalformedURLException {
         URL dummyUrl = new URL("http://example.com/applet" + testName + ".jar");
         return Resource.getResource(dummyUrl, new Version("1.0"), UpdatePolicy.ALWAYS);
@@ -55,6 +55,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -284,4 +285,60 @@ public class ResourceTrackerTest extends NoStdOutErrTest{
         String output = new String(Files.readAllBytes(downloadFile.toPath()));
         assertEquals(s, output);
     }
+
+    @Test
+    public void testEquivalentUrlsShareResource() throws Exception {
+        final Resource resource = Resource.getResource(new URL("http://Example.com:80/shared%20space.jar"), null, UpdatePolicy.ALWAYS);
+        Assert.assertSame(resource, Resource.getResource(new URL("http://example.com/shared space.jar"), null, UpdatePolicy.ALWAYS));
+        Assert.assertNotSame(resource, Resource.getResource(new URL("http://example.com/shared space.jar?q"), null, UpdatePolicy.ALWAYS));
+        Assert.assertEquals(resource.hashCode(), Resource.getResource(new URL("http://EXAMPLE.com/shared%20space.jar"), null, UpdatePolicy.ALWAYS).hashCode());
+    }
+
+    @Test
+    public void testCachedResourceIsUpToDateOnlyUnderItsPolicy() throws Exception {
+        final URL current = new URL("http://example.com/up-to-date/current.jar");
+        final URL outdated = new URL("http://example.com/up-to-date/outdated.jar");
+        for (final URL location : new URL[]{current, outdated}) {
+            final File cached = CacheUtil.getCacheFile(location, null);
+            cached.getParentFile().mkdirs();
+            Files.write(cached.toPath(), "jar".getBytes(UTF_8));
+        }
+
+        final ResourceTracker tracker = new ResourceTracker(false);
+        tracker.addResource(current, null, null, UpdatePolicy.NEVER);
+        tracker.addResource(outdated, null, null, UpdatePolicy.ALWAYS);
+
+        assertTrue(tracker.isUpToDate(current));
+        Assert.assertFalse(tracker.isUpToDate(outdated));
+    }
+
+    @Test
+    public void testKeyIgnoresCaseOfSchemeAndHostAndDefaultPort() throws Exception {
+        final Resource resource = Resource.getResource(new URL("https://example.com/key/a.jar"), null, UpdatePolicy.ALWAYS);
+        Assert.assertSame(resource, Resource.getResource(new URL("HTTPS://EXAMPLE.COM/key/a.jar"), null, UpdatePolicy.ALWAYS));
+        Assert.assertSame(resource, Resource.getResource(new URL("https://example.com:443/key/a.jar"), null, UpdatePolicy.ALWAYS));
+        Assert.assertNotSame(resource, Resource.getResource(new URL("https://example.com/KEY/a.jar"), null, UpdatePolicy.ALWAYS));
+        Assert.assertNotSame(resource, Resource.getResource(new URL("http://example.com/key/a.jar"), null, UpdatePolicy.ALWAYS));
+
+        final ResourceTracker tracker = new ResourceTracker();
+        tracker.addResource(new URL("http://example.com:80/key/b.jar"), null, null, UpdatePolicy.ALWAYS);
+        Assert.assertEquals(-1, tracker.getTotalSize(new URL("HTTP://Example.com/key/b.jar")));
+    }
+
+    @Test
+    public void testCollectedResourceIsDropped() throws Exception {
+        final URL location = new URL("http://example.com/collected/a.jar");
+        Resource resource = Resource.getResource(location, null, UpdatePolicy.ALWAYS);
+        final WeakReference<Resource> reference = new WeakReference<>(resource);
+        Assert.assertTrue(Resource.isShared(location));
+
+        resource = null;
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assert.assertNull("the resource is not referenced anymore", reference.get());
+        Assert.assertFalse(Resource.isShared(location));
+    }
 }
@@ -0,0 +1,193 @@
+package net.sourceforge.jnlp.cache;
+
+import net.adoptopenjdk.icedteaweb.http.HttpMethod;
+import net.sourceforge.jnlp.cache.ResourceDownloader.UrlRequestResult;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class UrlProberTest {
+
+    /**
+     * Prober answering from a table instead of the network. Urls without an answer never respond
+     * until they are cancelled, like a blackholed host.
+     */
+    private static class FakeProber extends UrlProber {
+        private final Map<String, Integer> answers = new ConcurrentHashMap<>();
+        private final List<String> requested = new CopyOnWriteArrayList<>();
+
+        FakeProber(final long stagger) {
+            super(CachedDaemonThreadPoolProvider.DAEMON_THREAD_POOL, stagger);
+        }
+
+        FakeProber answer(final String url, final int code) {
+            answers.put(url, code);
+            return this;
+        }
+
+        @Override
+        UrlRequestResult request(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
+            requested.add(requestMethod + " " + url);
+            final Integer code = answers.get(url.toString());
+            if (code == null) {
+                try {
+                    Thread.sleep(60000);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new ConnectException("blackholed");
+            }
+            if (code < 0) {
+                throw new ConnectException("refused");
+            }
+            return new UrlRequestResult(code, null, 0, 0);
+        }
+    }
+
+    private static Resource resource(final String url) throws Exception {
+        return Resource.getResource(new URL(url), null, UpdatePolicy.ALWAYS);
+    }
+
+    private static List<URL> urls(final String... urls) throws Exception {
+        final URL[] result = new URL[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            result[i] = new URL(urls[i]);
+        }
+        return Arrays.asList(result);
+    }
+
+    @Before
+    public void forgetSchemes() {
+        UrlProber.forgetSchemes();
+    }
+
+    @Test(timeout = 10000)
+    public void testBlackholedCandidateDoesNotBlock() throws Exception {
+        final FakeProber prober = new FakeProber(100)
+                .answer("http://blackhole.example.com/a.jar", 200);
+        final UrlProber.Result result = prober.probe(resource("https://blackhole.example.com/a.jar"),
+                urls("https://blackhole.example.com/a.jar", "http://blackhole.example.com/a.jar"), Collections.emptyMap());
+
+        Assert.assertFalse(result.isSequentialProbingRequired());
+        Assert.assertEquals(new URL("http://blackhole.example.com/a.jar"), result.getBest().getRedirectURL());
+    }
+
+    @Test(timeout = 10000)
+    public void testPreferredCandidateGetsHeadStart() throws Exception {
+        final FakeProber prober = new FakeProber(60000)
+                .answer("https://order.example.com/a.jar", 200)
+                .answer("http://order.example.com/a.jar", 200);
+        final UrlProber.Result result = prober.probe(resource("https://order.example.com/a.jar"),
+                urls("https://order.example.com/a.jar", "http://order.example.com/a.jar"), Collections.emptyMap());
+
+        Assert.assertEquals(new URL("https://order.example.com/a.jar"), result.getBest().getRedirectURL());
+        Assert.assertFalse(prober.requested.contains("HEAD http://order.example.com/a.jar"));
+    }
+
+    @Test(timeout = 10000)
+    public void testSlowerPreferredCandidateWins() throws Exception {
+        final FakeProber prober = new FakeProber(200) {
+            @Override
+            UrlRequestResult request(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
+                if ("https".equals(url.getProtocol())) {
+                    // answers after the other candidate, but within the stagger
+                    try {
+                        Thread.sleep(300);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.request(url, requestProperties, requestMethod);
+            }
+        }
+                .answer("https://slow.example.com/a.jar", 200)
+                .answer("http://slow.example.com/a.jar", 200);
+        final UrlProber.Result result = prober.probe(resource("https://slow.example.com/a.jar"),
+                urls("https://slow.example.com/a.jar", "http://slow.example.com/a.jar"), Collections.emptyMap());
+
+        Assert.assertEquals(new URL("https://slow.example.com/a.jar"), result.getBest().getRedirectURL());
+        Assert.assertTrue(prober.requested.contains("HEAD http://slow.example.com/a.jar"));
+        Assert.assertEquals("https", UrlProber.orderByPreferredScheme(new URL("https://slow.example.com/b.jar"),
+                urls("http://slow.example.com/b.jar", "https://slow.example.com/b.jar")).get(0).getProtocol());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedCandidateStartsNextImmediately() throws Exception {
+        final FakeProber prober = new FakeProber(60000)
+                .answer("https://refused.example.com/a.jar", -1)
+                .answer("http://refused.example.com/a.jar", 200);
+        final UrlProber.Result result = prober.probe(resource("https://refused.example.com/a.jar"),
+                urls("https://refused.example.com/a.jar", "http://refused.example.com/a.jar"), Collections.emptyMap());
+
+        Assert.assertEquals(new URL("http://refused.example.com/a.jar"), result.getBest().getRedirectURL());
+        // a refused connection is not retried with GET
+        Assert.assertFalse(prober.requested.contains("GET https://refused.example.com/a.jar"));
+    }
+
+    @Test(timeout = 10000)
+    public void testHeadNotAllowedFallsBackToGet() throws Exception {
+        final FakeProber prober = new FakeProber(0) {
+            @Override
+            UrlRequestResult request(final URL url, final Map<String, String> requestProperties, final HttpMethod requestMethod) throws IOException {
+                return new UrlRequestResult(requestMethod == HttpMethod.HEAD ? 405 : 200, null, 0, 0);
+            }
+        };
+        final UrlProber.Result result = prober.probe(resource("http://head.example.com/a.jar"),
+                urls("http://head.example.com/a.jar"), Collections.emptyMap());
+
+        Assert.assertEquals(new URL("http://head.example.com/a.jar"), result.getBest().getRedirectURL());
+    }
+
+    @Test(timeout = 10000)
+    public void testRedirectRequiresSequentialProbing() throws Exception {
+        final FakeProber prober = new FakeProber(60000)
+                .answer("http://redirect.example.com/a.jar", 302)
+                .answer("http://redirect.example.com/a.jar.gz", 200);
+        final UrlProber.Result result = prober.probe(resource("http://redirect.example.com/a.jar"),
+                urls("http://redirect.example.com/a.jar", "http://redirect.example.com/a.jar.gz"), Collections.emptyMap());
+
+        Assert.assertTrue(result.isSequentialProbingRequired());
+        Assert.assertNull(result.getBest());
+    }
+
+    @Test(timeout = 10000)
+    public void testAllCandidatesFailed() throws Exception {
+        final FakeProber prober = new FakeProber(0)
+                .answer("http://missing.example.com/a.jar", 404)
+                .answer("http://missing.example.com/a.jar.gz", -1);
+        final UrlProber.Result result = prober.probe(resource("http://missing.example.com/a.jar"),
+                urls("http://missing.example.com/a.jar", "http://missing.example.com/a.jar.gz"), Collections.emptyMap());
+
+        Assert.assertFalse(result.isSequentialProbingRequired());
+        Assert.assertNull(result.getBest());
+    }
+
+    @Test(timeout = 10000)
+    public void testWinningSchemeIsProbedFirstNextTime() throws Exception {
+        final FakeProber prober = new FakeProber(0)
+                .answer("http://remember.example.com/a.jar", 200)
+                .answer("https://remember.example.com/a.jar", -1);
+        prober.probe(resource("https://remember.example.com/a.jar"),
+                urls("https://remember.example.com/a.jar", "http://remember.example.com/a.jar"), Collections.emptyMap());
+
+        final List<URL> ordered = UrlProber.orderByPreferredScheme(new URL("https://remember.example.com/b.jar"),
+                urls("https://remember.example.com/b.jar", "http://remember.example.com/b.jar"));
+        Assert.assertEquals("http", ordered.get(0).getProtocol());
+        Assert.assertEquals("https", ordered.get(1).getProtocol());
+
+        // other hosts keep their order
+        final List<URL> other = UrlProber.orderByPreferredScheme(new URL("https://other.example.com/b.jar"),
+                urls("https://other.example.com/b.jar", "http://other.example.com/b.jar"));
+        Assert.assertEquals("https", other.get(0).getProtocol());
+    }
+}
@@ -0,0 +1,103 @@
+package net.sourceforge.jnlp.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.Permissions;
+import java.security.Policy;
+import java.security.PrivilegedExceptionAction;
+import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeferredSSLSocketFactoryTest {
+
+    @Test
+    public void testSetupIsDoneOnFirstUseOnly() throws Exception {
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        final SSLSocketFactory factory = context.getSocketFactory();
+        final AtomicInteger setups = new AtomicInteger();
+        final DeferredSSLSocketFactory deferred = new DeferredSSLSocketFactory(() -> {
+            setups.incrementAndGet();
+            return factory;
+        });
+        Assert.assertEquals(0, setups.get());
+
+        Assert.assertArrayEquals(factory.getSupportedCipherSuites(), deferred.getSupportedCipherSuites());
+        Assert.assertSame(factory, deferred.getFactory());
+        Assert.assertEquals(1, setups.get());
+    }
+
+    @Test
+    public void testDefaultFactoryIsUsedIfSetupFailed() {
+        final Class<?> defaultFactory = SSLSocketFactory.getDefault().getClass();
+        Assert.assertEquals(defaultFactory, new DeferredSSLSocketFactory(() -> null).getFactory().getClass());
+
+        final DeferredSSLSocketFactory failed = new DeferredSSLSocketFactory(() -> {
+            throw new IllegalStateException("no key stores");
+        });
+        Assert.assertEquals(defaultFactory, failed.getFactory().getClass());
+    }
+
+    @Test
+    public void testSetupRunsWithOwnPermissionsForSandboxedCaller() throws Exception {
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+        final SSLSocketFactory factory = context.getSocketFactory();
+        // like the key stores, the setup needs all permissions
+        final DeferredSSLSocketFactory deferred = new DeferredSSLSocketFactory(() -> {
+            System.getSecurityManager().checkPermission(new AllPermission());
+            return factory;
+        });
+        final AccessControlContext sandbox = new AccessControlContext(new ProtectionDomain[]{new ProtectionDomain(null, new Permissions())});
+
+        final Policy policy = Policy.getPolicy();
+        Policy.setPolicy(new GrantAllPolicy());
+        System.setSecurityManager(new AllPermissionCheckingSM());
+        try {
+            AccessController.doPrivileged((PrivilegedExceptionAction<Void>) () -> {
+                deferred.createSocket().close();
+                return null;
+            }, sandbox);
+        } finally {
+            System.setSecurityManager(null);
+            Policy.setPolicy(policy);
+        }
+        Assert.assertSame(factory, deferred.getFactory());
+    }
+
+    /**
+     * Grants everything to the code of the class path, a sandbox has static permissions.
+     */
+    private static class GrantAllPolicy extends Policy {
+        @Override
+        public boolean implies(final ProtectionDomain domain, final Permission permission) {
+            return true;
+        }
+    }
+
+    /**
+     * Only checks the permission ITW checks before it loads a key store.
+     */
+    private static class AllPermissionCheckingSM extends SecurityManager {
+        @Override
+        public void checkPermission(final Permission permission) {
+            if (permission instanceof AllPermission) {
+                super.checkPermission(permission);
+            }
+        }
+
+        @Override
+        public void checkPermission(final Permission permission, final Object context) {
+            if (permission instanceof AllPermission) {
+                super.checkPermission(permission, context);
+            }
+        }
+    }
+}
@@ -37,31 +37,62 @@ package net.sourceforge.jnlp.runtime;
 
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.AppletSecurityLevel;
 import net.adoptopenjdk.icedteaweb.client.parts.dialogs.security.appletextendedsecurity.AppletStartupSecuritySettings;
+import net.adoptopenjdk.icedteaweb.jnlp.element.resource.ExtensionDesc;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.testing.annotations.Bug;
 import net.adoptopenjdk.icedteaweb.testing.mock.DummyJNLPFileWithJar;
 import net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils;
+import net.sourceforge.jnlp.JNLPFile;
 import net.sourceforge.jnlp.LaunchException;
+import net.sourceforge.jnlp.ParserSettings;
 import net.sourceforge.jnlp.cache.UpdatePolicy;
 import net.sourceforge.jnlp.config.ConfigurationConstants;
 import net.sourceforge.jnlp.util.logging.NoStdOutErrTest;
 import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.net.URL;
 import java.nio.file.Files;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.CodeSource;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.PrivilegedAction;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 import static net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils.assertNoFileLeak;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class JNLPClassLoaderTest extends NoStdOutErrTest {
@@ -363,4 +394,286 @@ public class JNLPClassLoaderTest extends NoStdOutErrTest {
         }
 
     }
+
+    @Test
+    public void testNestedJarsAreExtractedOnce() throws Exception {
+        File tempDirectory = FileTestUtils.createTempDirectory();
+        File content = new File(tempDirectory, "nested.txt");
+        FileTestUtils.createFileWithContents(content, "nested");
+        File nestedJar = new File(tempDirectory, "nested.jar");
+        FileTestUtils.createJarWithContents(nestedJar, content);
+        File jarLocation = new File(tempDirectory, "outer.jar");
+        FileTestUtils.createJarWithContents(jarLocation, nestedJar);
+
+        final DummyJNLPFileWithJar jnlpFile = new DummyJNLPFileWithJar(jarLocation);
+        final JNLPClassLoader first = new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+        final File extracted = new File(jarLocation + ".nested", "nested.jar");
+        assertTrue(extracted.isFile());
+        final URL nestedLocation = new URL(jnlpFile.getJarLocation() + "!nested.jar");
+        assertTrue(Arrays.asList(first.getURLs()).contains(nestedLocation));
+        assertNotNull(first.getCodeSourceSecurity(nestedLocation));
+
+        // not copied again while the outer jar is unchanged
+        final long length = extracted.length();
+        Files.write(extracted.toPath(), new byte[(int) length]);
+        final JNLPClassLoader second = new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+        assertArrayEquals(new byte[(int) length], Files.readAllBytes(extracted.toPath()));
+        assertTrue(Arrays.asList(second.getURLs()).contains(nestedLocation));
+        assertNotNull(second.getCodeSourceSecurity(nestedLocation));
+
+        // but copied again from a modified outer jar
+        FileTestUtils.createJarWithContents(jarLocation, nestedJar, content);
+        new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+        assertArrayEquals(Files.readAllBytes(nestedJar.toPath()), Files.readAllBytes(extracted.toPath()));
+    }
+
+    @Test
+    public void testAccessControlContextForClassLoadingIsCached() throws Exception {
+        File tempDirectory = FileTestUtils.createTempDirectory();
+        File jarLocation = new File(tempDirectory, "test.jar");
+        FileTestUtils.createJarWithContents(jarLocation /* no contents*/);
+
+        final DummyJNLPFileWithJar jnlpFile = new DummyJNLPFileWithJar(jarLocation);
+        final JNLPClassLoader classLoader = new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+
+        // without all permissions, the restricted context is used
+        final AccessControlContext restricted = new AccessControlContext(new ProtectionDomain[]{new ProtectionDomain(null, new Permissions())});
+        final PrivilegedAction<AccessControlContext> getContext = new PrivilegedAction<AccessControlContext>() {
+            @Override
+            public AccessControlContext run() {
+                return classLoader.getAccessControlContextForClassLoading();
+            }
+        };
+
+        final AccessControlContext first = AccessController.doPrivileged(getContext, restricted);
+        assertSame(first, AccessController.doPrivileged(getContext, restricted));
+
+        classLoader.initializeReadJarPermissions();
+        final AccessControlContext second = AccessController.doPrivileged(getContext, restricted);
+        assertNotSame(first, second);
+        assertSame(second, AccessController.doPrivileged(getContext, restricted));
+    }
+
+    @Test
+    public void testPermissionsAreCachedPerCodeSource() throws Exception {
+        File tempDirectory = FileTestUtils.createTempDirectory();
+        File jarLocation = new File(tempDirectory, "test.jar");
+        FileTestUtils.createJarWithContents(jarLocation /* no contents*/);
+
+        final DummyJNLPFileWithJar jnlpFile = new DummyJNLPFileWithJar(jarLocation);
+        final JNLPClassLoader classLoader = new JNLPClassLoader(jnlpFile, UpdatePolicy.ALWAYS);
+        final CodeSource codeSource = new CodeSource(jnlpFile.getJarLocation(), (Certificate[]) null);
+        final Permission permission = new RuntimePermission("testPermissionsAreCachedPerCodeSource");
+
+        final PermissionCollection first = classLoader.getPermissions(codeSource);
+        assertTrue(first.isReadOnly());
+        assertSame(first, classLoader.getPermissions(codeSource));
+        assertFalse(first.implies(permission));
+
+        final long generation = classLoader.getPermissionsGeneration();
+        classLoader.addPermission(permission);
+        assertNotEquals(generation, classLoader.getPermissionsGeneration());
+
+        final PermissionCollection second = classLoader.getPermissions(codeSource);
+        assertNotSame(first, second);
+        assertTrue(second.implies(permission));
+    }
+
+    @Test
+    public void testRepeatedMissesAreAnsweredFromNegativeLookupCache() throws Exception {
+        File tempDirectory = FileTestUtils.createTempDirectory();
+        File jarLocation = new File(tempDirectory, "test.jar");
+        FileTestUtils.createJarWithContents(jarLocation /* no contents*/);
+
+        final JNLPClassLoader classLoader = new JNLPClassLoader(new DummyJNLPFileWithJar(jarLocation), UpdatePolicy.ALWAYS);
+        final NegativeLookupCache cache = classLoader.getNegativeLookupCache();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                classLoader.loadClass("missing.Missing");
+                fail("class should not be found");
+            } catch (ClassNotFoundException expected) {
+            }
+            assertEquals(null, classLoader.getResource("missing/missing.properties"));
+            assertFalse(classLoader.getResources("missing/missing.properties").hasMoreElements());
+        }
+        // getResource and getResources share the miss of the resource
+        assertEquals(2, cache.getMisses());
+        assertEquals(7, cache.getHits());
+
+        // a new codebase may contain it
+        final long stamp = classLoader.getActivationStamp();
+        classLoader.enableCodeBase();
+        assertNotEquals(stamp, classLoader.getActivationStamp());
+        assertEquals(null, classLoader.getResource("missing/missing.properties"));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testExtensionsAreDownloadedInAdvance() throws Exception {
+        final File codebase = FileTestUtils.createTempDirectory();
+        final int extensions = 6;
+
+        final ExtensionDesc[] extDescs = new ExtensionDesc[extensions];
+        for (int i = 0; i < extensions; i++) {
+            final File content = new File(codebase, "ext.txt");
+            FileTestUtils.createFileWithContents(content, "ext" + i);
+            FileTestUtils.createJarWithContents(new File(codebase, "ext" + i + ".jar"), content);
+            final File jnlp = new File(codebase, "ext" + i + ".jnlp");
+            writeJnlp(jnlp, codebase, "ext" + i + ".jnlp", "<jar href=\"ext" + i + ".jar\"/>", "<component-desc/>");
+            extDescs[i] = new ExtensionDesc(null, null, jnlp.toURI().toURL());
+        }
+        final File jarLocation = new File(codebase, "test.jar");
+        FileTestUtils.createJarWithContents(jarLocation /* no contents*/);
+        final JNLPClassLoader classLoader = new JNLPClassLoader(new DummyJNLPFileWithJar(jarLocation) {
+            @Override
+            public ParserSettings getParserSettings() {
+                return new ParserSettings();
+            }
+        }, UpdatePolicy.ALWAYS);
+
+        final String parallelism = JNLPRuntime.getConfiguration().getProperty(ConfigurationConstants.KEY_EXTENSION_PARALLELISM);
+        try {
+            JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_EXTENSION_PARALLELISM, "4");
+            final List<Future<JNLPFile>> files = classLoader.prefetchExtensions(extDescs, "testExtensionsAreDownloadedInAdvance");
+            assertEquals(extensions, files.size());
+            for (int i = 0; i < extensions; i++) {
+                final JNLPFile extFile = files.get(i).get(1, TimeUnit.MINUTES);
+                assertEquals(extDescs[i].getLocation(), extFile.getFileLocation());
+                assertEquals("testExtensionsAreDownloadedInAdvance", extFile.getUniqueKey());
+            }
+
+            JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_EXTENSION_PARALLELISM, "1");
+            for (Future<JNLPFile> file : classLoader.prefetchExtensions(extDescs, "testExtensionsAreDownloadedInAdvance")) {
+                assertEquals(null, file);
+            }
+        } finally {
+            JNLPRuntime.getConfiguration().setProperty(ConfigurationConstants.KEY_EXTENSION_PARALLELISM, parallelism);
+        }
+    }
+
+    private static void writeJnlp(final File jnlp, final File codebase, final String href, final String resources, final String desc) throws Exception {
+        FileTestUtils.createFileWithContents(jnlp, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<jnlp spec=\"1.0\" codebase=\"" + codebase.toURI() + "\" href=\"" + href + "\">"
+                + "<information><title>" + href + "</title><vendor>IcedTea</vendor></information>"
+                + "<resources>" + resources + "</resources>"
+                + desc
+                + "</jnlp>");
+    }
+
+    private static final int STRESS_JAR_CLASSES = 60;
+    private static final int STRESS_CODEBASE_CLASSES = 20;
+    private static final int STRESS_THREADS = 8;
+
+    /**
+     * Compiles a hierarchy of classes, so defining one class loads its super classes. The classes
+     * named JarClass* are put into test.jar, the CodeBaseClass* ones into the codebase.
+     */
+    private static File createStressClasses(final File codebase) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        final File sources = new File(codebase, "src");
+        final List<File> sourceFiles = new ArrayList<>();
+        for (int i = 0; i < STRESS_JAR_CLASSES; i++) {
+            final String superClass = i == 0 ? "Object" : "JarClass" + (i - 1);
+            sourceFiles.add(writeSource(sources, "JarClass" + i, superClass));
+        }
+        for (int i = 0; i < STRESS_CODEBASE_CLASSES; i++) {
+            sourceFiles.add(writeSource(sources, "CodeBaseClass" + i, "JarClass" + (i * 3 % STRESS_JAR_CLASSES)));
+        }
+        assertEquals(0, compiler.run(null, null, null, toArguments(sources, sourceFiles)));
+
+        final List<File> jarClasses = new ArrayList<>();
+        for (int i = 0; i < STRESS_JAR_CLASSES; i++) {
+            jarClasses.add(new File(sources, "JarClass" + i + ".class"));
+        }
+        for (int i = 0; i < STRESS_CODEBASE_CLASSES; i++) {
+            final String name = "CodeBaseClass" + i + ".class";
+            Files.move(new File(sources, name).toPath(), new File(codebase, name).toPath());
+        }
+        final File jarLocation = new File(codebase, "test.jar");
+        FileTestUtils.createJarWithContents(jarLocation, jarClasses.toArray(new File[0]));
+        return jarLocation;
+    }
+
+    private static File writeSource(final File dir, final String name, final String superClass) throws Exception {
+        dir.mkdirs();
+        final File source = new File(dir, name + ".java");
+        FileTestUtils.createFileWithContents(source, "public class " + name + " extends " + superClass + " {}");
+        return source;
+    }
+
+    private static String[] toArguments(final File outputDir, final List<File> sources) {
+        final List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-d");
+        arguments.add(outputDir.getAbsolutePath());
+        for (File source : sources) {
+            arguments.add(source.getAbsolutePath());
+        }
+        return arguments.toArray(new String[0]);
+    }
+
+    @Test
+    public void testParallelClassLoading() throws Exception {
+        final File codebase = FileTestUtils.createTempDirectory();
+        final File jarLocation = createStressClasses(codebase);
+
+        final List<String> names = new ArrayList<>();
+        for (int i = 0; i < STRESS_JAR_CLASSES; i++) {
+            names.add("JarClass" + i);
+        }
+        for (int i = 0; i < STRESS_CODEBASE_CLASSES; i++) {
+            names.add("CodeBaseClass" + i);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            final JNLPClassLoader classLoader = new JNLPClassLoader(new DummyJNLPFileWithJar(jarLocation), UpdatePolicy.ALWAYS);
+            classLoader.enableCodeBase();
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Map<String, Class<?>>> loaded = new CopyOnWriteArrayList<>();
+            final List<Throwable> failures = new CopyOnWriteArrayList<>();
+            final List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < STRESS_THREADS; t++) {
+                final List<String> order = new ArrayList<>(names);
+                Collections.shuffle(order, new Random(round * STRESS_THREADS + t));
+                final Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Map<String, Class<?>> classes = new HashMap<>();
+                        try {
+                            start.await();
+                            for (String name : order) {
+                                classes.put(name, classLoader.loadClass(name));
+                            }
+                            loaded.add(classes);
+                        } catch (Throwable ex) {
+                            failures.add(ex);
+                        }
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+                assertFalse("class loading deadlocked", thread.isAlive());
+            }
+
+            assertEquals(Collections.emptyList(), failures);
+            assertEquals(STRESS_THREADS, loaded.size());
+            for (String name : names) {
+                final Class<?> expected = loaded.get(0).get(name);
+                assertTrue(expected.getClassLoader() instanceof JNLPClassLoader
+                        || expected.getClassLoader() instanceof JNLPClassLoader.CodeBaseClassLoader);
+                for (Map<String, Class<?>> classes : loaded) {
+                    assertSame(expected, classes.get(name));
+                }
+            }
+        }
+    }
 }
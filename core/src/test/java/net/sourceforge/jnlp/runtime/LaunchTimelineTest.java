@@ -0,0 +1,81 @@
+package net.sourceforge.jnlp.runtime;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class LaunchTimelineTest {
+
+    @Before
+    public void begin() {
+        LaunchTimeline.begin();
+    }
+
+    @Test
+    public void testPhasesAreRecordedInOrder() {
+        try (final LaunchTimeline.Phase phase = LaunchTimeline.start("outer")) {
+            LaunchTimeline.mark("inner", "http://example.com/a \"b\".jar");
+        }
+
+        final List<LaunchTimeline.Event> events = LaunchTimeline.getEvents();
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals("outer", events.get(0).name);
+        Assert.assertFalse(events.get(0).instant);
+        Assert.assertEquals("inner", events.get(1).name);
+        Assert.assertTrue(events.get(1).instant);
+        Assert.assertTrue(events.get(0).end >= events.get(1).start);
+
+        final String json = LaunchTimeline.toJson(events);
+        Assert.assertTrue(json.contains("\"name\": \"outer\""));
+        Assert.assertTrue(json.contains("\"detail\": \"http://example.com/a \\\"b\\\".jar\""));
+        Assert.assertTrue(json.contains("\"duration\": "));
+
+        final String trace = LaunchTimeline.toTrace(events);
+        Assert.assertTrue(trace.startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": ["));
+        Assert.assertTrue(trace.contains("\"ph\": \"X\""));
+        Assert.assertTrue(trace.contains("\"ph\": \"i\""));
+        Assert.assertTrue(trace.contains("\"name\": \"thread_name\""));
+    }
+
+    @Test
+    public void testBeginDropsEarlierEvents() {
+        LaunchTimeline.mark("before", null);
+        LaunchTimeline.begin();
+
+        Assert.assertTrue(LaunchTimeline.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testNewVmWritesToFilesOfItsOwn() {
+        final List<String> args = Arrays.asList("-Xtimeline", "/tmp/launch.json", "-Xtimelinetrace", "trace", "app.jnlp");
+
+        Assert.assertEquals(Arrays.asList("-Xtimeline", "/tmp/launch-newvm.json", "-Xtimelinetrace", "trace-newvm", "app.jnlp"),
+                LaunchTimeline.getNewVmArguments(args));
+        Assert.assertEquals("/tmp.d/launch-newvm", LaunchTimeline.getNewVmFileName("/tmp.d/launch"));
+    }
+
+    @Test
+    public void testTimelineIsWritten() throws Exception {
+        final File json = File.createTempFile("itw-timeline", ".json");
+        final File trace = File.createTempFile("itw-timeline", ".trace.json");
+        try {
+            LaunchTimeline.setOutput(json, trace);
+            LaunchTimeline.mark("main", "Main");
+            LaunchTimeline.write();
+
+            Assert.assertTrue(new String(Files.readAllBytes(json.toPath()), UTF_8).contains("\"name\": \"main\""));
+            Assert.assertTrue(new String(Files.readAllBytes(trace.toPath()), UTF_8).contains("\"detail\": \"Main\""));
+        } finally {
+            LaunchTimeline.setOutput(null, null);
+            json.delete();
+            trace.delete();
+        }
+    }
+}
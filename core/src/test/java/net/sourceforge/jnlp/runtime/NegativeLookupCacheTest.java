@@ -0,0 +1,53 @@
+package net.sourceforge.jnlp.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NegativeLookupCacheTest {
+
+    @Test
+    public void testMissesAreRememberedUntilStampChanges() {
+        final NegativeLookupCache cache = new NegativeLookupCache();
+
+        Assert.assertFalse(cache.isMissingClass("a.B", 1));
+        cache.addMissingClass("a.B", 1);
+        cache.addMissingResource("a/b.properties", 1);
+
+        Assert.assertTrue(cache.isMissingClass("a.B", 1));
+        Assert.assertTrue(cache.isMissingResource("a/b.properties", 1));
+        Assert.assertFalse(cache.isMissingResource("a.B", 1));
+        Assert.assertFalse(cache.isMissingClass("a/b.properties", 1));
+
+        Assert.assertFalse(cache.isMissingClass("a.B", 2));
+        Assert.assertEquals(0, cache.size());
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testMissOfOutdatedSearchIsNotRemembered() {
+        final NegativeLookupCache cache = new NegativeLookupCache();
+
+        Assert.assertFalse(cache.isMissingClass("a.B", 1));
+        // another lookup saw an activation while the first one was searching
+        Assert.assertFalse(cache.isMissingClass("a.C", 2));
+        cache.addMissingClass("a.B", 1);
+
+        Assert.assertFalse(cache.isMissingClass("a.B", 2));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        final NegativeLookupCache cache = new NegativeLookupCache();
+        cache.isMissingClass("a.B", 1);
+
+        for (int i = 0; i <= NegativeLookupCache.MAX_ENTRIES; i++) {
+            cache.addMissingClass("a.B" + i, 1);
+        }
+
+        Assert.assertEquals(NegativeLookupCache.MAX_ENTRIES, cache.size());
+        Assert.assertFalse(cache.isMissingClass("a.B0", 1));
+        Assert.assertTrue(cache.isMissingClass("a.B" + NegativeLookupCache.MAX_ENTRIES, 1));
+    }
+}
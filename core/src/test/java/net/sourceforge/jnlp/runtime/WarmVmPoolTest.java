@@ -0,0 +1,126 @@
+package net.sourceforge.jnlp.runtime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class WarmVmPoolTest {
+
+    private static CompletableFuture<String[]> startWarmVm(final WarmVmPool pool, final String fingerprint, final long idle) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.await(fingerprint, idle);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+    }
+
+    private static File awaitRegistration(final File directory, final String fingerprint) throws Exception {
+        final File registration = new File(directory, fingerprint + ".vm");
+        for (int i = 0; i < 100 && !registration.exists(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(registration.exists());
+        return registration;
+    }
+
+    @Test
+    public void testFingerprintDependsOnJvmArguments() {
+        final String fingerprint = WarmVmPool.fingerprint("/usr/bin/javaws", Arrays.asList("-Xmx512m", "-Dx=y"));
+
+        Assert.assertEquals(fingerprint, WarmVmPool.fingerprint("/usr/bin/javaws", Arrays.asList("-Xmx512m", "-Dx=y")));
+        Assert.assertNotEquals(fingerprint, WarmVmPool.fingerprint("/usr/bin/javaws", Arrays.asList("-Dx=y", "-Xmx512m")));
+        Assert.assertNotEquals(fingerprint, WarmVmPool.fingerprint("/usr/bin/javaws", Collections.singletonList("-Xmx512m-Dx=y")));
+    }
+
+    @Test
+    public void testLaunchIsHandedOverOnce() throws Exception {
+        final File directory = Files.createTempDirectory("itw-warmvm").toFile();
+        final WarmVmPool pool = new WarmVmPool(directory);
+        final CompletableFuture<String[]> warmVm = startWarmVm(pool, "a", 10000);
+        awaitRegistration(directory, "a");
+
+        final List<String> args = Arrays.asList("-Xnofork", "http://example.com/app.jnlp");
+        final Socket socket = pool.handOver("a", args);
+
+        Assert.assertNotNull(socket);
+        Assert.assertEquals(args, Arrays.asList(warmVm.get(10, TimeUnit.SECONDS)));
+        Assert.assertFalse(new File(directory, "a.vm").exists());
+        Assert.assertNull(pool.handOver("a", args));
+        socket.close();
+    }
+
+    @Test
+    public void testUnusedWarmVmExits() throws Exception {
+        final File directory = Files.createTempDirectory("itw-warmvm").toFile();
+        final WarmVmPool pool = new WarmVmPool(directory);
+        final CompletableFuture<String[]> warmVm = startWarmVm(pool, "b", 300);
+        final File registration = awaitRegistration(directory, "b");
+
+        Assert.assertNull(warmVm.get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(registration.exists());
+    }
+
+    @Test
+    public void testLaunchWithWrongTokenIsRefused() throws Exception {
+        final File directory = Files.createTempDirectory("itw-warmvm").toFile();
+        final WarmVmPool pool = new WarmVmPool(directory);
+        final CompletableFuture<String[]> warmVm = startWarmVm(pool, "c", 1000);
+        final File registration = awaitRegistration(directory, "c");
+        final String port = new String(Files.readAllBytes(registration.toPath()), UTF_8).split(" ")[0];
+        Files.write(registration.toPath(), (port + " 0123").getBytes(UTF_8));
+
+        Assert.assertNull(pool.handOver("c", Collections.singletonList("http://example.com/app.jnlp")));
+        Assert.assertNull(warmVm.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStaleRegistrationIsRemoved() throws Exception {
+        final File directory = Files.createTempDirectory("itw-warmvm").toFile();
+        final int port;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            port = closed.getLocalPort();
+        }
+        final File registration = new File(directory, "d.vm");
+        Files.write(registration.toPath(), (port + " 0123").getBytes(UTF_8));
+
+        Assert.assertNull(new WarmVmPool(directory).handOver("d", Collections.singletonList("http://example.com/app.jnlp")));
+        Assert.assertFalse(registration.exists());
+    }
+
+    @Test
+    public void testOutputIsSentToLaunch() throws Exception {
+        final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        final DataOutputStream connection = new DataOutputStream(sent);
+        final PrintStream out = new PrintStream(new WarmVmPool.ChannelOutputStream(connection, 1), true);
+        final PrintStream err = new PrintStream(new WarmVmPool.ChannelOutputStream(connection, 2), true);
+        out.println("hello");
+        err.println("failed");
+        out.print("bye");
+        out.flush();
+
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        final ByteArrayOutputStream printedErr = new ByteArrayOutputStream();
+        WarmVmPool.copyOutput(new ByteArrayInputStream(sent.toByteArray()), printed, printedErr);
+
+        final String newLine = System.lineSeparator();
+        Assert.assertEquals("hello" + newLine + "bye", new String(printed.toByteArray(), UTF_8));
+        Assert.assertEquals("failed" + newLine, new String(printedErr.toByteArray(), UTF_8));
+    }
+}
@@ -129,4 +129,11 @@ public class KeyStoresTest {
         Assert.assertEquals(true, dm.called);
     } 
 
+    @Test
+    public void trustedKeyStoresAreLoadedOnceTest() {
+        System.setSecurityManager(null);
+        Assert.assertArrayEquals(KeyStores.getCAKeyStores(), KeyStores.getCAKeyStores());
+        Assert.assertArrayEquals(KeyStores.getCertKeyStores(), KeyStores.getCertKeyStores());
+    }
+
 }
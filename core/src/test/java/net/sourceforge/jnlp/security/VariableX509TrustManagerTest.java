@@ -0,0 +1,66 @@
+package net.sourceforge.jnlp.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.net.ssl.X509TrustManager;
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.Permissions;
+import java.security.Policy;
+import java.security.PrivilegedAction;
+import java.security.ProtectionDomain;
+import java.util.List;
+
+public class VariableX509TrustManagerTest {
+
+    /**
+     * Grants everything to the code of the class path, a sandbox has static permissions.
+     */
+    private static class GrantAllPolicy extends Policy {
+        @Override
+        public boolean implies(final ProtectionDomain domain, final Permission permission) {
+            return true;
+        }
+    }
+
+    /**
+     * Only checks the permission ITW checks before it loads a key store.
+     */
+    private static class AllPermissionCheckingSM extends SecurityManager {
+        @Override
+        public void checkPermission(final Permission permission) {
+            if (permission instanceof AllPermission) {
+                super.checkPermission(permission);
+            }
+        }
+
+        @Override
+        public void checkPermission(final Permission permission, final Object context) {
+            if (permission instanceof AllPermission) {
+                super.checkPermission(permission, context);
+            }
+        }
+    }
+
+    @Test
+    public void testKeyStoresAreLoadedOnFirstHandshakeOfSandboxedCaller() {
+        final VariableX509TrustManager trustManager = new VariableX509TrustManager();
+        final AccessControlContext sandbox = new AccessControlContext(new ProtectionDomain[]{new ProtectionDomain(null, new Permissions())});
+
+        final Policy policy = Policy.getPolicy();
+        Policy.setPolicy(new GrantAllPolicy());
+        System.setSecurityManager(new AllPermissionCheckingSM());
+        final List<X509TrustManager> managers;
+        try {
+            managers = AccessController.doPrivileged((PrivilegedAction<List<X509TrustManager>>) trustManager::getCaTrustManagers, sandbox);
+        } finally {
+            System.setSecurityManager(null);
+            Policy.setPolicy(policy);
+        }
+        // at least the CA certificates of the JVM
+        Assert.assertFalse(managers.isEmpty());
+    }
+}
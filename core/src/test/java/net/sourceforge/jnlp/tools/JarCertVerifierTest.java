@@ -37,13 +37,21 @@ exception statement from your version.
 
 package net.sourceforge.jnlp.tools;
 
+import java.io.File;
+import java.net.URL;
 import java.security.CodeSigner;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 import java.util.jar.JarEntry;
 import net.adoptopenjdk.icedteaweb.jnlp.element.resource.JARDesc;
 import net.adoptopenjdk.icedteaweb.testing.tools.CodeSignerCreator;
+import net.adoptopenjdk.icedteaweb.testing.util.FileTestUtils;
+import net.sourceforge.jnlp.cache.ResourceTracker;
+import net.sourceforge.jnlp.cache.UpdatePolicy;
+import net.sourceforge.jnlp.security.JNLPAppVerifier;
 import net.sourceforge.jnlp.tools.JarCertVerifier.VerifyResult;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -516,4 +524,36 @@ public class JarCertVerifierTest {
                 jcv.getCertsList().contains(alphaSigner.getSignerCertPath()));
     }
 
+    @Test
+    public void testJarsAreVerifiedConcurrentlyAndMergedInOrder() throws Exception {
+        final File dir = FileTestUtils.createTempDirectory();
+        final ResourceTracker tracker = new ResourceTracker();
+        final List<JARDesc> jars = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            final File[] contents = new File[i % 4];
+            for (int c = 0; c < contents.length; c++) {
+                contents[c] = new File(dir, "content" + c + ".txt");
+                FileTestUtils.createFileWithContents(contents[c], "content" + c);
+            }
+            final File jar = new File(dir, "jar" + i + ".jar");
+            FileTestUtils.createJarWithContents(jar, contents);
+            final URL location = jar.toURI().toURL();
+            tracker.addResource(location, null, null, UpdatePolicy.NEVER);
+            jars.add(new JARDesc(location, null, null, false, false, false, true));
+        }
+        // the same jar twice is verified once
+        jars.add(jars.get(5));
+
+        final JarCertVerifier jcv = new JarCertVerifier(new JNLPAppVerifier());
+        jcv.add(jars, tracker);
+
+        Assert.assertFalse(jcv.allJarsSigned());
+        Assert.assertEquals(0, jcv.getCertsList().size());
+        final Map<String, Integer> signableEntries = jcv.getJarSignableEntries();
+        Assert.assertEquals(12, signableEntries.size());
+        for (int i = 0; i < 12; i++) {
+            Assert.assertEquals(Integer.valueOf(i % 4), signableEntries.get(new File(dir, "jar" + i + ".jar").getAbsolutePath()));
+        }
+    }
+
 }
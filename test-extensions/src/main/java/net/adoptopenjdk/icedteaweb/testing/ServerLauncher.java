@@ -41,6 +41,7 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.ServerSocket;
 import java.net.URL;
+import java.util.Map;
 
 /**
  * wrapper around tiny http server to separate lunch configurations and servers.
@@ -57,6 +58,8 @@ public class ServerLauncher implements Runnable {
     private final File dir;
     private ServerSocket serverSocket;
     private boolean supportingHeadRequest = true;
+    private boolean supportLastModified = false;
+    private Map<String, Map<String, Integer>> requestsCounter;
     private final ServerNaming serverNaming = ServerNaming.LOCALHOST;
 
     public void setSupportingHeadRequest(final boolean supportsHead) {
@@ -67,6 +70,17 @@ public class ServerLauncher implements Runnable {
         return supportingHeadRequest;
     }
 
+    public void setSupportLastModified(final boolean supportLastModified) {
+        this.supportLastModified = supportLastModified;
+    }
+
+    /**
+     * @param requestsCounter resource -> request method -> number of requests, or null to not count
+     */
+    public void setRequestsCounter(final Map<String, Map<String, Integer>> requestsCounter) {
+        this.requestsCounter = requestsCounter;
+    }
+
 
     private String getServerName() {
         if (serverNaming == ServerNaming.HOSTNAME) {
@@ -109,8 +123,9 @@ public class ServerLauncher implements Runnable {
             serverSocket = new ServerSocket(port);
             while (running) {
                 final TinyHttpdImpl server = new TinyHttpdImpl(serverSocket.accept(), dir, false);
-                server.setRequestsCounter(null);
+                server.setRequestsCounter(requestsCounter);
                 server.setSupportingHeadRequest(isSupportingHeadRequest());
+                server.setSupportLastModified(supportLastModified);
 
                 server.start();
             }
@@ -42,14 +42,20 @@ import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URLDecoder;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.StringTokenizer;
@@ -63,6 +69,11 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * <p>
  * When resource starts with XslowX prefix, then resource (without XslowX) is
  * returned, but its delivery is delayed
+ * <p>
+ * When last modified is supported, the Last-Modified and ETag headers are sent and
+ * conditional requests (If-Modified-Since, If-None-Match) are answered with 304
+ * <p>
+ * Range requests of the form {@code bytes=<start>-} are answered with 206, respecting If-Range
  */
 public class TinyHttpdImpl extends Thread {
 
@@ -70,6 +81,8 @@ public class TinyHttpdImpl extends Thread {
     private static final String HTTP_NOT_IMPLEMENTED = "HTTP/1.0 " + HttpURLConnection.HTTP_NOT_IMPLEMENTED + " Not Implemented" + CRLF;
     private static final String HTTP_NOT_FOUND = "HTTP/1.0 " + HttpURLConnection.HTTP_NOT_FOUND + " Not Found" + CRLF;
     private static final String HTTP_OK = "HTTP/1.0 " + HttpURLConnection.HTTP_OK + " OK" + CRLF;
+    private static final String HTTP_PARTIAL = "HTTP/1.0 " + HttpURLConnection.HTTP_PARTIAL + " Partial Content" + CRLF;
+    private static final String HTTP_NOT_MODIFIED = "HTTP/1.0 " + HttpURLConnection.HTTP_NOT_MODIFIED + " Not Modified" + CRLF;
     private static final String XSX = "/XslowX";
 
     private final Socket socket;
@@ -116,6 +129,7 @@ public class TinyHttpdImpl extends Thread {
                     final StringTokenizer t = new StringTokenizer(line, " ");
                     final String request = t.nextToken();
                     String filePath = t.nextToken();
+                    final Map<String, String> headers = readHeaders(reader);
 
                     final boolean isHeadRequest = Objects.equals(request, HttpMethod.HEAD.name());
                     final boolean isGetRequest = Objects.equals(request, HttpMethod.GET.name());
@@ -123,12 +137,12 @@ public class TinyHttpdImpl extends Thread {
                     if (isHeadRequest && !isSupportingHeadRequest()) {
                         ServerAccess.logOutputReprint("Received HEAD request but not supported");
                         writer.writeBytes(HTTP_NOT_IMPLEMENTED);
-                        continue;
+                        break;
                     }
 
                     if (!isHeadRequest && !isGetRequest) {
                         ServerAccess.logOutputReprint("Received unknown request type " + request);
-                        continue;
+                        break;
                     }
                     final boolean slowSend = filePath.startsWith(XSX);
 
@@ -161,7 +175,7 @@ public class TinyHttpdImpl extends Thread {
                     if (!(resource.isFile() && resource.canRead())) {
                         ServerAccess.logOutputReprint("Could not open file " + filePath);
                         writer.writeBytes(HTTP_NOT_FOUND);
-                        continue;
+                        break;
                     }
                     ServerAccess.logOutputReprint("Serving- " + request + ": " + filePath);
 
@@ -181,7 +195,24 @@ public class TinyHttpdImpl extends Thread {
                     }
                     String lastModified = "";
                     if (supportLastModified) {
-                        lastModified = "Last-Modified: " + new Date(resource.lastModified()) + CRLF;
+                        if (isNotModified(headers, resource)) {
+                            ServerAccess.logOutputReprint("Not modified- " + request + ": " + filePath);
+                            writer.writeBytes(HTTP_NOT_MODIFIED + CRLF);
+                            break;
+                        }
+                        lastModified = "Last-Modified: " + formatDate(resource.lastModified()) + CRLF
+                                + "ETag: " + eTag(resource) + CRLF;
+                    }
+                    final int rangeStart = getRangeStart(headers, resource);
+                    if (rangeStart > 0) {
+                        ServerAccess.logOutputReprint("Serving from byte " + rangeStart + "- " + request + ": " + filePath);
+                        writer.writeBytes(HTTP_PARTIAL + "Content-Length:" + (resourceLength - rangeStart) + CRLF
+                                + "Content-Range: bytes " + rangeStart + "-" + (resourceLength - 1) + "/" + resourceLength + CRLF
+                                + lastModified + contentType + CRLF + CRLF);
+                        if (isGetRequest) {
+                            writer.write(buff, rangeStart, resourceLength - rangeStart);
+                        }
+                        break;
                     }
                     writer.writeBytes(HTTP_OK + "Content-Length:" + resourceLength + CRLF + lastModified + contentType + CRLF + CRLF);
 
@@ -196,6 +227,8 @@ public class TinyHttpdImpl extends Thread {
                             writer.write(buff, 0, resourceLength);
                         }
                     }
+                    // the headers of the request are consumed, one request per connection
+                    break;
                 }
 
             } catch (final SocketException e) {
@@ -212,6 +245,73 @@ public class TinyHttpdImpl extends Thread {
         }
     }
 
+    /**
+     * Reads the header lines of a request up to and including the empty line.
+     *
+     * @return the headers with lower case names
+     */
+    private static Map<String, String> readHeaders(final BufferedReader reader) throws IOException {
+        final Map<String, String> headers = new HashMap<>();
+        String header;
+        while ((header = reader.readLine()) != null && header.length() > 0) {
+            final int colon = header.indexOf(':');
+            if (colon > 0) {
+                headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ENGLISH), header.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static boolean isNotModified(final Map<String, String> headers, final File resource) {
+        final String ifNoneMatch = headers.get("if-none-match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.equals(eTag(resource));
+        }
+        final String ifModifiedSince = headers.get("if-modified-since");
+        if (ifModifiedSince != null) {
+            try {
+                final long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                // http dates have a resolution of seconds
+                return resource.lastModified() / 1000 <= since / 1000;
+            } catch (final DateTimeParseException e) {
+                ServerAccess.logException(e, false);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the first byte requested by a satisfiable range request, 0 to send the whole resource
+     */
+    private static int getRangeStart(final Map<String, String> headers, final File resource) {
+        final String range = headers.get("range");
+        if (range == null || !range.startsWith("bytes=") || !range.endsWith("-")) {
+            return 0;
+        }
+        final String ifRange = headers.get("if-range");
+        if (ifRange != null && !ifRange.equals(eTag(resource)) && !ifRange.equals(formatDate(resource.lastModified()))) {
+            return 0;
+        }
+        try {
+            final long start = Long.parseLong(range.substring("bytes=".length(), range.length() - 1));
+            return start < resource.length() ? (int) start : 0;
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param resource served file
+     * @return the ETag sent for the file when last modified is supported
+     */
+    public static String eTag(final File resource) {
+        return "\"" + Long.toHexString(resource.lastModified()) + "-" + Long.toHexString(resource.length()) + "\"";
+    }
+
+    private static String formatDate(final long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+
     /**
      * This function splits input array to several pieces from byte[length]
      * split to n pieces s is returned byte[n][length/n], except last piece